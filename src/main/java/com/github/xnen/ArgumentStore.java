@@ -0,0 +1,278 @@
+package com.github.xnen;
+
+import com.github.xnen.impl.IArguments;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Arguments kept as UTF-8 in one contiguous buffer, on the heap or off it (direct), with the start and end of each token
+ * in an int array. Meant for very large invocations, where a String per token would double the heap needed.
+ *
+ * Identifiers are matched against the bytes, so only the args handed to parameters ever become Strings.
+ * get() decodes a new String on each call and doesn't keep it.
+ */
+public final class ArgumentStore implements IArguments {
+
+    private final ByteBuffer bytes;
+
+    /**
+     * start and end (exclusive) of each token in 'bytes', flattened.
+     */
+    private final int[] spans;
+    private final int size;
+
+    /**
+     * Tokens with bytes outside ASCII. These are decoded before matching, all others are matched byte for byte.
+     */
+    private final BitSet nonAscii;
+
+    private ArgumentStore(ByteBuffer bytes, int[] spans, int size, BitSet nonAscii) {
+        this.bytes = bytes;
+        this.spans = spans;
+        this.size = size;
+        this.nonAscii = nonAscii;
+    }
+
+    /**
+     * Start building a store token by token.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Read a UTF-8 response file with one token per line. (Blank lines are skipped, line endings may be \n or \r\n)
+     * The file is read straight into the store's buffer, without decoding it.
+     */
+    public static ArgumentStore readLines(Path path, boolean direct) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE)
+                throw new IOException("Response file is too large: " + path);
+
+            ByteBuffer bytes = direct ? ByteBuffer.allocateDirect((int) length) : ByteBuffer.allocate((int) length);
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // Keep reading until full
+            }
+            bytes.flip();
+
+            int[] spans = new int[64];
+            int size = 0;
+            BitSet nonAscii = new BitSet();
+            int start = 0;
+            boolean ascii = true;
+
+            for (int i = 0, limit = bytes.limit(); i <= limit; i++) {
+                byte b = i < limit ? bytes.get(i) : (byte) '\n';
+
+                if (b == '\n') {
+                    int end = i > start && bytes.get(i - 1) == '\r' ? i - 1 : i;
+
+                    if (end > start) {
+                        if (size * 2 + 2 > spans.length)
+                            spans = Arrays.copyOf(spans, spans.length * 2);
+
+                        spans[size * 2] = start;
+                        spans[size * 2 + 1] = end;
+                        if (!ascii) nonAscii.set(size);
+                        size++;
+                    }
+
+                    start = i + 1;
+                    ascii = true;
+                } else if (b < 0) {
+                    ascii = false;
+                }
+            }
+
+            return new ArgumentStore(bytes, spans, size, nonAscii);
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * The token's text. ASCII tokens are read from the buffer as they are, others are decoded.
+     */
+    @Override
+    public CharSequence view(int index) {
+        if (this.nonAscii.get(index))
+            return this.get(index);
+
+        return new AsciiView(this.bytes, this.start(index), this.end(index));
+    }
+
+    @Override
+    public String get(int index) {
+        int start = this.start(index);
+        int length = this.end(index) - start;
+
+        if (this.bytes.hasArray())
+            return new String(this.bytes.array(), this.bytes.arrayOffset() + start, length, StandardCharsets.UTF_8);
+
+        byte[] copy = new byte[length];
+        for (int i = 0; i < length; i++) {
+            copy[i] = this.bytes.get(start + i);
+        }
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Bytes used by the tokens, not counting the span index.
+     */
+    public int byteSize() {
+        return this.bytes.limit();
+    }
+
+    /**
+     * Is the buffer off the Java heap?
+     */
+    public boolean isDirect() {
+        return this.bytes.isDirect();
+    }
+
+    ByteBuffer bytes() {
+        return this.bytes;
+    }
+
+    int start(int index) {
+        return this.spans[index * 2];
+    }
+
+    int end(int index) {
+        return this.spans[index * 2 + 1];
+    }
+
+    boolean isAscii(int index) {
+        return !this.nonAscii.get(index);
+    }
+
+    /**
+     * Collects tokens as UTF-8 into one growing array. build() then copies it into the final buffer once.
+     */
+    public static final class Builder {
+        private byte[] bytes = new byte[256];
+        private int length;
+
+        private int[] spans = new int[64];
+        private int size;
+
+        private final BitSet nonAscii = new BitSet();
+
+        private Builder() {}
+
+        public Builder add(CharSequence token) {
+            if (token == null)
+                throw new RuntimeException("Token cannot be null!");
+
+            int start = this.length;
+            boolean ascii = true;
+
+            for (int i = 0; i < token.length(); i++) {
+                if (token.charAt(i) >= 0x80) {
+                    ascii = false;
+                    break;
+                }
+            }
+
+            if (ascii) {
+                this.ensure(token.length());
+                for (int i = 0; i < token.length(); i++) {
+                    this.bytes[this.length++] = (byte) token.charAt(i);
+                }
+            } else {
+                ByteBuffer encoded = StandardCharsets.UTF_8.encode(CharBuffer.wrap(token));
+                this.ensure(encoded.remaining());
+                encoded.get(this.bytes, this.length, encoded.remaining());
+                this.length = start + encoded.limit();
+                this.nonAscii.set(this.size);
+            }
+
+            if (this.size * 2 + 2 > this.spans.length)
+                this.spans = Arrays.copyOf(this.spans, this.spans.length * 2);
+
+            this.spans[this.size * 2] = start;
+            this.spans[this.size * 2 + 1] = this.length;
+            this.size++;
+            return this;
+        }
+
+        public Builder addAll(CharSequence... tokens) {
+            for (CharSequence token : tokens) this.add(token);
+            return this;
+        }
+
+        /**
+         * Store on the heap.
+         */
+        public ArgumentStore build() {
+            return this.build(ByteBuffer.allocate(this.length));
+        }
+
+        /**
+         * Store in a direct buffer, off the heap.
+         */
+        public ArgumentStore buildDirect() {
+            return this.build(ByteBuffer.allocateDirect(this.length));
+        }
+
+        private ArgumentStore build(ByteBuffer buffer) {
+            buffer.put(this.bytes, 0, this.length);
+            buffer.flip();
+            return new ArgumentStore(buffer, Arrays.copyOf(this.spans, this.size * 2), this.size, (BitSet) this.nonAscii.clone());
+        }
+
+        private void ensure(int extra) {
+            if (this.length + extra > this.bytes.length)
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.length + extra));
+        }
+    }
+
+    /**
+     * An ASCII token read in place, one byte per char.
+     */
+    private static final class AsciiView implements CharSequence {
+        private final ByteBuffer bytes;
+        private final int start;
+        private final int end;
+
+        private AsciiView(ByteBuffer bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return this.end - this.start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) this.bytes.get(this.start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new AsciiView(this.bytes, this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[this.length()];
+            for (int i = 0; i < chars.length; i++) chars[i] = this.charAt(i);
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.xnen;
+
+/**
+ * Options for Parameters.processBatch()
+ */
+public final class BatchOptions {
+
+    boolean ordered;
+    int parallelism;
+    int threshold;
+
+    private BatchOptions(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    /**
+     * Parse in parallel, then run handlers one item at a time in input order on the calling thread.
+     */
+    public static BatchOptions ordered() {
+        return new BatchOptions(true);
+    }
+
+    /**
+     * Parse and run handlers in parallel, in no particular order. Handlers must be thread-safe.
+     */
+    public static BatchOptions unordered() {
+        return new BatchOptions(false);
+    }
+
+    /**
+     * How many threads should work on the batch? (0 => the common fork-join pool)
+     */
+    public BatchOptions parallelism(int parallelism) {
+        if (parallelism < 0)
+            throw new RuntimeException("Parallelism cannot be negative!");
+
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * How many items should a single task handle before the batch stops splitting? (0 => chosen from the batch size)
+     */
+    public BatchOptions threshold(int threshold) {
+        if (threshold < 0)
+            throw new RuntimeException("Threshold cannot be negative!");
+
+        this.threshold = threshold;
+        return this;
+    }
+
+    public boolean isOrdered() {
+        return this.ordered;
+    }
+}
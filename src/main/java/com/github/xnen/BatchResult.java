@@ -0,0 +1,52 @@
+package com.github.xnen;
+
+/**
+ * Per-item outcome of Parameters.processBatch(), indexed like the input list.
+ * An item either has a ParseResult (it was parsed, and its handlers ran), or the exception that stopped it.
+ */
+public final class BatchResult {
+
+    final ParseResult[] results;
+    final Exception[] errors;
+
+    BatchResult(int size) {
+        this.results = new ParseResult[size];
+        this.errors = new Exception[size];
+    }
+
+    public int size() {
+        return this.results.length;
+    }
+
+    /**
+     * Did this item parse and run without an exception?
+     */
+    public boolean succeeded(int index) {
+        return this.errors[index] == null;
+    }
+
+    /**
+     * Parse result of this item, or null if it failed to parse.
+     */
+    public ParseResult getResult(int index) {
+        return this.results[index];
+    }
+
+    /**
+     * Exception thrown while parsing (a ParameterException) or by a handler, or null if the item succeeded.
+     */
+    public Exception getError(int index) {
+        return this.errors[index];
+    }
+
+    /**
+     * Number of items that failed.
+     */
+    public int getFailureCount() {
+        int count = 0;
+        for (Exception error : this.errors) {
+            if (error != null) count++;
+        }
+        return count;
+    }
+}
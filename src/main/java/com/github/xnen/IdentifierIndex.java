@@ -0,0 +1,273 @@
+package com.github.xnen;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Hash index from identifier to parameter ordinal, so a token is matched in constant time instead of against every parameter.
+ *
+ * Case-sensitive identifiers are kept in one open-addressing table keyed by their exact hash, case-insensitive ones in
+ * another keyed by a case-folded hash. Lookups take any CharSequence, so tokens don't have to be Strings.
+ */
+final class IdentifierIndex {
+
+    private final String[] identifiers;
+    private final int[] ordinals;
+
+    /**
+     * Identifiers pre-encoded for matching ArgumentStore tokens byte for byte. (null for identifiers outside ASCII)
+     */
+    private final byte[][] encoded;
+
+    /**
+     * Slots hold (entry + 1), 0 is empty. Both tables have a power of two length.
+     */
+    private final int[] exact;
+    private final int[] folded;
+
+    /**
+     * Index of the identifiers of the registered parameters from ordinal 'from' on. (0 for all of them)
+     */
+    IdentifierIndex(Registry registry, int from) {
+        int size = registry.size();
+        int count = 0;
+        int insensitive = 0;
+        for (int ordinal = from; ordinal < size; ordinal++) {
+            int identifiers = registry.identifiers(ordinal).length;
+            count += identifiers;
+            if (!registry.isCaseSensitive(ordinal))
+                insensitive += identifiers;
+        }
+
+        this.identifiers = new String[count];
+        this.ordinals = new int[count];
+        this.encoded = new byte[count][];
+        this.exact = new int[tableSize(count - insensitive)];
+        this.folded = new int[tableSize(insensitive)];
+
+        int entry = 0;
+        for (int ordinal = from; ordinal < size; ordinal++) {
+            boolean caseSensitive = registry.isCaseSensitive(ordinal);
+
+            for (String identifier : registry.identifiers(ordinal)) {
+                this.identifiers[entry] = identifier;
+                this.ordinals[entry] = ordinal;
+                this.encoded[entry] = encodeAscii(identifier);
+
+                if (caseSensitive) {
+                    insert(this.exact, identifier.hashCode(), entry);
+                } else {
+                    insert(this.folded, foldedHash(identifier), entry);
+                }
+
+                entry++;
+            }
+        }
+    }
+
+    /**
+     * Read the hash tables written by write() for this table's identifiers, starting at the buffer's position.
+     * Entries are the table's identifiers in ordinal order, as the constructor above numbers them.
+     */
+    IdentifierIndex(ParameterTable table, ByteBuffer buffer) {
+        int count = 0;
+        for (int ordinal = 0; ordinal < table.size; ordinal++) {
+            count += table.identifiers(ordinal).length;
+        }
+
+        this.identifiers = new String[count];
+        this.ordinals = new int[count];
+        this.encoded = new byte[count][];
+
+        int entry = 0;
+        for (int ordinal = 0; ordinal < table.size; ordinal++) {
+            for (String identifier : table.identifiers(ordinal)) {
+                this.identifiers[entry] = identifier;
+                this.ordinals[entry] = ordinal;
+                this.encoded[entry] = encodeAscii(identifier);
+                entry++;
+            }
+        }
+
+        this.exact = ParameterTable.readInts(buffer, buffer.getInt());
+        this.folded = ParameterTable.readInts(buffer, buffer.getInt());
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(this.exact.length);
+        ParameterTable.writeInts(out, this.exact);
+        out.writeInt(this.folded.length);
+        ParameterTable.writeInts(out, this.folded);
+    }
+
+    /**
+     * Ordinal of the parameter this token identifies, or -1 if it isn't an identifier.
+     */
+    int lookup(CharSequence token) {
+        if (token == null)
+            return -1;
+
+        int exactHash = 0;
+        int foldedHash = 0;
+
+        if (token instanceof String) {
+            exactHash = token.hashCode(); // Cached by String
+            if (this.folded.length > 1)
+                foldedHash = foldedHash(token);
+        } else {
+            for (int i = 0; i < token.length(); i++) {
+                char c = token.charAt(i);
+                exactHash = 31 * exactHash + c;
+                foldedHash = 31 * foldedHash + fold(c);
+            }
+        }
+
+        int mask = this.exact.length - 1;
+        for (int slot = mix(exactHash) & mask; this.exact[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = this.exact[slot] - 1;
+            if (contentEquals(this.identifiers[entry], token, true))
+                return this.ordinals[entry];
+        }
+
+        mask = this.folded.length - 1;
+        for (int slot = mix(foldedHash) & mask; this.folded[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = this.folded[slot] - 1;
+            if (contentEquals(this.identifiers[entry], token, false))
+                return this.ordinals[entry];
+        }
+
+        return -1;
+    }
+
+    /**
+     * Ordinal of the parameter this stored token identifies, or -1. ASCII tokens are hashed and compared as bytes,
+     * without decoding them.
+     */
+    int lookup(ArgumentStore args, int index) {
+        if (!args.isAscii(index))
+            return this.lookup(args.get(index));
+
+        ByteBuffer bytes = args.bytes();
+        int start = args.start(index);
+        int end = args.end(index);
+
+        // An ASCII byte is its own char, so these are the same hashes lookup(CharSequence) computes.
+        int exactHash = 0;
+        int foldedHash = 0;
+        for (int i = start; i < end; i++) {
+            char c = (char) bytes.get(i);
+            exactHash = 31 * exactHash + c;
+            foldedHash = 31 * foldedHash + fold(c);
+        }
+
+        int mask = this.exact.length - 1;
+        for (int slot = mix(exactHash) & mask; this.exact[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = this.exact[slot] - 1;
+            if (this.bytesEqual(entry, args, index, true))
+                return this.ordinals[entry];
+        }
+
+        mask = this.folded.length - 1;
+        for (int slot = mix(foldedHash) & mask; this.folded[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = this.folded[slot] - 1;
+            if (this.bytesEqual(entry, args, index, false))
+                return this.ordinals[entry];
+        }
+
+        return -1;
+    }
+
+    private boolean bytesEqual(int entry, ArgumentStore args, int index, boolean caseSensitive) {
+        byte[] identifier = this.encoded[entry];
+
+        // Identifiers outside ASCII can still equal an ASCII token ignoring case (i.e. the Kelvin sign and 'k').
+        if (identifier == null)
+            return contentEquals(this.identifiers[entry], args.view(index), caseSensitive);
+
+        int start = args.start(index);
+        if (identifier.length != args.end(index) - start)
+            return false;
+
+        ByteBuffer bytes = args.bytes();
+        for (int i = 0; i < identifier.length; i++) {
+            char a = (char) identifier[i];
+            char b = (char) bytes.get(start + i);
+            if (a != b && (caseSensitive || fold(a) != fold(b)))
+                return false;
+        }
+
+        return true;
+    }
+
+    private static byte[] encodeAscii(String identifier) {
+        byte[] encoded = new byte[identifier.length()];
+
+        for (int i = 0; i < encoded.length; i++) {
+            char c = identifier.charAt(i);
+            if (c >= 0x80)
+                return null;
+            encoded[i] = (byte) c;
+        }
+
+        return encoded;
+    }
+
+    private static void insert(int[] table, int hash, int entry) {
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+
+        table[slot] = entry + 1;
+    }
+
+    /**
+     * Load factor of at most 1/2, and at least one empty slot so probing always ends.
+     */
+    private static int tableSize(int entries) {
+        int size = 2;
+        while (size < entries * 2) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    static int foldedHash(CharSequence text) {
+        int hash = 0;
+        for (int i = 0; i < text.length(); i++) {
+            hash = 31 * hash + fold(text.charAt(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Folds a char so that chars equal under String.equalsIgnoreCase fold to the same value.
+     */
+    static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static boolean contentEquals(String identifier, CharSequence token, boolean caseSensitive) {
+        if (identifier.length() != token.length())
+            return false;
+
+        if (token instanceof String)
+            return caseSensitive ? identifier.equals(token) : identifier.equalsIgnoreCase((String) token);
+
+        for (int i = 0; i < identifier.length(); i++) {
+            char a = identifier.charAt(i);
+            char b = token.charAt(i);
+            if (a != b && (caseSensitive || fold(a) != fold(b)))
+                return false;
+        }
+
+        return true;
+    }
+}
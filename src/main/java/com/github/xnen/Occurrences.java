@@ -0,0 +1,123 @@
+package com.github.xnen;
+
+import java.util.Arrays;
+
+/**
+ * Every occurrence of a repeatable parameter, in the order they were passed.
+ * Args of all occurrences are kept in one flat array, with an offsets index marking where each occurrence starts.
+ * Flags that take no args only count their occurrences.
+ */
+public final class Occurrences {
+
+    private static final String[] NO_ARGS = new String[0];
+
+    private String[] args;
+    private int argCount;
+
+    /**
+     * offsets[i] is the index in args where occurrence i starts. Only kept for parameters that take args.
+     */
+    private int[] offsets;
+    private int count;
+
+    Occurrences(int expectedArgs) {
+        this.args = expectedArgs == 0 ? NO_ARGS : new String[expectedArgs];
+        this.offsets = expectedArgs == 0 ? null : new int[4];
+    }
+
+    /**
+     * A single occurrence with these args.
+     */
+    public static Occurrences of(String... args) {
+        Occurrences occurrences = new Occurrences(args.length);
+        occurrences.begin();
+        for (String arg : args) occurrences.add(arg);
+        return occurrences;
+    }
+
+    void begin() {
+        if (this.offsets != null) {
+            if (this.count == this.offsets.length)
+                this.offsets = Arrays.copyOf(this.offsets, this.count * 2);
+            this.offsets[this.count] = this.argCount;
+        }
+        this.count++;
+    }
+
+    void add(String arg) {
+        if (this.argCount == this.args.length) {
+            this.args = Arrays.copyOf(this.args, Math.max(4, this.argCount * 2));
+            if (this.offsets == null) {
+                this.offsets = new int[Math.max(4, this.count)];
+                this.offsets[this.count - 1] = 0; // Only reached when earlier occurrences had no args.
+            }
+        }
+        this.args[this.argCount++] = arg;
+    }
+
+    /**
+     * Drop the last occurrence and its args. (For ParseSession, undoing a match)
+     */
+    void removeLast() {
+        this.count--;
+
+        int end = this.offsets == null ? 0 : this.offsets[this.count];
+        Arrays.fill(this.args, end, this.argCount, null);
+        this.argCount = end;
+    }
+
+    /**
+     * How many times was the parameter passed?
+     */
+    public int count() {
+        return this.count;
+    }
+
+    /**
+     * Number of args passed with this occurrence.
+     */
+    public int argCount(int occurrence) {
+        return this.end(occurrence) - this.start(occurrence);
+    }
+
+    /**
+     * Arg 'index' of this occurrence.
+     */
+    public String get(int occurrence, int index) {
+        if (index < 0 || index >= this.argCount(occurrence))
+            throw new IndexOutOfBoundsException("Occurrence " + occurrence + " has no arg " + index);
+
+        return this.args[this.start(occurrence) + index];
+    }
+
+    /**
+     * Copy of the args of this occurrence.
+     */
+    public String[] args(int occurrence) {
+        return Arrays.copyOfRange(this.args, this.start(occurrence), this.end(occurrence));
+    }
+
+    /**
+     * Args of every occurrence, one after another.
+     */
+    public String[] flat() {
+        if (this.args.length != this.argCount)
+            this.args = Arrays.copyOf(this.args, this.argCount);
+
+        return this.args;
+    }
+
+    private int start(int occurrence) {
+        if (occurrence < 0 || occurrence >= this.count)
+            throw new IndexOutOfBoundsException("No occurrence " + occurrence + ", there are " + this.count);
+
+        return this.offsets == null ? 0 : this.offsets[occurrence];
+    }
+
+    private int end(int occurrence) {
+        if (this.offsets == null)
+            return 0;
+
+        return occurrence + 1 < this.count ? this.offsets[occurrence + 1] : this.argCount;
+    }
+}
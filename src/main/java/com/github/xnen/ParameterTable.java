@@ -0,0 +1,397 @@
+package com.github.xnen;
+
+import com.github.xnen.impl.ICompleter;
+import com.github.xnen.impl.IHandler;
+import com.github.xnen.impl.IHandlerBinder;
+import com.github.xnen.impl.IValidator;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.param.Parameter;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Compact form of a sealed registry: every parameter's fields in parallel arrays indexed by ordinal.
+ *
+ * Flags are packed into one int per parameter, priorities into a short[], and all text (identifiers, arg clarifiers,
+ * descriptions, clauses, env and config names) is interned into one shared string table that the other arrays refer to.
+ * Parameter objects are only created when asked for, once per ordinal.
+ */
+final class ParameterTable {
+
+    static final int CASE_SENSITIVE = 1;
+    static final int REQUIRED = 1 << 1;
+    static final int INFINITE = 1 << 2;
+    static final int REPEATABLE = 1 << 3;
+
+    final int size;
+
+    private final String[] strings;
+
+    /**
+     * identifiers of ordinal o are strings[identifierRefs[identifierStart[o] .. identifierStart[o + 1]]], and so on.
+     */
+    private final int[] identifierStart;
+    private final int[] identifierRefs;
+    private final int[] argStart;
+    private final int[] argRefs;
+    private final int[] clauseStart;
+    private final int[] clauseRefs;
+
+    /**
+     * Index into strings, or -1 if absent.
+     */
+    private final int[] description;
+    private final int[] envVariable;
+    private final int[] configKey;
+
+    private final int[] flags;
+
+    /**
+     * Bit masks of the args added with acceptInput() / acceptOutput().
+     */
+    private final int[] inputArgs;
+    private final int[] outputArgs;
+    private final short[] priority;
+
+    private final IHandler[] handlers;
+    private final IValidator[] validators;
+    private final ICompleter[] completers;
+    private final Duration[] timeouts;
+
+    /**
+     * Supplies handlers, validators and completers of a table read from a snapshot. (null otherwise)
+     */
+    private final IHandlerBinder binder;
+
+    /**
+     * Identifier index read along with the table from a snapshot, so it isn't built again. (null otherwise)
+     */
+    final IdentifierIndex index;
+
+    private final AtomicReferenceArray<Parameter> materialized;
+
+    /**
+     * Copy these parameters (in ordinal order) into the table. The table keeps no reference to them.
+     */
+    ParameterTable(List<Parameter> parameters) {
+        int size = parameters.size();
+        this.size = size;
+
+        StringTable table = new StringTable();
+
+        this.identifierStart = new int[size + 1];
+        this.argStart = new int[size + 1];
+        this.clauseStart = new int[size + 1];
+        this.description = new int[size];
+        this.envVariable = new int[size];
+        this.configKey = new int[size];
+        this.flags = new int[size];
+        this.inputArgs = new int[size];
+        this.outputArgs = new int[size];
+        this.priority = new short[size];
+        this.handlers = new IHandler[size];
+        this.validators = new IValidator[size];
+        this.completers = new ICompleter[size];
+        this.timeouts = new Duration[size];
+
+        IntList identifierRefs = new IntList(size * 2);
+        IntList argRefs = new IntList(size);
+        IntList clauseRefs = new IntList(0);
+
+        for (int o = 0; o < size; o++) {
+            Parameter parameter = parameters.get(o);
+
+            for (String identifier : parameter.getIdentifiers()) identifierRefs.add(table.intern(identifier));
+            for (String clarifier : parameter.getArgs()) argRefs.add(table.intern(clarifier));
+            if (parameter.getRequiredClauses() != null) {
+                for (String clause : parameter.getRequiredClauses()) clauseRefs.add(table.intern(clause));
+            }
+
+            this.identifierStart[o + 1] = identifierRefs.size;
+            this.argStart[o + 1] = argRefs.size;
+            this.clauseStart[o + 1] = clauseRefs.size;
+
+            this.description[o] = table.intern(parameter.getDescription());
+            this.envVariable[o] = table.intern(parameter.getEnvVariable());
+            this.configKey[o] = table.intern(parameter.getConfigKey());
+
+            this.flags[o] = (parameter.isCaseSensitive() ? CASE_SENSITIVE : 0)
+                    | (parameter.isRequired() ? REQUIRED : 0)
+                    | (parameter.isInfinite() ? INFINITE : 0)
+                    | (parameter.isRepeatable() ? REPEATABLE : 0);
+            this.priority[o] = parameter.getPriority();
+            this.inputArgs[o] = parameter.getInputArgs();
+            this.outputArgs[o] = parameter.getOutputArgs();
+
+            this.handlers[o] = parameter.getHandler();
+            this.validators[o] = parameter.getValidator();
+            this.completers[o] = parameter.getCompleter();
+            this.timeouts[o] = parameter.getTimeout();
+        }
+
+        this.strings = table.toArray();
+        this.identifierRefs = identifierRefs.toArray();
+        this.argRefs = argRefs.toArray();
+        this.clauseRefs = clauseRefs.toArray();
+        this.materialized = new AtomicReferenceArray<>(size);
+        this.binder = null;
+        this.index = null;
+    }
+
+    /**
+     * Read a table written by write(), starting at the buffer's position, along with the identifier index written after it.
+     */
+    ParameterTable(ByteBuffer buffer, IHandlerBinder binder) {
+        int size = buffer.getInt();
+        this.size = size;
+
+        int stringCount = buffer.getInt();
+        int[] offsets = readInts(buffer, stringCount + 1);
+        byte[] text = new byte[offsets[stringCount]];
+        buffer.get(text);
+
+        this.strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            this.strings[i] = new String(text, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+        }
+
+        this.identifierStart = readInts(buffer, size + 1);
+        this.identifierRefs = readInts(buffer, this.identifierStart[size]);
+        this.argStart = readInts(buffer, size + 1);
+        this.argRefs = readInts(buffer, this.argStart[size]);
+        this.clauseStart = readInts(buffer, size + 1);
+        this.clauseRefs = readInts(buffer, this.clauseStart[size]);
+        this.description = readInts(buffer, size);
+        this.envVariable = readInts(buffer, size);
+        this.configKey = readInts(buffer, size);
+        this.flags = readInts(buffer, size);
+        this.inputArgs = readInts(buffer, size);
+        this.outputArgs = readInts(buffer, size);
+
+        this.priority = new short[size];
+        buffer.asShortBuffer().get(this.priority);
+        buffer.position(buffer.position() + size * 2);
+
+        this.timeouts = new Duration[size];
+        for (int o = 0; o < size; o++) {
+            long nanos = buffer.getLong();
+            if (nanos >= 0) this.timeouts[o] = Duration.ofNanos(nanos);
+        }
+
+        this.handlers = new IHandler[size];
+        this.validators = new IValidator[size];
+        this.completers = new ICompleter[size];
+        this.binder = binder;
+        this.materialized = new AtomicReferenceArray<>(size);
+        this.index = new IdentifierIndex(this, buffer);
+    }
+
+    /**
+     * Write everything but the handlers, validators and completers, followed by this identifier index.
+     */
+    void write(DataOutputStream out, IdentifierIndex index) throws IOException {
+        out.writeInt(this.size);
+
+        byte[][] encoded = new byte[this.strings.length][];
+        out.writeInt(this.strings.length);
+        int offset = 0;
+        out.writeInt(0);
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = this.strings[i].getBytes(StandardCharsets.UTF_8);
+            offset += encoded[i].length;
+            out.writeInt(offset);
+        }
+        for (byte[] bytes : encoded) out.write(bytes);
+
+        writeInts(out, this.identifierStart);
+        writeInts(out, this.identifierRefs);
+        writeInts(out, this.argStart);
+        writeInts(out, this.argRefs);
+        writeInts(out, this.clauseStart);
+        writeInts(out, this.clauseRefs);
+        writeInts(out, this.description);
+        writeInts(out, this.envVariable);
+        writeInts(out, this.configKey);
+        writeInts(out, this.flags);
+        writeInts(out, this.inputArgs);
+        writeInts(out, this.outputArgs);
+        for (short value : this.priority) out.writeShort(value);
+        for (Duration timeout : this.timeouts) out.writeLong(timeout == null ? -1 : timeout.toNanos());
+
+        index.write(out);
+    }
+
+    static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * 4);
+        return values;
+    }
+
+    static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) out.writeInt(value);
+    }
+
+    boolean hasFlag(int ordinal, int flag) {
+        return (this.flags[ordinal] & flag) != 0;
+    }
+
+    short priority(int ordinal) {
+        return this.priority[ordinal];
+    }
+
+    int argCount(int ordinal) {
+        return this.argStart[ordinal + 1] - this.argStart[ordinal];
+    }
+
+    String[] identifiers(int ordinal) {
+        return this.strings(this.identifierRefs, this.identifierStart[ordinal], this.identifierStart[ordinal + 1]);
+    }
+
+    /**
+     * null if the parameter has no requiredUnless() clauses.
+     */
+    String[] requiredClauses(int ordinal) {
+        int start = this.clauseStart[ordinal];
+        int end = this.clauseStart[ordinal + 1];
+        return start == end ? null : this.strings(this.clauseRefs, start, end);
+    }
+
+    String envVariable(int ordinal) {
+        return this.string(this.envVariable[ordinal]);
+    }
+
+    String configKey(int ordinal) {
+        return this.string(this.configKey[ordinal]);
+    }
+
+    /**
+     * The Parameter for this ordinal, created on first use. Every caller gets the same object.
+     */
+    Parameter parameter(int ordinal) {
+        Parameter parameter = this.materialized.get(ordinal);
+
+        if (parameter == null) {
+            this.materialized.compareAndSet(ordinal, null, this.create(ordinal, null));
+            parameter = this.materialized.get(ordinal);
+        }
+
+        return parameter;
+    }
+
+    /**
+     * A new Parameter for this ordinal, with this handler instead of its own (unless null). Not kept by the table.
+     */
+    Parameter create(int ordinal, IHandler handler) {
+        String identifier = this.strings[this.identifierRefs[this.identifierStart[ordinal]]];
+        boolean bound = this.binder != null;
+
+        if (handler == null)
+            handler = bound ? this.binder.handler(ordinal, identifier) : this.handlers[ordinal];
+
+        ParamBuilder builder = ParamBuilder.with()
+                .identifier(this.identifiers(ordinal))
+                .description(this.string(this.description[ordinal]))
+                .handler(handler)
+                .priority(this.priority[ordinal])
+                .validator(bound ? this.binder.validator(ordinal, identifier) : this.validators[ordinal])
+                .env(this.envVariable(ordinal))
+                .configKey(this.configKey(ordinal))
+                .completer(bound ? this.binder.completer(ordinal, identifier) : this.completers[ordinal]);
+
+        if (this.hasFlag(ordinal, CASE_SENSITIVE))
+            builder.caseSensitive();
+        if (this.hasFlag(ordinal, REQUIRED))
+            builder.requiredUnless(this.requiredClauses(ordinal));
+        if (this.hasFlag(ordinal, REPEATABLE))
+            builder.repeatable();
+        if (this.timeouts[ordinal] != null)
+            builder.timeout(this.timeouts[ordinal]);
+
+        for (int i = this.argStart[ordinal]; i < this.argStart[ordinal + 1]; i++) {
+            String clarifier = this.strings[this.argRefs[i]];
+            int bit = i - this.argStart[ordinal] < 32 ? 1 << (i - this.argStart[ordinal]) : 0;
+
+            if (this.hasFlag(ordinal, INFINITE)) {
+                builder.acceptsInfiniteArgs(clarifier);
+            } else if ((this.inputArgs[ordinal] & bit) != 0) {
+                builder.acceptInput(clarifier);
+            } else if ((this.outputArgs[ordinal] & bit) != 0) {
+                builder.acceptOutput(clarifier);
+            } else {
+                builder.acceptArg(clarifier);
+            }
+        }
+
+        return builder.build();
+    }
+
+    private String string(int index) {
+        return index < 0 ? null : this.strings[index];
+    }
+
+    private String[] strings(int[] refs, int start, int end) {
+        String[] result = new String[end - start];
+        for (int i = start; i < end; i++) {
+            result[i - start] = this.strings[refs[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Hands out one index per distinct string.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> interned = new HashMap<>();
+        private String[] strings = new String[64];
+        private int size;
+
+        int intern(String string) {
+            if (string == null)
+                return -1;
+
+            Integer index = this.interned.get(string);
+            if (index != null)
+                return index;
+
+            if (this.size == this.strings.length)
+                this.strings = Arrays.copyOf(this.strings, this.size * 2);
+
+            this.strings[this.size] = string;
+            this.interned.put(string, this.size);
+            return this.size++;
+        }
+
+        String[] toArray() {
+            return Arrays.copyOf(this.strings, this.size);
+        }
+    }
+
+    private static final class IntList {
+        private int[] values;
+        private int size;
+
+        private IntList(int capacity) {
+            this.values = new int[Math.max(4, capacity)];
+        }
+
+        void add(int value) {
+            if (this.size == this.values.length)
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            this.values[this.size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+}
@@ -1,12 +1,32 @@
 package com.github.xnen;
 
+import com.github.xnen.config.ConfigFile;
+import com.github.xnen.config.ValueSource;
+import com.github.xnen.exception.HandlerTimeoutException;
 import com.github.xnen.exception.ParameterException;
 import com.github.xnen.handler.DefaultHelpHandler;
+import com.github.xnen.impl.IArguments;
+import com.github.xnen.impl.ICompleter;
 import com.github.xnen.impl.IHandler;
+import com.github.xnen.impl.IHandlerBinder;
+import com.github.xnen.impl.IValidator;
 import com.github.xnen.param.ParamBuilder;
 import com.github.xnen.param.Parameter;
+import com.github.xnen.replay.InvocationLog;
+import com.github.xnen.replay.Outcome;
+import com.github.xnen.timeout.TimeoutPolicy;
+import com.github.xnen.token.CommandLine;
 
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntPredicate;
 
 /**
  * Basic Parameters Utility for easily registering and handling arguments passed to a Java application.
@@ -14,12 +34,36 @@ import java.util.*;
  */
 public final class Parameters {
 
-    private final List<Parameter> registered = new ArrayList<>();
-    private Parameter defaultParam;
+    /**
+     * Hidden first argument that asks for shell completions instead of processing. (See CompletionScripts)
+     */
+    public static final String COMPLETE = "__complete";
+
+    /**
+     * Current snapshot of registered parameters. Replaced (never modified) by register() and addPositionalParameter(),
+     * so process() can read it without locking.
+     */
+    private volatile Registry registry = Registry.EMPTY;
+
+    /**
+     * Registered parameters by case-folded identifier, for finding duplicates without scanning the registry.
+     * Only used while holding the lock.
+     */
+    private Map<String, List<Parameter>> registeredIds = new HashMap<>();
 
-    private IHandler unhandled;
+    private volatile IHandler unhandled;
+    private volatile PrintStream completionOutput = System.out;
     private IHandler helpHandler;
 
+    private volatile ConfigFile configFile;
+    private volatile Map<String, String> environment = System.getenv();
+    private volatile ValueSource[] fallbackOrder = { ValueSource.ENVIRONMENT, ValueSource.CONFIG_FILE };
+
+    private volatile Duration invocationTimeout;
+    private volatile TimeoutPolicy timeoutPolicy = TimeoutPolicy.SKIP_REMAINING;
+
+    private volatile Recorder recorder;
+
     public Parameters(IHandler helpHandler) {
        this.helpHandler = helpHandler;
        init();
@@ -35,12 +79,132 @@ public final class Parameters {
         this(jarName, jarDescription, null);
     }
 
+    /**
+     * Parameters sharing the template's parameters. The template's --help gets this helpHandler (unless null).
+     */
+    public Parameters(RegistryTemplate template, IHandler helpHandler) {
+        this.helpHandler = helpHandler;
+        this.initFrom(template);
+    }
+
+    /**
+     * Parameters sharing the template's parameters, with the default help dialog.
+     */
+    public Parameters(RegistryTemplate template, String jarName, String jarDescription) {
+        this.helpHandler = new DefaultHelpHandler(this, System.out, jarName, jarDescription);
+        this.initFrom(template);
+    }
+
     public void handleInvalidOptionsWith(IHandler unhandled) {
         this.unhandled = unhandled;
     }
 
-    public void setDefaultParameter(Parameter parameter) {
-        this.defaultParam = parameter;
+    /**
+     * Use this as the only positional parameter (or none, if null), taking the leftover tokens.
+     */
+    public synchronized void setDefaultParameter(Parameter parameter) {
+        this.registry = this.registry.withPositionals(parameter == null ? Collections.emptyList() : Collections.singletonList(parameter));
+    }
+
+    /**
+     * Add a positional parameter after the ones already added. Leftover tokens are bound to them in order, each taking
+     * up to its max arity while leaving enough for the required ones after it. (i.e. SRC... DEST)
+     */
+    public synchronized void addPositionalParameter(Parameter parameter) {
+        if (parameter == null)
+            throw new RuntimeException("Positional parameter cannot be null!");
+        if (parameter.isRepeatable())
+            throw new RuntimeException("Positional parameters cannot be repeatable!");
+
+        List<Parameter> positionals = new ArrayList<>(this.registry.positionals);
+        positionals.add(parameter);
+        this.registry = this.registry.withPositionals(positionals);
+    }
+
+    /**
+     * Config file used by parameters with a configKey(). It is parsed once, and re-read only when modified.
+     */
+    public void useConfigFile(Path path) {
+        this.configFile = path == null ? null : new ConfigFile(path);
+    }
+
+    /**
+     * Environment used by parameters with an env() variable. Defaults to System.getenv()
+     */
+    public void useEnvironment(Map<String, String> environment) {
+        this.environment = environment == null ? Collections.emptyMap() : environment;
+    }
+
+    /**
+     * Order in which the fallback sources are consulted for parameters not passed as arguments.
+     * The first source that has a value wins. Defaults to ENVIRONMENT, then CONFIG_FILE.
+     */
+    public void setFallbackOrder(ValueSource... order) {
+        if (order == null)
+            throw new RuntimeException("Fallback order cannot be null!");
+
+        this.fallbackOrder = order.clone();
+    }
+
+    /**
+     * How long may all handlers of one dispatch() run together? (null => no limit, the default)
+     * A handler still running when it passes is interrupted and abandoned, and no further handlers run.
+     */
+    public void setInvocationTimeout(Duration timeout) {
+        if (timeout != null && (timeout.isNegative() || timeout.isZero()))
+            throw new RuntimeException("Timeout must be positive!");
+
+        this.invocationTimeout = timeout;
+    }
+
+    /**
+     * How many handlers abandoned after a timeout are still running on their watchdog threads, across every instance.
+     * Each keeps its thread until it returns; a handler that ignores interrupts and never returns keeps it for good.
+     */
+    public static int getAbandonedHandlerCount() {
+        return Watchdog.abandoned();
+    }
+
+    /**
+     * What to do after a handler runs past its ParamBuilder.timeout(). Defaults to SKIP_REMAINING.
+     */
+    public void setTimeoutPolicy(TimeoutPolicy policy) {
+        if (policy == null)
+            throw new RuntimeException("Timeout policy cannot be null!");
+
+        this.timeoutPolicy = policy;
+    }
+
+    /**
+     * Append every invocation to an invocation log: its args, outcome and timings, for a Replayer.
+     * Every entry point that parses and then dispatches is recorded: process(), processLine(), processBatch(), a
+     * ScriptRunner, or parse() followed by dispatch(). A parse() that throws is recorded as a PARSE_ERROR; tryParse(),
+     * sessions and lines that fail to tokenize are not recorded.
+     * Values of the parameters named in 'redacted' are written as InvocationLog.REDACTED; naming a positional parameter
+     * redacts every token that no identifier takes. Replaces any recording in progress.
+     */
+    public synchronized void startRecording(Path log, String... redacted) throws IOException {
+        Recorder recorder = new Recorder(InvocationLog.append(log), redacted);
+        this.stopRecording();
+        this.recorder = recorder;
+    }
+
+    /**
+     * Stop recording and close the log. Throws if any invocation failed to be written; recording stopped there.
+     */
+    public synchronized void stopRecording() throws IOException {
+        Recorder recorder = this.recorder;
+        this.recorder = null;
+
+        if (recorder != null)
+            recorder.close();
+    }
+
+    private void initFrom(RegistryTemplate template) {
+        this.registry = Registry.overlay(template.registry);
+
+        if (this.helpHandler != null && this.registry.lookup("--help") >= 0)
+            this.overrideHandler("--help", this.helpHandler);
     }
 
     private void init() {
@@ -52,31 +216,254 @@ public final class Parameters {
                 .build());
     }
 
-    public void register(Parameter parameter) {
+    /**
+     * Register a parameter. Registration publishes a new snapshot, so it is safe to call while other threads are processing.
+     * The snapshot's list is sorted when first read, so registering many parameters one by one costs about one sort.
+     */
+    public synchronized void register(Parameter parameter) {
         if (parameter == null)
             throw new RuntimeException("Parameter cannot be null!");
+        if (this.registry.isSealed() && !this.registry.isOverlay())
+            throw new RuntimeException("Cannot register parameters after seal()!");
+
+        this.checkIdentifiers(parameter);
+        this.registry = this.registry.with(parameter);
+        this.addIdentifiers(parameter);
+    }
+
+    /**
+     * Register many parameters, publishing a single new snapshot.
+     */
+    public synchronized void registerAll(Collection<? extends Parameter> parameters) {
+        if (this.registry.isSealed() && !this.registry.isOverlay())
+            throw new RuntimeException("Cannot register parameters after seal()!");
 
-        if (paramIdExists(parameter)) {
-            throw new RuntimeException("Could not register parameter, as a parameter that matches those identifiers already exist!");
+        for (Parameter parameter : parameters) {
+            if (parameter == null)
+                throw new RuntimeException("Parameter cannot be null!");
+        }
+
+        int checked = 0;
+        try {
+            for (Parameter parameter : parameters) {
+                this.checkIdentifiers(parameter);
+                this.addIdentifiers(parameter);
+                checked++;
+            }
+        } catch (RuntimeException e) {
+            // Nothing was published, so forget the identifiers of the parameters already checked.
+            for (Parameter parameter : parameters) {
+                if (checked-- == 0) break;
+                this.removeIdentifiers(parameter);
+            }
+            throw e;
         }
 
-        this.registered.add(parameter);
-        this.registered.sort((o1, o2) -> Short.compare(o2.getPriority(), o1.getPriority()));
+        this.registry = this.registry.withAll(parameters);
     }
 
-    private boolean paramIdExists(Parameter parameter) {
+    /**
+     * Stop registering, and switch to a compact form of the registered parameters: their fields are kept in arrays by
+     * ordinal, and the Parameter objects are dropped. Meant for very large parameter sets.
+     *
+     * Parameter objects are recreated (once each) only when needed, i.e. for matched parameters or getRegisteredParameters().
+     * ParseResult still accepts the objects that were registered, matching them by identifier.
+     */
+    public synchronized void seal() {
+        if (this.registry.isOverlay())
+            throw new RuntimeException("Parameters created from a template are sealed already!");
+
+        this.registry = this.registry.sealed();
+        this.registeredIds = new HashMap<>(); // Sealed, so no more duplicates to look for
+    }
+
+    /**
+     * Share the sealed parameters with other Parameters instances, created with new Parameters(template, ...).
+     */
+    public RegistryTemplate toTemplate() {
+        Registry registry = this.registry;
+        if (!registry.isSealed() || registry.isOverlay())
+            throw new RuntimeException("Call seal() before making a template!");
+
+        return new RegistryTemplate(registry);
+    }
+
+    /**
+     * Replace a parameter of the template with this one, for this instance only. It must have the same identifiers,
+     * priority, args, flags, clauses and fallback sources; its handler, validator, completer and description may differ.
+     */
+    public synchronized void override(Parameter parameter) {
+        Registry registry = this.registry;
+        int ordinal = this.templateOrdinal(registry, parameter.getMainIdentifier());
+
+        if (!registry.sameShape(ordinal, parameter))
+            throw new RuntimeException("An override must have the same shape as the parameter it replaces!");
+
+        this.registry = registry.withOverride(ordinal, parameter);
+    }
+
+    /**
+     * Handle a parameter of the template with this handler, for this instance only.
+     */
+    public synchronized void overrideHandler(String identifier, IHandler handler) {
+        if (handler == null)
+            throw new RuntimeException("Handler cannot be null!");
+
+        Registry registry = this.registry;
+        int ordinal = this.templateOrdinal(registry, identifier);
+        this.registry = registry.withOverride(ordinal, registry.table().create(ordinal, handler));
+    }
+
+    private int templateOrdinal(Registry registry, String identifier) {
+        if (!registry.isOverlay())
+            throw new RuntimeException("Only parameters created from a template can override!");
+
+        int ordinal = registry.base().lookup(identifier);
+        if (ordinal < 0)
+            throw new RuntimeException("The template has no parameter '" + identifier + "'!");
+
+        return ordinal;
+    }
+
+    /**
+     * Write the sealed registry to a snapshot file, for loadSnapshot() on later launches.
+     * 'fingerprint' identifies the parameter definitions (i.e. the application's build id); a snapshot is only loaded
+     * with the same fingerprint.
+     */
+    public void writeSnapshot(Path path, String fingerprint) throws IOException {
+        Registry registry = this.registry;
+        if (!registry.isSealed())
+            throw new RuntimeException("Call seal() before writing a snapshot!");
+        if (registry.isOverlay())
+            throw new RuntimeException("Write the snapshot of the template instead!");
+
+        RegistrySnapshot.write(registry, fingerprint, path);
+    }
+
+    /**
+     * Replace the registered parameters with a snapshot from writeSnapshot(), without building them again.
+     * Handlers, validators and completers come from the binder, by ordinal, when a parameter is first matched.
+     * Parameters already registered (such as the built-in --help) keep their own, and must be in the snapshot.
+     *
+     * Returns false, changing nothing, if the file is missing, stale (another version or fingerprint) or damaged;
+     * register the parameters as usual then, and write a new snapshot.
+     * <pre>
+     *   if (!parameters.loadSnapshot(path, BUILD_ID, binder)) {
+     *       parameters.registerAll(...);
+     *       parameters.seal();
+     *       parameters.writeSnapshot(path, BUILD_ID);
+     *   }
+     * </pre>
+     */
+    public synchronized boolean loadSnapshot(Path path, String fingerprint, IHandlerBinder binder) throws IOException {
+        if (this.registry.isSealed())
+            throw new RuntimeException("Cannot load a snapshot after seal()!");
+
+        Map<String, Parameter> registered = new HashMap<>();
+        for (Parameter parameter : this.registry.parameters) {
+            registered.put(parameter.getMainIdentifier(), parameter);
+        }
+
+        ParameterTable table = RegistrySnapshot.read(path, fingerprint, new IHandlerBinder() {
+            @Override
+            public IHandler handler(int ordinal, String identifier) {
+                Parameter parameter = registered.get(identifier);
+                return parameter != null ? parameter.getHandler() : binder.handler(ordinal, identifier);
+            }
+
+            @Override
+            public IValidator validator(int ordinal, String identifier) {
+                Parameter parameter = registered.get(identifier);
+                return parameter != null ? parameter.getValidator() : binder.validator(ordinal, identifier);
+            }
+
+            @Override
+            public ICompleter completer(int ordinal, String identifier) {
+                Parameter parameter = registered.get(identifier);
+                return parameter != null ? parameter.getCompleter() : binder.completer(ordinal, identifier);
+            }
+        });
+
+        if (table == null)
+            return false;
+
+        Registry loaded = Registry.of(table, this.registry.positionals);
+        for (String identifier : registered.keySet()) {
+            int ordinal = loaded.lookup(identifier);
+            if (ordinal < 0 || !table.identifiers(ordinal)[0].equals(identifier))
+                return false;
+        }
+
+        this.registry = loaded;
+        this.registeredIds = new HashMap<>(); // Sealed, so no more duplicates to look for
+        return true;
+    }
+
+    /**
+     * Throws if any identifier of this parameter could match a registered parameter, or the other way round.
+     */
+    private void checkIdentifiers(Parameter parameter) {
+        Registry base = this.registry.base();
+
         for (String identifier : parameter.getIdentifiers()) {
-            for (Parameter param : this.registered) {
-                if (param.matches(identifier)) {
-                    System.out.println(identifier + " matches with " + Arrays.toString(param.getIdentifiers()));
-                    return true;
+            if (base != null && clashesWith(base, parameter, identifier))
+                throw new RuntimeException("Could not register parameter, as a parameter of the template matches those identifiers!");
+
+            List<Parameter> candidates = this.registeredIds.get(foldIdentifier(identifier));
+            if (candidates == null)
+                continue;
+
+            for (Parameter param : candidates) {
+                if (param.matches(identifier) || matchesAny(parameter, param.getIdentifiers())) {
+                    throw new RuntimeException("Could not register parameter, as a parameter that matches those identifiers already exist!");
                 }
             }
         }
+    }
+
+    /**
+     * Could this identifier match a parameter of the template, or the other way round? (The template has no registeredIds)
+     */
+    private static boolean clashesWith(Registry base, Parameter parameter, String identifier) {
+        if (base.lookup(identifier) >= 0)
+            return true;
+        if (parameter.isCaseSensitive())
+            return false;
+
+        for (String candidate : base.identifiersStartingWith(identifier)) {
+            if (candidate.equalsIgnoreCase(identifier))
+                return true;
+        }
 
         return false;
     }
 
+    private static boolean matchesAny(Parameter parameter, String[] identifiers) {
+        for (String identifier : identifiers) {
+            if (parameter.matches(identifier))
+                return true;
+        }
+        return false;
+    }
+
+    private void addIdentifiers(Parameter parameter) {
+        for (String identifier : parameter.getIdentifiers()) {
+            this.registeredIds.computeIfAbsent(foldIdentifier(identifier), k -> new ArrayList<>(1)).add(parameter);
+        }
+    }
+
+    private void removeIdentifiers(Parameter parameter) {
+        for (String identifier : parameter.getIdentifiers()) {
+            List<Parameter> candidates = this.registeredIds.get(foldIdentifier(identifier));
+            if (candidates != null)
+                candidates.remove(parameter);
+        }
+    }
+
+    private static String foldIdentifier(String identifier) {
+        return identifier.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+
     /**
      * Alias for process(String...)
      * Process args against registered parameters
@@ -87,151 +474,778 @@ public final class Parameters {
 
     /**
      * Process args against registered parameters.
+     * Safe to call from many threads at once; each call works against the registry snapshot current when it starts.
      */
     public void process(String... args) throws ParameterException {
-        String[] unhandledArgArray = new String[args.length];
-        System.arraycopy(args, 0, unhandledArgArray, 0, args.length);
+        if (args.length > 0 && COMPLETE.equals(args[0])) {
+            this.printCompletions(args);
+            return;
+        }
 
-        Map<Parameter, String[]> paramArgs = new HashMap<>();
-        String[] paramBuffer;
+        this.dispatch(this.parse(args));
+    }
 
-        for (int i = 0; i < args.length; i++) {
-            for (Parameter parameter : this.registered) {
-                if (parameter.matches(args[i])) {
-                    int argCount;
-
-                    if (!parameter.isInfinite()) {
-                        argCount = parameter.getArgCount();
-                    } else if (i + 1 < args.length) {
-                        argCount = countValidInfiniteArgs(args, i);
-                    } else {
-                        argCount = 0;
-                    }
+    /**
+     * Candidates for words[index], given the words before it. (The args typed so far, without the program name)
+     * Only the words before 'index' are looked at; no handlers or validators are run and no help text is built.
+     */
+    public List<String> complete(int index, String... words) {
+        Registry registry = this.registry;
+        String current = index < words.length && words[index] != null ? words[index] : "";
 
-                    if (i + argCount + 1 <= args.length) {
-                        paramBuffer = new String[argCount];
-                        for (int j = 0; j < argCount; j++) {
-                            paramBuffer[j] = args[i + j + 1];
-                            unhandledArgArray[i + j + 1] = null;
-                        }
+        // Find whose args the word at 'index' would be.
+        Parameter owner = null;
+        int remaining = 0;
+        int leftovers = 0;
+
+        for (int i = 0; i < index && i < words.length; i++) {
+            if (remaining > 0) {
+                remaining--;
+                continue;
+            }
+
+            int ordinal = registry.lookup(words[i]);
+            if (ordinal >= 0) {
+                owner = registry.get(ordinal);
+                remaining = owner.isInfinite() ? 0 : owner.getArgCount();
+            } else if (owner == null || !owner.isInfinite()) {
+                leftovers++;
+            }
+        }
+
+        List<String> candidates = new ArrayList<>();
+
+        if (remaining > 0) {
+            // A fixed-arity parameter still needs args, only its values fit here.
+            addValues(candidates, owner, current);
+            return candidates;
+        }
 
-                        paramArgs.put(parameter, paramBuffer);
-                    } else {
-                        throw new ParameterException(0, "Parameter '" + parameter + "' consumes more args than are available.");
+        if (owner != null && owner.isInfinite()) {
+            addValues(candidates, owner, current);
+        } else {
+            // The positional parameter this leftover would go to, if each before it takes its max.
+            for (Parameter positional : registry.positionals) {
+                if (leftovers < positional.getMaxArity()) {
+                    addValues(candidates, positional, current);
+                    break;
+                }
+                leftovers -= positional.getMaxArity();
+            }
+        }
+
+        candidates.addAll(registry.identifiersStartingWith(current));
+        return candidates;
+    }
+
+    /**
+     * Where the hidden '__complete' command prints its candidates. Defaults to System.out
+     */
+    public void setCompletionOutput(PrintStream completionOutput) {
+        this.completionOutput = completionOutput == null ? System.out : completionOutput;
+    }
+
+    /**
+     * Handles "__complete <index> <words...>", as called by the generated completion scripts: one candidate per line.
+     */
+    private void printCompletions(String[] args) {
+        int index;
+
+        try {
+            index = args.length > 1 ? Integer.parseInt(args[1]) : -1;
+        } catch (NumberFormatException e) {
+            index = -1;
+        }
+
+        if (index < 0)
+            return;
+
+        PrintStream out = this.completionOutput;
+        for (String candidate : this.complete(index, Arrays.copyOfRange(args, 2, args.length))) {
+            out.println(candidate);
+        }
+        out.flush();
+    }
+
+    private static void addValues(List<String> candidates, Parameter parameter, String prefix) {
+        if (parameter.getCompleter() == null)
+            return;
+
+        List<String> values = parameter.getCompleter().complete(prefix);
+        if (values != null)
+            candidates.addAll(values);
+    }
+
+    /**
+     * Split a whole command line into tokens (with POSIX shell quoting rules), and process them.
+     * Identifiers are matched against views over the line; only args passed to handlers become Strings.
+     */
+    public void processLine(CharSequence commandLine) throws ParameterException {
+        this.dispatch(this.parseLine(commandLine));
+    }
+
+    /**
+     * Match, check and validate args against registered parameters, without running any handlers.
+     */
+    public ParseResult parse(String... args) throws ParameterException {
+        return this.parse(this.registry, this.unhandled, new StringArguments(args));
+    }
+
+    /**
+     * Parse args without throwing: every problem found (arity, required, validation, unknown options) is collected in
+     * the result's getErrors(), with the position of the token it is about.
+     */
+    public ParseResult tryParse(String... args) {
+        return this.tryParse(new StringArguments(args));
+    }
+
+    /**
+     * Parse already tokenized args without throwing, collecting every problem in the result's getErrors().
+     */
+    public ParseResult tryParse(IArguments args) {
+        List<ParseError> errors = new ArrayList<>(0);
+
+        try {
+            return this.parse(this.registry, this.unhandled, args, errors);
+        } catch (ParameterException e) {
+            throw new IllegalStateException("Parse threw while collecting errors", e); // fail() never throws with an errors list.
+        }
+    }
+
+    /**
+     * Tokenize and parse a whole command line without throwing, collecting every problem in the result's getErrors().
+     */
+    public ParseResult tryParseLine(CharSequence commandLine) {
+        CommandLine tokens;
+
+        try {
+            tokens = CommandLine.tokenize(commandLine);
+        } catch (ParameterException e) {
+            return new ParseResult(this.registry, Collections.singletonList(new ParseError(e.getId(), null, -1, e.getMessage())));
+        }
+
+        return this.tryParse(tokens);
+    }
+
+    /**
+     * Start an incremental parse of a line that will be edited, i.e. by an interactive shell on every keystroke.
+     * Each update() gives the same result as tryParse(), matching only the tokens an edit could affect.
+     */
+    public ParseSession session() {
+        return new ParseSession(this);
+    }
+
+    /**
+     * Tokenize a whole command line and parse it, without running any handlers.
+     */
+    public ParseResult parseLine(CharSequence commandLine) throws ParameterException {
+        return this.parse(this.registry, this.unhandled, CommandLine.tokenize(commandLine));
+    }
+
+    /**
+     * Parse already tokenized args, without running any handlers.
+     */
+    public ParseResult parse(IArguments args) throws ParameterException {
+        return this.parse(this.registry, this.unhandled, args);
+    }
+
+    /**
+     * Read a result made by ParseResult.encode(), ready for dispatch() without parsing again.
+     * The registered parameters must have the same identifiers, args, flags and priorities as where it was encoded.
+     */
+    public ParseResult decode(ByteBuffer encoded) {
+        return ParseResultCodec.decode(this.registry, this.unhandled, encoded);
+    }
+
+    /**
+     * Run the handlers of a parse result, in priority order.
+     * If the result holds invalid options, they are passed to the invalid options handler instead.
+     * A result with errors (from tryParse) throws its first error instead of running anything.
+     * Handlers with a timeout(), or all of them under an invocation timeout, run on a watchdog thread; one that overruns
+     * is abandoned and reported as a HandlerTimeoutException once dispatch stops, as set by setTimeoutPolicy().
+     */
+    public void dispatch(ParseResult result) throws ParameterException {
+        Recorder recorder = result.recorder;
+        if (recorder == null) {
+            this.runHandlers(result);
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            this.runHandlers(result);
+        } catch (ParameterException e) {
+            recorder.record(result.registry, result.recordedArgs, Outcome.HANDLER_ERROR, e.getId(), result.parseNanos, System.nanoTime() - start);
+            throw e;
+        } catch (RuntimeException e) {
+            recorder.record(result.registry, result.recordedArgs, Outcome.HANDLER_ERROR, -1, result.parseNanos, System.nanoTime() - start);
+            throw e;
+        }
+
+        Outcome outcome = result.unhandled != null ? Outcome.UNHANDLED : Outcome.HANDLED;
+        recorder.record(result.registry, result.recordedArgs, outcome, -1, result.parseNanos, System.nanoTime() - start);
+    }
+
+    private void runHandlers(ParseResult result) throws ParameterException {
+        if (result.hasErrors())
+            throw result.getErrors().get(0).toException();
+
+        if (result.unhandled != null) {
+            result.unhandledHandler.handle(result.unhandled);
+            return;
+        }
+
+        Duration invocationTimeout = this.invocationTimeout;
+        TimeoutPolicy timeoutPolicy = this.timeoutPolicy;
+        long deadline = invocationTimeout == null ? 0 : System.nanoTime() + invocationTimeout.toNanos();
+        HandlerTimeoutException timedOut = null;
+
+        for (Parameter parameter : result.order) {
+            Occurrences occurrences = result.occurrences.get(parameter);
+            Runnable handler = occurrences != null
+                    ? () -> parameter.accept(occurrences)
+                    : () -> parameter.accept(result.paramArgs.get(parameter));
+
+            Duration timeout = parameter.getTimeout();
+            if (timeout == null && invocationTimeout == null) {
+                handler.run();
+                continue;
+            }
+
+            // Whichever comes first: this handler's own timeout, or the end of the invocation's.
+            long start = System.nanoTime();
+            long limit = timeout == null ? Long.MAX_VALUE : timeout.toNanos();
+            boolean invocationLimited = invocationTimeout != null && deadline - start <= limit;
+            if (invocationLimited)
+                limit = deadline - start;
+
+            try {
+                // Nothing left of the invocation's budget: time out without starting a handler only to interrupt it.
+                if (invocationLimited && limit <= 0)
+                    throw new TimeoutException();
+
+                Watchdog.run(handler, limit);
+            } catch (TimeoutException e) {
+                HandlerTimeoutException exception = new HandlerTimeoutException(parameter.getMainIdentifier(), Duration.ofNanos(System.nanoTime() - start));
+
+                if (timedOut == null) {
+                    timedOut = exception;
+                } else {
+                    timedOut.addSuppressed(exception);
+                }
+
+                if (invocationLimited || timeoutPolicy == TimeoutPolicy.SKIP_REMAINING)
+                    break;
+            }
+        }
+
+        if (timedOut != null)
+            throw timedOut;
+    }
+
+    /**
+     * Process many command lines at once, in parallel, against the registry snapshot current when the batch starts.
+     * Failures are recorded per item in the returned BatchResult instead of being thrown.
+     */
+    public BatchResult processBatch(List<String[]> batch, BatchOptions options) {
+        if (batch == null || options == null)
+            throw new RuntimeException("Batch and options cannot be null!");
+
+        BatchResult result = new BatchResult(batch.size());
+        if (batch.isEmpty())
+            return result;
+
+        ForkJoinPool pool = options.parallelism > 0 ? new ForkJoinPool(options.parallelism) : ForkJoinPool.commonPool();
+        int threshold = options.threshold > 0 ? options.threshold : Math.max(1, batch.size() / (pool.getParallelism() * 8));
+
+        try {
+            pool.invoke(new BatchTask(this, this.registry, this.unhandled, batch.toArray(new String[0][]), result, !options.ordered, 0, batch.size(), threshold));
+        } finally {
+            if (pool != ForkJoinPool.commonPool())
+                pool.shutdown();
+        }
+
+        if (options.ordered) {
+            for (int i = 0; i < result.results.length; i++) {
+                if (result.results[i] != null) {
+                    try {
+                        this.dispatch(result.results[i]);
+                    } catch (ParameterException | RuntimeException e) {
+                        result.errors[i] = e;
                     }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Splits a batch in halves until it is below the threshold, then parses (and optionally dispatches) each item.
+     */
+    private static final class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
 
-                    unhandledArgArray[i] = null;
+        private final Parameters parameters;
+        private final Registry registry;
+        private final IHandler unhandled;
+        private final String[][] batch;
+        private final BatchResult result;
+        private final boolean dispatch;
+        private final int from, to, threshold;
+
+        private BatchTask(Parameters parameters, Registry registry, IHandler unhandled, String[][] batch, BatchResult result, boolean dispatch, int from, int to, int threshold) {
+            this.parameters = parameters;
+            this.registry = registry;
+            this.unhandled = unhandled;
+            this.batch = batch;
+            this.result = result;
+            this.dispatch = dispatch;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > this.threshold) {
+                int mid = (this.from + this.to) >>> 1;
+                invokeAll(new BatchTask(this.parameters, this.registry, this.unhandled, this.batch, this.result, this.dispatch, this.from, mid, this.threshold),
+                        new BatchTask(this.parameters, this.registry, this.unhandled, this.batch, this.result, this.dispatch, mid, this.to, this.threshold));
+                return;
+            }
+
+            for (int i = this.from; i < this.to; i++) {
+                try {
+                    this.result.results[i] = this.parameters.parse(this.registry, this.unhandled, new StringArguments(this.batch[i]));
+                    if (this.dispatch) {
+                        this.parameters.dispatch(this.result.results[i]);
+                    }
+                } catch (ParameterException | RuntimeException e) {
+                    this.result.errors[i] = e;
                 }
             }
         }
+    }
 
-        String[] trimmed = trim(unhandledArgArray);
+    /**
+     * Parse args against a registry snapshot, throwing the first problem. While recording, a parse error is written
+     * to the log, and the result remembers the args for dispatch() to record its outcome with.
+     */
+    private ParseResult parse(Registry registry, IHandler unhandled, IArguments args) throws ParameterException {
+        Recorder recorder = this.recorder;
+        if (recorder == null)
+            return this.parse(registry, unhandled, args, null);
 
-        if (this.defaultParam != null) {
-            int expectedDefaultArgs = this.defaultParam.getArgCount() + 1;
+        String[] recordedArgs = new String[args.size()];
+        for (int i = 0; i < recordedArgs.length; i++) {
+            recordedArgs[i] = args.get(i);
+        }
 
-            if (this.defaultParam.isInfinite() && trimmed.length > 0) {
-                paramArgs.put(this.defaultParam, trimmed);
-            } else {
-                if (this.defaultParam.isRequired()) {
-                    if (expectedDefaultArgs == trimmed.length) {
-                        paramArgs.put(this.defaultParam, trimmed);
-                    } else if (this.unhandled != null) {
-                        if (trimmed.length > expectedDefaultArgs) {
-                            String[] unhandledWithoutDefaults = new String[trimmed.length - expectedDefaultArgs];
-                            System.arraycopy(trimmed, expectedDefaultArgs, unhandledWithoutDefaults, 0, trimmed.length - expectedDefaultArgs);
-                            this.unhandled.handle(unhandledWithoutDefaults);
-                            return;
-                        } else {
-                            /* TODO - Testing behavior by not throwing an exception here */ //throw new ParameterException(0, "Parameter '" + this.defaultParam + "' consumes more args than are available.");
-                        }
+        long start = System.nanoTime();
+        ParseResult result;
+
+        try {
+            result = this.parse(registry, unhandled, args, null);
+        } catch (ParameterException e) {
+            recorder.record(registry, recordedArgs, Outcome.PARSE_ERROR, e.getId(), System.nanoTime() - start, 0);
+            throw e;
+        }
+
+        result.recorder = recorder;
+        result.recordedArgs = recordedArgs;
+        result.parseNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Parse args against a registry snapshot.
+     * With an errors list, every problem is added to it and parsing carries on; without one, the first problem is thrown.
+     */
+    private ParseResult parse(Registry registry, IHandler unhandled, IArguments args, List<ParseError> errors) throws ParameterException {
+        int size = args.size();
+
+        boolean[] consumed = new boolean[size];
+
+        // Ordinal of the parameter each token identifies, or -1. Each token is looked up once.
+        int[] matched = new int[size];
+        if (args instanceof ArgumentStore) {
+            ArgumentStore store = (ArgumentStore) args;
+            for (int i = 0; i < size; i++) {
+                matched[i] = registry.lookup(store, i);
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                matched[i] = registry.lookup(args.view(i));
+            }
+        }
+
+        Map<Parameter, String[]> paramArgs = new HashMap<>();
+        BitSet present = new BitSet(); // Ordinals in paramArgs, so checks don't need the Parameter objects
+        Map<Parameter, Occurrences> occurrences = null;
+        Map<Parameter, Integer> positions = errors == null ? null : new HashMap<>();
+        String[] paramBuffer;
+
+        for (int i = 0; i < size; i++) {
+            if (matched[i] >= 0) {
+                Parameter parameter = registry.get(matched[i]);
+                int argCount;
+
+                if (!parameter.isInfinite()) {
+                    argCount = parameter.getArgCount();
+                } else {
+                    argCount = countValidInfiniteArgs(matched, i);
+                }
+
+                if (i + argCount + 1 > size) {
+                    fail(errors, 0, parameter, i, "Parameter '" + parameter + "' consumes more args than are available.");
+
+                    // Collecting errors: the remaining tokens belong to this parameter, so don't report them again.
+                    for (int j = i; j < size; j++) {
+                        consumed[j] = true;
+                    }
+                    continue;
+                } else if (parameter.isRepeatable()) {
+                    if (occurrences == null)
+                        occurrences = new HashMap<>();
+
+                    // Append straight into the shared storage, without a buffer per occurrence.
+                    Occurrences collected = occurrences.computeIfAbsent(parameter, p -> new Occurrences(p.getArgCount()));
+                    collected.begin();
+                    for (int j = 0; j < argCount; j++) {
+                        collected.add(args.get(i + j + 1));
+                        consumed[i + j + 1] = true;
                     }
                 } else {
-                    if (trimmed.length <= expectedDefaultArgs) {
-                        if (trimmed.length > 0) {
-                            paramArgs.put(this.defaultParam, trimmed);
-                        }
-                    } else if (this.unhandled != null) {
-                        String[] unhandledWithoutDefaults = new String[trimmed.length - expectedDefaultArgs];
-                        System.arraycopy(trimmed, expectedDefaultArgs, unhandledWithoutDefaults, 0, trimmed.length - expectedDefaultArgs);
-                        this.unhandled.handle(unhandledWithoutDefaults);
-                        return;
+                    paramBuffer = new String[argCount];
+                    for (int j = 0; j < argCount; j++) {
+                        paramBuffer[j] = args.get(i + j + 1);
+                        consumed[i + j + 1] = true;
                     }
+
+                    paramArgs.put(parameter, paramBuffer);
                 }
+
+                if (positions != null)
+                    positions.put(parameter, i);
+
+                consumed[i] = true;
+                present.set(matched[i]);
             }
-        } else if (this.unhandled != null && trimmed.length > 0) {
-            this.unhandled.handle(trimmed);
-            return;
         }
 
-        List<Parameter> allParams = new ArrayList<>(this.registered);
-        if (this.defaultParam != null)
-            allParams.add(this.defaultParam);
+        if (occurrences != null) {
+            for (Map.Entry<Parameter, Occurrences> entry : occurrences.entrySet()) {
+                paramArgs.put(entry.getKey(), entry.getValue().flat());
+            }
+        }
 
-        allParams.sort((o1, o2) -> Short.compare(o2.getPriority(), o1.getPriority()));
+        return this.finish(registry, unhandled, args, consumed, paramArgs, present, occurrences, positions, errors);
+    }
 
-        for (Parameter parameter : allParams) {
-            if (parameter.isRequired() && !paramArgs.containsKey(parameter)) {
-                boolean flag = false;
+    /**
+     * Everything after matching identifiers: leftovers, fallback sources, required constraints and validation.
+     * 'consumed' may be null when every token was consumed.
+     */
+    ParseResult finish(Registry registry, IHandler unhandled, IArguments args, boolean[] consumed, Map<Parameter, String[]> paramArgs,
+                       BitSet present, Map<Parameter, Occurrences> occurrences, Map<Parameter, Integer> positions, List<ParseError> errors) throws ParameterException {
+        int leftovers = 0;
+        int[] leftover = null; // Positions of the tokens no identifier consumed
+        if (consumed != null) {
+            leftover = new int[consumed.length];
+            for (int i = 0; i < consumed.length; i++) {
+                if (!consumed[i]) leftover[leftovers++] = i;
+            }
+        }
 
-                if (parameter.getRequiredClauses() != null) {
-                    for (String s : parameter.getRequiredClauses()) {
-                        for (Parameter param : paramArgs.keySet()) {
-                            if (param.matches(s)) {
-                                flag = true;
-                                break;
-                            }
-                        }
-                    }
+        // Bind the leftovers to the positional parameters in one pass.
+        int size = registry.size();
+        List<Parameter> positionals = registry.positionals;
+        int[] takes = leftovers == 0 ? null : this.positionalTakes(registry, present, leftovers);
+        int next = 0; // Next leftover to bind
+
+        for (int i = 0; takes != null && i < takes.length; i++) {
+            int take = takes[i];
+            if (take == 0)
+                continue; // Absent; the required check reports it if need be.
+
+            Parameter positional = positionals.get(i);
+            String[] values = new String[take];
+            int position = leftover[next];
+
+            for (int k = 0; k < take; k++) {
+                values[k] = args.get(leftover[next++]);
+            }
+
+            if (take < positional.getMinArity()) {
+                fail(errors, 0, positional, position, "Parameter '" + positional + "' expects at least " + positional.getMinArity() + " args, but " + take + " are left.");
+                continue;
+            }
+
+            paramArgs.put(positional, values);
+            present.set(size + i);
+            if (positions != null)
+                positions.put(positional, position);
+        }
+
+        if (next < leftovers) {
+            if (unhandled != null) {
+                // parse() would have thrown before handing the leftovers over; so must tryParse().
+                if (errors != null && !errors.isEmpty())
+                    return new ParseResult(registry, errors);
+
+                String[] extra = new String[leftovers - next];
+                for (int k = 0; k < extra.length; k++) {
+                    extra[k] = args.get(leftover[next + k]);
+                }
+
+                return new ParseResult(registry, extra, unhandled);
+            } else if (errors != null) {
+                for (int k = next; k < leftovers; k++) {
+                    errors.add(unknownOption(leftover[k]));
                 }
+            }
+        }
+
+        return this.check(registry, paramArgs, present, -1, null, null, occurrences, positions, errors);
+    }
+
+    static ParseError unknownOption(int position) {
+        return new ParseError(4, null, position, "Unknown option at token " + position + ".");
+    }
+
+    /**
+     * How many of the leftovers each positional parameter takes (0 if absent): each takes up to its max arity while
+     * leaving the min arity of every required positional parameter after it. A take below the min arity is an error.
+     */
+    int[] positionalTakes(Registry registry, BitSet present, int leftovers) {
+        int size = registry.size();
+        List<Parameter> positionals = registry.positionals;
+        int[] takes = new int[positionals.size()];
+        int reserved = 0;
+
+        for (int i = 0; i < positionals.size(); i++) {
+            if (this.reservesArgs(registry, size + i, present))
+                reserved += positionals.get(i).getMinArity();
+        }
+
+        for (int i = 0; i < positionals.size() && leftovers > 0; i++) {
+            Parameter positional = positionals.get(i);
+
+            if (this.reservesArgs(registry, size + i, present))
+                reserved -= positional.getMinArity();
+
+            takes[i] = Math.min(positional.getMaxArity(), Math.max(0, leftovers - reserved));
+            leftovers -= takes[i];
+        }
+
+        return takes;
+    }
+
+    /**
+     * Fallback sources, required constraints and validation over the parameters present, in one walk of the plan.
+     * (Shared with ParseSession, which keeps what it can between edits and passes it in)
+     *
+     * @param requiredPresent how many required parameters are present, or -1 to count them in the walk
+     * @param valid whether the args of the parameter with this ordinal are valid, or null to run its validator
+     * @param filled set to the ordinals filled from fallback sources, if not null
+     */
+    ParseResult check(Registry registry, Map<Parameter, String[]> paramArgs, BitSet present, int requiredPresent, IntPredicate valid, BitSet filled,
+                      Map<Parameter, Occurrences> occurrences, Map<Parameter, Integer> positions, List<ParseError> errors) throws ParameterException {
+        int fromFallbacks = this.fillFromFallbackSources(registry, paramArgs, present, filled, errors);
+        if (requiredPresent >= 0)
+            requiredPresent += fromFallbacks;
 
-                // Allow --help to always be a required clause.
-                for (Parameter param : paramArgs.keySet()) {
-                    if (param.matches("--help")) {
-                        flag = true;
-                        break;
+        // --help, pinned first, lifts every required constraint; the required list is only scanned when one is missing.
+        int[] order = registry.plan(present);
+        boolean helpPresent = order.length > 0 && registry.isHelp(order[0]);
+        boolean countRequired = requiredPresent < 0;
+        int[] invalid = null;
+        int invalidCount = 0;
+
+        if (countRequired)
+            requiredPresent = 0;
+
+        for (int ordinal : order) {
+            if (countRequired && registry.isRequired(ordinal))
+                requiredPresent++;
+
+            boolean isValid;
+            if (valid != null) {
+                isValid = valid.test(ordinal);
+            } else {
+                Parameter parameter = registry.get(ordinal);
+                isValid = parameter.isValid(paramArgs.get(parameter));
+            }
+
+            if (!isValid) {
+                if (invalid == null)
+                    invalid = new int[order.length];
+                invalid[invalidCount++] = ordinal;
+            }
+        }
+
+        int[] required = registry.requiredOrdinals();
+        if (!helpPresent && requiredPresent < required.length) {
+            for (int ordinal : required) {
+                if (present.get(ordinal))
+                    continue;
+
+                boolean flag = false;
+                int[] clauses = registry.clauses(ordinal);
+
+                if (clauses != null) {
+                    for (int clause : clauses) {
+                        if (present.get(clause)) {
+                            flag = true;
+                            break;
+                        }
                     }
                 }
 
                 if (!flag) {
-                    throw new ParameterException(1, "Parameter '" + parameter + "' is required, but not present.");
+                    Parameter parameter = registry.get(ordinal);
+                    fail(errors, 1, parameter, -1, "Parameter '" + parameter + "' is required, but not present.");
                 }
             }
         }
 
-        for (Parameter parameter : allParams) {
-            if (paramArgs.containsKey(parameter)) {
-                if (!parameter.isValid(paramArgs.get(parameter))) {
-                    throw new ParameterException(2, "Parameter '" + parameter + "' returned FALSE during validation.");
-                }
+        // Reported after the required errors, as before.
+        for (int i = 0; i < invalidCount; i++) {
+            Parameter parameter = registry.get(invalid[i]);
+            int position = positions == null ? -1 : positions.getOrDefault(parameter, -1);
+            fail(errors, 2, parameter, position, "Parameter '" + parameter + "' returned FALSE during validation.");
+        }
+
+        return new ParseResult(registry, order, paramArgs, occurrences == null ? Collections.emptyMap() : occurrences, errors);
+    }
+
+    /**
+     * Throw this error, or add it to the errors when collecting them.
+     */
+    private static void fail(List<ParseError> errors, int id, Parameter parameter, int position, String message) throws ParameterException {
+        ParseError error = new ParseError(id, parameter, position, message);
+
+        if (errors == null)
+            throw error.toException();
+
+        errors.add(error);
+    }
+
+    /**
+     * Does this positional parameter keep its min arity from the ones before it? Only if it is required, and none of its
+     * requiredUnless() clauses were matched. (Clauses naming positional parameters aren't known yet, so don't count)
+     */
+    private boolean reservesArgs(Registry registry, int ordinal, BitSet present) {
+        if (!registry.isRequired(ordinal))
+            return false;
+
+        int[] clauses = registry.clauses(ordinal);
+        if (clauses != null) {
+            for (int clause : clauses) {
+                if (clause < registry.size() && present.get(clause))
+                    return false;
             }
         }
 
-        for (Parameter parameter : allParams) {
-            if (paramArgs.containsKey(parameter)) {
-                parameter.accept(paramArgs.get(parameter));
+        return true;
+    }
+
+    /**
+     * Fill parameters missing from the args using their env() and configKey() sources, in fallbackOrder.
+     * Returns how many of the parameters filled are required.
+     */
+    private int fillFromFallbackSources(Registry registry, Map<Parameter, String[]> paramArgs, BitSet present, BitSet filled, List<ParseError> errors) throws ParameterException {
+        ConfigFile configFile = this.configFile;
+        Map<String, String> environment = this.environment;
+        ValueSource[] fallbackOrder = this.fallbackOrder;
+        boolean configLoaded = false;
+        int required = 0;
+
+        for (int ordinal : registry.fallbackOrdinals()) {
+            if (present.get(ordinal))
+                continue;
+
+            String envVariable = registry.envVariable(ordinal);
+            String configKey = registry.configKey(ordinal);
+
+            for (ValueSource source : fallbackOrder) {
+                String value = null;
+                String name = null;
+
+                if (source == ValueSource.ENVIRONMENT && envVariable != null) {
+                    name = "environment variable " + envVariable;
+                    value = environment.get(envVariable);
+                } else if (source == ValueSource.CONFIG_FILE && configKey != null && configFile != null) {
+                    if (!configLoaded) {
+                        configFile.reloadIfModified();
+                        configLoaded = true;
+                    }
+
+                    name = "config key " + configKey;
+                    value = configFile.get(configKey);
+                }
+
+                if (value != null) {
+                    Parameter parameter = registry.get(ordinal);
+                    String[] sourceArgs = toArgs(parameter, value, name, errors);
+                    if (sourceArgs != null) {
+                        paramArgs.put(parameter, sourceArgs);
+                        present.set(ordinal);
+                        if (filled != null)
+                            filled.set(ordinal);
+                        if (registry.isRequired(ordinal))
+                            required++;
+                    }
+                    break;
+                }
             }
         }
+
+        return required;
     }
 
-    private String[] trim(String[] input) {
-        return Arrays.stream(input).filter(Objects::nonNull).toArray(String[]::new);
+    /**
+     * Convert a fallback source value into args. Returns null for a flag that is switched off.
+     */
+    private String[] toArgs(Parameter parameter, String value, String sourceName, List<ParseError> errors) throws ParameterException {
+        value = value.trim();
+
+        if (parameter.isInfinite()) {
+            return value.isEmpty() ? new String[0] : value.split("\\s+");
+        }
+
+        switch (parameter.getArgCount()) {
+            case 0:
+                boolean disabled = value.isEmpty() || value.equalsIgnoreCase("false") || value.equals("0");
+                return disabled ? null : new String[0];
+            case 1:
+                return new String[] { value };
+            default:
+                String[] split = value.isEmpty() ? new String[0] : value.split("\\s+");
+                if (split.length != parameter.getArgCount()) {
+                    fail(errors, 0, parameter, -1, "Parameter '" + parameter + "' expects " + parameter.getArgCount() + " args, but " + sourceName + " provides " + split.length + ".");
+                    return null;
+                }
+                return split;
+        }
     }
 
     public IHandler getHelpHandler() {
         return helpHandler;
     }
 
-    private int countValidInfiniteArgs(String[] args, int fromIndex) {
+    /**
+     * Number of tokens after fromIndex up to the next identifier.
+     * Spans end at identifiers and start after them, so all the scans of one parse cover the tokens once.
+     */
+    private static int countValidInfiniteArgs(int[] matched, int fromIndex) {
         int j = 0;
 
-        for (int i = fromIndex + 1; i < args.length; i++) {
-            boolean flag = false;
-
-            for (Parameter parameter1 : this.registered) {
-                if (parameter1.matches(args[i])) {
-                    return j;
-                }
+        for (int i = fromIndex + 1; i < matched.length; i++) {
+            if (matched[i] >= 0) {
+                return j;
             }
 
             j++;
@@ -240,11 +1254,66 @@ public final class Parameters {
         return j;
     }
 
+    /**
+     * Current registry snapshot, for ParseSession.
+     */
+    Registry registry() {
+        return this.registry;
+    }
+
+    /**
+     * Invalid options handler, for ParseSession. (null if none)
+     */
+    IHandler unhandled() {
+        return this.unhandled;
+    }
+
+    /**
+     * The first positional parameter. (null if none)
+     */
     public Parameter getDefaultParameter() {
-        return this.defaultParam;
+        List<Parameter> positionals = this.registry.positionals;
+        return positionals.isEmpty() ? null : positionals.get(0);
     }
 
+    /**
+     * Positional parameters, in the order they take the leftover tokens. The returned list is unmodifiable.
+     */
+    public List<Parameter> getPositionalParameters() {
+        return this.registry.positionals;
+    }
+
+    /**
+     * Snapshot of the registered parameters, sorted by priority. The returned list is unmodifiable and doesn't change
+     * when more parameters are registered.
+     */
     public List<Parameter> getRegisteredParameters() {
-        return this.registered;
+        return this.registry.registered();
+    }
+
+    /**
+     * Plain String[] args, as passed to main().
+     */
+    private static final class StringArguments implements IArguments {
+        private final String[] args;
+
+        private StringArguments(String[] args) {
+            this.args = args;
+        }
+
+        @Override
+        public int size() {
+            return this.args.length;
+        }
+
+        @Override
+        public CharSequence view(int index) {
+            return this.args[index];
+        }
+
+        @Override
+        public String get(int index) {
+            return this.args[index];
+        }
     }
 }
@@ -0,0 +1,59 @@
+package com.github.xnen;
+
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.param.Parameter;
+
+/**
+ * A problem found while parsing, as collected by Parameters.tryParse().
+ * The ID is the same as the ParameterException ID that would have been thrown for it.
+ */
+public final class ParseError {
+
+    private final int id;
+    private final Parameter parameter;
+    private final int position;
+    private final String message;
+
+    ParseError(int id, Parameter parameter, int position, String message) {
+        this.id = id;
+        this.parameter = parameter;
+        this.position = position;
+        this.message = message;
+    }
+
+    /**
+     * Same IDs as ParameterException.getId()
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Parameter the error is about, or null. (i.e. for unknown options)
+     */
+    public Parameter getParameter() {
+        return this.parameter;
+    }
+
+    /**
+     * Index of the token the error is about, or -1 if it isn't about a single token. (i.e. a missing required parameter)
+     */
+    public int getPosition() {
+        return this.position;
+    }
+
+    public String getMessage() {
+        return this.message;
+    }
+
+    /**
+     * This error as a ParameterException, without a stack trace.
+     */
+    public ParameterException toException() {
+        return new ParameterException(this.id, this.message, false);
+    }
+
+    @Override public String toString() {
+        return this.position < 0 ? this.message : this.message + " (at token " + this.position + ")";
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.xnen;
+
+import com.github.xnen.impl.IHandler;
+import com.github.xnen.param.Parameter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of Parameters.parse(): the matched parameters and their args, already checked and validated.
+ * Nothing has been executed yet; pass it to Parameters.dispatch() to run the handlers.
+ */
+public final class ParseResult {
+
+    final Registry registry;
+
+    /**
+     * Every parameter that will run, sorted by priority (Higher => Earlier), and their ordinals in the registry.
+     */
+    final List<Parameter> order;
+    final int[] ordinals;
+    final Map<Parameter, String[]> paramArgs;
+
+    /**
+     * Every occurrence of the repeatable parameters that were passed as args.
+     */
+    final Map<Parameter, Occurrences> occurrences;
+
+    /**
+     * Args routed to the invalid options handler. When set, no parameter handlers run.
+     */
+    final String[] unhandled;
+    final IHandler unhandledHandler;
+
+    private final List<ParseError> errors;
+
+    /**
+     * Set when parsed while recording: where dispatch() writes the outcome, with the args and how long parsing took.
+     */
+    Recorder recorder;
+    String[] recordedArgs;
+    long parseNanos;
+
+    ParseResult(Registry registry, int[] ordinals, Map<Parameter, String[]> paramArgs, Map<Parameter, Occurrences> occurrences, List<ParseError> errors) {
+        Parameter[] order = new Parameter[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            order[i] = registry.get(ordinals[i]);
+        }
+
+        this.registry = registry;
+        this.order = Arrays.asList(order);
+        this.ordinals = ordinals;
+        this.paramArgs = paramArgs;
+        this.occurrences = occurrences;
+        this.unhandled = null;
+        this.unhandledHandler = null;
+        this.errors = errors == null || errors.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(errors);
+    }
+
+    ParseResult(Registry registry, List<ParseError> errors) {
+        this(registry, new int[0], Collections.emptyMap(), Collections.emptyMap(), errors);
+    }
+
+    ParseResult(Registry registry, String[] unhandled, IHandler unhandledHandler) {
+        this.registry = registry;
+        this.order = Collections.emptyList();
+        this.ordinals = new int[0];
+        this.paramArgs = Collections.emptyMap();
+        this.occurrences = Collections.emptyMap();
+        this.unhandled = unhandled;
+        this.unhandledHandler = unhandledHandler;
+        this.errors = Collections.emptyList();
+    }
+
+    /**
+     * Was this parameter present (or filled from a fallback source)?
+     */
+    public boolean isPresent(Parameter parameter) {
+        return this.paramArgs.containsKey(this.resolve(parameter));
+    }
+
+    /**
+     * Args passed to this parameter, or null if it isn't present.
+     */
+    public String[] getArgs(Parameter parameter) {
+        return this.paramArgs.get(this.resolve(parameter));
+    }
+
+    /**
+     * Every occurrence of a repeatable parameter, or null if it wasn't passed as an arg.
+     */
+    public Occurrences getOccurrences(Parameter parameter) {
+        return this.occurrences.get(this.resolve(parameter));
+    }
+
+    /**
+     * A sealed registry recreates its Parameters, so the objects passed to register() are found by identifier instead.
+     */
+    private Parameter resolve(Parameter parameter) {
+        if (parameter == null || !this.registry.isSealed() || this.paramArgs.containsKey(parameter))
+            return parameter;
+
+        int ordinal = this.registry.lookup(parameter.getMainIdentifier());
+        return ordinal < 0 ? parameter : this.registry.get(ordinal);
+    }
+
+    /**
+     * Were any problems collected by Parameters.tryParse()?
+     */
+    public boolean hasErrors() {
+        return !this.errors.isEmpty();
+    }
+
+    /**
+     * Every problem collected by Parameters.tryParse(), in the order found. Always empty for Parameters.parse(),
+     * which throws the first problem instead.
+     */
+    public List<ParseError> getErrors() {
+        return this.errors;
+    }
+
+    /**
+     * Args that will be passed to the invalid options handler instead of running any parameters. (null if none)
+     */
+    public String[] getUnhandled() {
+        return this.unhandled;
+    }
+
+    /**
+     * Compact binary form of this result, for Parameters.decode() in another process with the same parameters registered.
+     */
+    public ByteBuffer encode() {
+        return ParseResultCodec.encode(this);
+    }
+}
@@ -0,0 +1,217 @@
+package com.github.xnen;
+
+import com.github.xnen.impl.IHandler;
+import com.github.xnen.param.Parameter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary form of a ParseResult, so a result parsed once can be handed to other processes that only dispatch it.
+ *
+ * Layout (big-endian), version 1:
+ * <pre>
+ *   int    magic ('PRES')
+ *   short  version
+ *   int    registry checksum
+ *   byte   kind (0 = parameters, 1 = args for the invalid options handler)
+ *   int    text length, then the UTF-8 text of every arg, one after another
+ *   kind 0:
+ *     int  parameter count, then for each parameter, in the order they run:
+ *          int ordinal (positional parameter i is the registry size + i)
+ *          int occurrence count, then the arg count of each occurrence (-1 and nothing else if not repeatable)
+ *          int arg count, then a (start, length) span into the text for each arg
+ *   kind 1:
+ *     int  arg count, then a (start, length) span for each arg
+ * </pre>
+ */
+final class ParseResultCodec {
+
+    static final int MAGIC = 0x50524553;
+    static final short VERSION = 1;
+
+    private static final byte PARAMETERS = 0;
+    private static final byte UNHANDLED = 1;
+
+    private ParseResultCodec() {}
+
+    static ByteBuffer encode(ParseResult result) {
+        if (result.hasErrors())
+            throw new RuntimeException("Cannot encode a parse result with errors!");
+
+        Registry registry = result.registry;
+        TextBuilder text = new TextBuilder();
+        List<int[]> entries = new ArrayList<>();
+        int[] unhandled = null;
+
+        if (result.unhandled != null) {
+            unhandled = text.spans(result.unhandled);
+        } else {
+            for (int i = 0; i < result.ordinals.length; i++) {
+                int ordinal = result.ordinals[i];
+                Parameter parameter = result.order.get(i);
+
+                // { ordinal, occurrence count or -1, arg count per occurrence..., spans... }
+                Occurrences occurrences = result.occurrences.get(parameter);
+                int[] spans = text.spans(result.paramArgs.get(parameter));
+                int occurrenceCount = occurrences == null ? 0 : occurrences.count();
+
+                int[] entry = new int[3 + occurrenceCount + spans.length];
+                entry[0] = ordinal;
+                entry[1] = occurrences == null ? -1 : occurrenceCount;
+                for (int k = 0; k < occurrenceCount; k++) {
+                    entry[2 + k] = occurrences.argCount(k);
+                }
+                entry[2 + occurrenceCount] = spans.length / 2;
+                System.arraycopy(spans, 0, entry, 3 + occurrenceCount, spans.length);
+                entries.add(entry);
+            }
+        }
+
+        int length = 4 + 2 + 4 + 1 + 4 + text.length + 4;
+        if (unhandled != null) {
+            length += unhandled.length * 4;
+        } else {
+            for (int[] entry : entries) length += entry.length * 4;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(MAGIC).putShort(VERSION).putInt(registry.checksum());
+        buffer.put(unhandled != null ? UNHANDLED : PARAMETERS);
+        buffer.putInt(text.length).put(text.bytes, 0, text.length);
+
+        if (unhandled != null) {
+            buffer.putInt(unhandled.length / 2);
+            for (int value : unhandled) buffer.putInt(value);
+        } else {
+            buffer.putInt(entries.size());
+            for (int[] entry : entries) {
+                for (int value : entry) buffer.putInt(value);
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Read a result encoded against a registry with the same checksum, starting at the buffer's position.
+     */
+    static ParseResult decode(Registry registry, IHandler unhandledHandler, ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC)
+            throw new RuntimeException("Not an encoded parse result!");
+
+        short version = buffer.getShort();
+        if (version != VERSION)
+            throw new RuntimeException("Unsupported parse result encoding version " + version + "!");
+
+        if (buffer.getInt() != registry.checksum())
+            throw new RuntimeException("Parse result was encoded against different parameters!");
+
+        byte kind = buffer.get();
+        if (kind != PARAMETERS && kind != UNHANDLED)
+            throw new RuntimeException("Unknown parse result kind " + kind + "!");
+
+        int textLength = buffer.getInt();
+        int textStart = buffer.position();
+        buffer.position(textStart + textLength);
+
+        if (kind == UNHANDLED) {
+            if (unhandledHandler == null)
+                throw new RuntimeException("Parse result has args for the invalid options handler, but none is set!");
+
+            return new ParseResult(registry, readArgs(buffer, textStart, buffer.getInt()), unhandledHandler);
+        }
+
+        int entries = buffer.getInt();
+        Map<Parameter, String[]> paramArgs = new HashMap<>(Math.max(16, entries * 2));
+        Map<Parameter, Occurrences> occurrences = null;
+        int[] ordinals = new int[entries];
+
+        for (int e = 0; e < entries; e++) {
+            int ordinal = buffer.getInt();
+            if (ordinal < 0 || ordinal >= registry.ordinalCount())
+                throw new RuntimeException("Parse result names an unknown parameter ordinal " + ordinal + "!");
+
+            ordinals[e] = ordinal;
+
+            Parameter parameter = registry.get(ordinal);
+            int occurrenceCount = buffer.getInt();
+            int[] argCounts = null;
+
+            if (occurrenceCount >= 0) {
+                argCounts = new int[occurrenceCount];
+                for (int k = 0; k < occurrenceCount; k++) argCounts[k] = buffer.getInt();
+            }
+
+            String[] args = readArgs(buffer, textStart, buffer.getInt());
+            paramArgs.put(parameter, args);
+
+            if (argCounts != null) {
+                if (occurrences == null)
+                    occurrences = new HashMap<>();
+
+                Occurrences collected = new Occurrences(parameter.getArgCount());
+                int next = 0;
+                for (int argCount : argCounts) {
+                    collected.begin();
+                    for (int j = 0; j < argCount; j++) collected.add(args[next++]);
+                }
+                occurrences.put(parameter, collected);
+            }
+        }
+
+        return new ParseResult(registry, ordinals, paramArgs, occurrences == null ? Collections.emptyMap() : occurrences, null);
+    }
+
+    private static String[] readArgs(ByteBuffer buffer, int textStart, int count) {
+        String[] args = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            int start = textStart + buffer.getInt();
+            int length = buffer.getInt();
+
+            if (buffer.hasArray()) {
+                args[i] = new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+            } else {
+                byte[] bytes = new byte[length];
+                for (int j = 0; j < length; j++) bytes[j] = buffer.get(start + j);
+                args[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+
+        return args;
+    }
+
+    /**
+     * Collects the UTF-8 text of args, handing out (start, length) spans into it.
+     */
+    private static final class TextBuilder {
+        private byte[] bytes = new byte[256];
+        private int length;
+
+        int[] spans(String[] args) {
+            int[] spans = new int[args.length * 2];
+
+            for (int i = 0; i < args.length; i++) {
+                byte[] encoded = args[i].getBytes(StandardCharsets.UTF_8);
+
+                if (this.length + encoded.length > this.bytes.length)
+                    this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.length + encoded.length));
+
+                System.arraycopy(encoded, 0, this.bytes, this.length, encoded.length);
+                spans[i * 2] = this.length;
+                spans[i * 2 + 1] = encoded.length;
+                this.length += encoded.length;
+            }
+
+            return spans;
+        }
+    }
+}
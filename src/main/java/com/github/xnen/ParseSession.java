@@ -0,0 +1,543 @@
+package com.github.xnen;
+
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.impl.IHandler;
+import com.github.xnen.param.Parameter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses a command line that is edited a little at a time, such as the line being typed in an interactive shell.
+ *
+ * The session keeps what each token matched and what each parameter consumed. After an edit, tokens before the first
+ * changed one keep their matches, and only parameters that start at or reach into the changed part are matched again.
+ * The leftovers, the values bound to positional parameters, how many required parameters are present and each
+ * parameter's validation result are kept too, and only redone for the tokens and parameters the edit reached; so an
+ * edit costs about as much as what it changed, not the length of the line. Results are the same as tryParse()'s.
+ * (Validators are assumed to depend on their args only, as a cached result is reused until those change)
+ *
+ * Not thread safe; use one session per line being edited. A result shares the session's state, so it is only valid
+ * until the next update. If parameters are registered in the meantime, the next update() starts over.
+ */
+public final class ParseSession {
+
+    private static final String[] NO_TOKENS = new String[0];
+
+    private final Parameters parameters;
+
+    /**
+     * Registry snapshot the state below was built against.
+     */
+    private Registry registry;
+    private int maxArgCount;
+
+    private String[] tokens = NO_TOKENS;
+    private int size;
+
+    /**
+     * Ordinal each token identifies, or -1. Only tokens at or after an edit are looked up again.
+     */
+    private int[] matched = new int[16];
+
+    /**
+     * How many matches consume each token.
+     */
+    private int[] consumedBy = new int[16];
+
+    /**
+     * Positions of the tokens no match consumes, in order.
+     */
+    private int[] leftover = new int[16];
+    private int leftoverCount;
+
+    /**
+     * One per matched token, by position.
+     */
+    private final List<Match> matches = new ArrayList<>();
+
+    private final Map<Parameter, String[]> paramArgs = new HashMap<>();
+    private final Map<Parameter, Integer> positions = new HashMap<>();
+    private final Map<Parameter, Occurrences> occurrences = new HashMap<>();
+    private final BitSet present = new BitSet();
+    private final List<ParseError> arityErrors = new ArrayList<>();
+
+    /**
+     * Repeatable parameters whose occurrences changed, so their flat args need taking again.
+     */
+    private final Set<Parameter> changedOccurrences = new HashSet<>();
+
+    /**
+     * How many required parameters the matches make present.
+     */
+    private int requiredMatched;
+
+    /**
+     * Values bound to each positional parameter, and the index of the first leftover they came from. Reused while
+     * those leftovers are before every edit since.
+     */
+    private String[][] bound = new String[0][];
+    private int[] boundFrom = new int[0];
+
+    /**
+     * Ordinals the last result added on top of the matches: positional parameters and fallback sources.
+     * Removed again before the next update.
+     */
+    private final BitSet derived = new BitSet();
+    private final BitSet filled = new BitSet();
+
+    /**
+     * Ordinals whose validation result is known, and the invalid ones among them.
+     */
+    private final BitSet validated = new BitSet();
+    private final BitSet invalid = new BitSet();
+
+    private ParseResult result;
+    private int rescannedFrom;
+    private long work;
+
+    ParseSession(Parameters parameters) {
+        this.parameters = parameters;
+    }
+
+    /**
+     * Parse the line as it is now. Only the tokens from the first one that differs from the last update are matched again.
+     */
+    public ParseResult update(String... tokens) {
+        int common = Math.min(this.size, tokens.length);
+        this.work = 0;
+        int changed = 0;
+
+        while (changed < common && (this.tokens[changed] == tokens[changed] || this.tokens[changed].equals(tokens[changed]))) {
+            changed++;
+        }
+        this.work += changed;
+
+        return this.apply(changed, tokens.clone());
+    }
+
+    /**
+     * Replace every token from 'index' on with these, i.e. replaceFrom(size - 1, word) when the last word was edited.
+     * Nothing before 'index' is compared or copied again.
+     */
+    public ParseResult replaceFrom(int index, String... tail) {
+        if (index < 0 || index > this.size)
+            throw new RuntimeException("Index " + index + " is outside the line!");
+
+        this.work = 0;
+        int size = index + tail.length;
+        String[] tokens = this.tokens.length >= size ? this.tokens : Arrays.copyOf(this.tokens, Math.max(size, this.tokens.length * 2));
+        System.arraycopy(tail, 0, tokens, index, tail.length);
+        if (size < this.size)
+            Arrays.fill(tokens, size, this.size, null);
+
+        return this.apply(index, tokens, size);
+    }
+
+    /**
+     * Result of the last update, or null before the first.
+     */
+    public ParseResult getResult() {
+        return this.result;
+    }
+
+    /**
+     * Token the last update started matching from. Everything before it was kept from earlier updates.
+     */
+    public int getRescannedFrom() {
+        return this.rescannedFrom;
+    }
+
+    /**
+     * Work the last update did: tokens compared, looked up, matched, leftovers bound and validators run.
+     */
+    public long getWork() {
+        return this.work;
+    }
+
+    private ParseResult apply(int changed, String[] tokens) {
+        return this.apply(changed, tokens, tokens.length);
+    }
+
+    private ParseResult apply(int changed, String[] tokens, int size) {
+        Registry registry = this.parameters.registry();
+
+        if (registry != this.registry) {
+            this.reset(registry);
+            changed = 0;
+        } else if (changed == size && changed == this.size && this.result != null) {
+            this.tokens = tokens;
+            this.rescannedFrom = size;
+            return this.result;
+        }
+
+        this.clearDerived();
+        int restart = this.restartPoint(changed);
+
+        while (!this.matches.isEmpty() && this.matches.get(this.matches.size() - 1).position >= restart) {
+            this.undo(this.matches.remove(this.matches.size() - 1));
+        }
+
+        this.tokens = tokens;
+        this.size = size;
+        this.ensureCapacity(size);
+
+        for (int i = changed; i < size; i++) {
+            this.matched[i] = registry.lookup(tokens[i]);
+        }
+
+        // Tokens before the restart keep whether they are consumed, so only later leftovers are found again.
+        while (this.leftoverCount > 0 && this.leftover[this.leftoverCount - 1] >= restart) {
+            this.leftoverCount--;
+        }
+
+        int stable = this.leftoverCount;
+        for (int i = 0; i < this.bound.length; i++) {
+            if (this.bound[i] != null && this.boundFrom[i] + this.bound[i].length > stable)
+                this.bound[i] = null;
+        }
+
+        for (int i = restart; i < size; i++) {
+            if (this.matched[i] >= 0)
+                this.matches.add(this.match(i));
+        }
+
+        for (int i = restart; i < size; i++) {
+            if (this.consumedBy[i] == 0)
+                this.leftover[this.leftoverCount++] = i;
+        }
+
+        this.work += (size - changed) + 2L * (size - restart);
+        this.rescannedFrom = restart;
+        this.result = this.finish();
+        return this.result;
+    }
+
+    /**
+     * Earliest token whose match may change when tokens from 'changed' on do: any match that reaches 'changed' has to
+     * be redone. Only the matches within the longest fixed arity before it, the last match before it (which may be an
+     * infinite span running into it) and failed matches (which depend on the line's length) can reach it.
+     */
+    private int restartPoint(int changed) {
+        int restart = changed;
+        boolean seenBefore = false;
+
+        for (int m = this.matches.size() - 1; m >= 0; m--) {
+            Match match = this.matches.get(m);
+
+            if (match.position < changed) {
+                if (seenBefore && match.position < changed - this.maxArgCount - 1)
+                    break;
+
+                seenBefore = true;
+                if (match.reach() >= changed)
+                    restart = match.position;
+            }
+        }
+
+        for (ParseError error : this.arityErrors) {
+            restart = Math.min(restart, error.getPosition());
+        }
+
+        return restart;
+    }
+
+    private Match match(int position) {
+        Registry registry = this.registry;
+        int ordinal = this.matched[position];
+        Parameter parameter = registry.get(ordinal);
+        int argCount = registry.isInfinite(ordinal) ? this.countInfiniteArgs(position) : registry.argCount(ordinal);
+        Match match = new Match(position, ordinal, parameter);
+
+        if (position + argCount + 1 > this.size) {
+            // Like parse(): the remaining tokens belong to this parameter, so they aren't reported again.
+            match.error = new ParseError(0, parameter, position, "Parameter '" + parameter + "' consumes more args than are available.");
+            match.end = this.size;
+            this.arityErrors.add(match.error);
+            this.consume(position, this.size, 1);
+            return match;
+        }
+
+        match.end = position + argCount + 1;
+        match.infinite = registry.isInfinite(ordinal);
+        match.args = Arrays.copyOfRange(this.tokens, position + 1, match.end);
+        match.previousPosition = this.positions.put(parameter, position);
+
+        if (registry.isRepeatable(ordinal)) {
+            Occurrences collected = this.occurrences.computeIfAbsent(parameter, p -> new Occurrences(p.getArgCount()));
+            collected.begin();
+            for (String arg : match.args) collected.add(arg);
+            this.changedOccurrences.add(parameter);
+        } else {
+            match.previousArgs = this.paramArgs.put(parameter, match.args);
+        }
+
+        if (!this.present.get(ordinal) && registry.isRequired(ordinal))
+            this.requiredMatched++;
+
+        this.present.set(ordinal);
+        this.validated.clear(ordinal);
+        this.consume(position, match.end, 1);
+        return match;
+    }
+
+    private void undo(Match match) {
+        this.consume(match.position, match.end, -1);
+
+        if (match.error != null) {
+            this.arityErrors.remove(this.arityErrors.size() - 1);
+            return;
+        }
+
+        Parameter parameter = match.parameter;
+
+        if (match.previousPosition == null) {
+            this.positions.remove(parameter);
+        } else {
+            this.positions.put(parameter, match.previousPosition);
+        }
+
+        this.validated.clear(match.ordinal);
+
+        Occurrences collected = this.occurrences.get(parameter);
+        if (collected != null) {
+            collected.removeLast();
+            if (collected.count() == 0) {
+                this.occurrences.remove(parameter);
+                this.paramArgs.remove(parameter);
+                this.absent(match.ordinal);
+            } else {
+                this.changedOccurrences.add(parameter);
+            }
+        } else if (match.previousArgs == null) {
+            this.paramArgs.remove(parameter);
+            this.absent(match.ordinal);
+        } else {
+            this.paramArgs.put(parameter, match.previousArgs);
+        }
+    }
+
+    private void absent(int ordinal) {
+        this.present.clear(ordinal);
+        if (this.registry.isRequired(ordinal))
+            this.requiredMatched--;
+    }
+
+    /**
+     * Take back what the last result added on top of the matches, so the matches can be undone and redone.
+     */
+    private void clearDerived() {
+        for (int ordinal = this.derived.nextSetBit(0); ordinal >= 0; ordinal = this.derived.nextSetBit(ordinal + 1)) {
+            Parameter parameter = this.registry.get(ordinal);
+            this.paramArgs.remove(parameter);
+            this.present.clear(ordinal);
+            if (ordinal >= this.registry.size())
+                this.positions.remove(parameter);
+        }
+
+        this.derived.clear();
+    }
+
+    /**
+     * Bind the leftovers, then hand fallback sources, required constraints and validation to Parameters.check(), with
+     * what the session already knows: how many required parameters are present, and the validation results kept.
+     */
+    private ParseResult finish() {
+        Registry registry = this.registry;
+
+        for (Parameter parameter : this.changedOccurrences) {
+            Occurrences collected = this.occurrences.get(parameter);
+            if (collected != null) {
+                String[] flat = collected.flat();
+                this.paramArgs.put(parameter, flat);
+                this.work += flat.length;
+            }
+        }
+        this.changedOccurrences.clear();
+
+        List<ParseError> errors = new ArrayList<>(this.arityErrors);
+        int requiredPresent = this.requiredMatched;
+
+        if (this.leftoverCount > 0) {
+            int size = registry.size();
+            List<Parameter> positionals = registry.positionals;
+            int[] takes = this.parameters.positionalTakes(registry, this.present, this.leftoverCount);
+            int next = 0;
+
+            for (int i = 0; i < takes.length; i++) {
+                int take = takes[i];
+                if (take == 0)
+                    continue;
+
+                Parameter positional = positionals.get(i);
+                String[] values = this.bound[i];
+
+                if (values == null || this.boundFrom[i] != next || values.length != take) {
+                    values = new String[take];
+                    for (int k = 0; k < take; k++) {
+                        values[k] = this.tokens[this.leftover[next + k]];
+                    }
+
+                    this.bound[i] = values;
+                    this.boundFrom[i] = next;
+                    this.validated.clear(size + i);
+                    this.work += take;
+                }
+
+                int position = this.leftover[next];
+                next += take;
+
+                if (take < positional.getMinArity()) {
+                    errors.add(new ParseError(0, positional, position, "Parameter '" + positional + "' expects at least " + positional.getMinArity() + " args, but " + take + " are left."));
+                    continue;
+                }
+
+                this.paramArgs.put(positional, values);
+                this.positions.put(positional, position);
+                this.present.set(size + i);
+                this.derived.set(size + i);
+                if (registry.isRequired(size + i))
+                    requiredPresent++;
+            }
+
+            if (next < this.leftoverCount) {
+                IHandler unhandled = this.parameters.unhandled();
+                this.work += this.leftoverCount - next;
+
+                if (unhandled == null) {
+                    for (int k = next; k < this.leftoverCount; k++) {
+                        errors.add(Parameters.unknownOption(this.leftover[k]));
+                    }
+                } else if (!errors.isEmpty()) {
+                    return new ParseResult(registry, errors);
+                } else {
+                    String[] extra = new String[this.leftoverCount - next];
+                    for (int k = 0; k < extra.length; k++) {
+                        extra[k] = this.tokens[this.leftover[next + k]];
+                    }
+
+                    return new ParseResult(registry, extra, unhandled);
+                }
+            }
+        }
+
+        // Fallback values are read again each time, so they are validated again too.
+        for (int ordinal : registry.fallbackOrdinals()) {
+            this.validated.clear(ordinal);
+        }
+
+        try {
+            this.filled.clear();
+            ParseResult result = this.parameters.check(registry, this.paramArgs, this.present, requiredPresent, this::isValid, this.filled,
+                    this.occurrences, this.positions, errors);
+            this.derived.or(this.filled);
+            return result;
+        } catch (ParameterException e) {
+            throw new IllegalStateException("Parse threw while collecting errors", e); // fail() never throws with an errors list.
+        }
+    }
+
+    /**
+     * Validation result of this ordinal's args, running its validator only if they changed since it last ran.
+     */
+    private boolean isValid(int ordinal) {
+        if (!this.validated.get(ordinal)) {
+            Parameter parameter = this.registry.get(ordinal);
+            this.invalid.set(ordinal, !parameter.isValid(this.paramArgs.get(parameter)));
+            this.validated.set(ordinal);
+            this.work++;
+        }
+
+        return !this.invalid.get(ordinal);
+    }
+
+    private int countInfiniteArgs(int position) {
+        int i = position + 1;
+        while (i < this.size && this.matched[i] < 0) i++;
+        return i - position - 1;
+    }
+
+    private void consume(int from, int to, int delta) {
+        for (int i = from; i < to; i++) {
+            this.consumedBy[i] += delta;
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > this.matched.length) {
+            int capacity = Math.max(size, this.matched.length * 2);
+            this.matched = Arrays.copyOf(this.matched, capacity);
+            this.consumedBy = Arrays.copyOf(this.consumedBy, capacity);
+            this.leftover = Arrays.copyOf(this.leftover, capacity);
+        }
+    }
+
+    private void reset(Registry registry) {
+        this.registry = registry;
+        this.maxArgCount = registry.maxArgCount();
+        this.size = 0;
+        this.tokens = NO_TOKENS;
+        this.matches.clear();
+        this.paramArgs.clear();
+        this.positions.clear();
+        this.occurrences.clear();
+        this.changedOccurrences.clear();
+        this.present.clear();
+        this.arityErrors.clear();
+        Arrays.fill(this.consumedBy, 0);
+        this.leftoverCount = 0;
+        this.requiredMatched = 0;
+        this.bound = new String[registry.positionals.size()][];
+        this.boundFrom = new int[registry.positionals.size()];
+        this.derived.clear();
+        this.validated.clear();
+        this.invalid.clear();
+        this.result = null;
+    }
+
+    /**
+     * A matched identifier and what it consumed, with what it replaced so it can be undone.
+     */
+    private static final class Match {
+        final int position;
+        final int ordinal;
+        final Parameter parameter;
+
+        /**
+         * Exclusive end of the tokens consumed, the identifier included.
+         */
+        int end;
+        boolean infinite;
+        String[] args;
+
+        String[] previousArgs;
+        Integer previousPosition;
+
+        /**
+         * Set if there weren't enough tokens left. It then consumed the rest of the line.
+         */
+        ParseError error;
+
+        Match(int position, int ordinal, Parameter parameter) {
+            this.position = position;
+            this.ordinal = ordinal;
+            this.parameter = parameter;
+        }
+
+        /**
+         * Last token this match depends on: its last arg, the identifier ending an infinite span, or the end of the line.
+         */
+        int reach() {
+            if (this.error != null)
+                return Integer.MAX_VALUE;
+
+            return this.infinite ? this.end : this.end - 1;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.xnen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sorted index of identifiers, for finding every identifier that starts with a prefix in logarithmic time.
+ *
+ * Identifiers are sorted by their case-folded text, so a prefix selects one contiguous range for both case-sensitive
+ * and case-insensitive identifiers; case-sensitive ones are then checked against the prefix exactly.
+ */
+final class PrefixIndex {
+
+    private final String[] folded;
+    private final String[] identifiers;
+    private final boolean[] caseSensitive;
+
+    /**
+     * The order identifiers are listed in.
+     */
+    static final Comparator<String> ORDER = (o1, o2) -> fold(o1).compareTo(fold(o2));
+
+    /**
+     * Index of the identifiers of the registered parameters from ordinal 'from' on. (0 for all of them)
+     */
+    PrefixIndex(Registry registry, int from) {
+        List<Boolean> sensitivity = new ArrayList<>();
+        List<String> all = new ArrayList<>();
+
+        for (int ordinal = from; ordinal < registry.size(); ordinal++) {
+            boolean caseSensitive = registry.isCaseSensitive(ordinal);
+            for (String identifier : registry.identifiers(ordinal)) {
+                sensitivity.add(caseSensitive);
+                all.add(identifier);
+            }
+        }
+
+        int count = all.size();
+        String[] keys = new String[count];
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = fold(all.get(i));
+            order[i] = i;
+        }
+
+        Arrays.sort(order, (o1, o2) -> keys[o1].compareTo(keys[o2]));
+
+        this.folded = new String[count];
+        this.identifiers = new String[count];
+        this.caseSensitive = new boolean[count];
+
+        for (int i = 0; i < count; i++) {
+            int entry = order[i];
+            this.folded[i] = keys[entry];
+            this.identifiers[i] = all.get(entry);
+            this.caseSensitive[i] = sensitivity.get(entry);
+        }
+    }
+
+    /**
+     * Identifiers starting with this prefix, in sorted order.
+     */
+    List<String> startingWith(String prefix) {
+        String foldedPrefix = fold(prefix);
+        List<String> matches = new ArrayList<>();
+
+        for (int i = lowerBound(foldedPrefix); i < this.folded.length && this.folded[i].startsWith(foldedPrefix); i++) {
+            if (!this.caseSensitive[i] || this.identifiers[i].startsWith(prefix))
+                matches.add(this.identifiers[i]);
+        }
+
+        return matches;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = this.folded.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.folded[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    private static String fold(String text) {
+        char[] chars = new char[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = IdentifierIndex.fold(text.charAt(i));
+        }
+        return new String(chars);
+    }
+}
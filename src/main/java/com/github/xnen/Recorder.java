@@ -0,0 +1,155 @@
+package com.github.xnen;
+
+import com.github.xnen.param.Parameter;
+import com.github.xnen.replay.Invocation;
+import com.github.xnen.replay.InvocationLog;
+import com.github.xnen.replay.Outcome;
+
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * Writes process() calls to an invocation log for Parameters.startRecording(), redacting the values asked for.
+ */
+final class Recorder {
+
+    private final InvocationLog.Writer writer;
+    private final String[] redacted;
+
+    /**
+     * Ordinals of the redacted parameters in the registry they were resolved against. Re-resolved when it changes.
+     */
+    private volatile Resolved resolved;
+
+    /**
+     * First write that failed. Recording stops there, and stopRecording() throws it.
+     */
+    private volatile IOException failure;
+
+    Recorder(InvocationLog.Writer writer, String[] redacted) {
+        this.writer = writer;
+        this.redacted = redacted.clone();
+    }
+
+    void record(Registry registry, String[] args, Outcome outcome, int errorId, long parseNanos, long dispatchNanos) {
+        if (this.failure != null)
+            return;
+
+        try {
+            this.writer.write(new Invocation(System.currentTimeMillis(), this.redact(registry, args), outcome, errorId, parseNanos, dispatchNanos));
+        } catch (IOException e) {
+            this.failure = e;
+        }
+    }
+
+    /**
+     * Close the log, throwing the first write that failed, if any.
+     */
+    void close() throws IOException {
+        try {
+            this.writer.close();
+        } finally {
+            if (this.failure != null)
+                throw this.failure;
+        }
+    }
+
+    /**
+     * Copy of the args with the values of the redacted parameters replaced, or the args themselves if none are.
+     * Tokens are matched the way parse() matches them: every token is looked up, even one another identifier takes as
+     * a value, and each identifier takes its arg count, or every token up to the next identifier if infinite.
+     */
+    private String[] redact(Registry registry, String[] args) {
+        if (this.redacted.length == 0)
+            return args;
+
+        Resolved resolved = this.resolve(registry);
+        String[] copy = args;
+
+        int[] matched = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            matched[i] = registry.lookup(args[i]);
+        }
+
+        boolean[] consumed = resolved.leftovers ? new boolean[args.length] : null;
+
+        for (int i = 0; i < args.length; i++) {
+            int ordinal = matched[i];
+            if (ordinal < 0)
+                continue;
+
+            int end = i + 1;
+            if (registry.isInfinite(ordinal)) {
+                while (end < args.length && matched[end] < 0) end++;
+            } else {
+                end = Math.min(args.length, end + registry.argCount(ordinal));
+            }
+
+            if (resolved.ordinals.get(ordinal)) {
+                for (int j = i + 1; j < end; j++) copy = redact(copy, args, j);
+            }
+
+            if (consumed != null) {
+                for (int j = i; j < end; j++) consumed[j] = true;
+            }
+        }
+
+        // Tokens no identifier takes are the positional parameters' values.
+        if (consumed != null) {
+            for (int i = 0; i < args.length; i++) {
+                if (!consumed[i])
+                    copy = redact(copy, args, i);
+            }
+        }
+
+        return copy;
+    }
+
+    private static String[] redact(String[] copy, String[] args, int index) {
+        if (copy == args)
+            copy = args.clone();
+
+        copy[index] = InvocationLog.REDACTED;
+        return copy;
+    }
+
+    private Resolved resolve(Registry registry) {
+        Resolved resolved = this.resolved;
+
+        if (resolved == null || resolved.registry != registry) {
+            BitSet ordinals = new BitSet();
+            boolean leftovers = false;
+
+            for (String identifier : this.redacted) {
+                int ordinal = registry.lookup(identifier);
+                if (ordinal >= 0)
+                    ordinals.set(ordinal);
+
+                for (Parameter positional : registry.positionals) {
+                    leftovers |= positional.matches(identifier);
+                }
+            }
+
+            resolved = new Resolved(registry, ordinals, leftovers);
+            this.resolved = resolved;
+        }
+
+        return resolved;
+    }
+
+    private static final class Resolved {
+        final Registry registry;
+        final BitSet ordinals;
+
+        /**
+         * Was a positional parameter named? Then every token no identifier takes is redacted.
+         */
+        final boolean leftovers;
+
+        Resolved(Registry registry, BitSet ordinals, boolean leftovers) {
+            this.registry = registry;
+            this.ordinals = ordinals;
+            this.leftovers = leftovers;
+        }
+    }
+}
@@ -0,0 +1,796 @@
+package com.github.xnen;
+
+import com.github.xnen.param.Parameter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.zip.CRC32;
+
+/**
+ * Immutable snapshot of the registered parameters.
+ * Parameters publishes a new Registry on every change, so a process() call sees one consistent view from start to end.
+ *
+ * A parameter's ordinal is its index in the priority-sorted list; positional parameter i has ordinal size() + i.
+ *
+ * An overlay registry shares a sealed base registry (see RegistryTemplate) and only keeps what it adds or overrides:
+ * the base parameters keep their ordinals, the added ones follow them, sorted by priority among themselves.
+ */
+final class Registry {
+
+    private static final int[] NO_ORDINALS = new int[0];
+    private static final Parameter[] NO_PARAMETERS = new Parameter[0];
+
+    static final Registry EMPTY = new Registry(Collections.emptyList(), Collections.emptyList(), null, null, NO_ORDINALS, NO_PARAMETERS);
+
+    /**
+     * Registered parameters, sorted by priority. (Higher => Earlier)
+     * For a sealed registry this is a view that creates each Parameter on first access; for an overlay, only the added ones.
+     */
+    final List<Parameter> parameters;
+
+    /**
+     * Parameters bound to the leftover tokens, in the order they take them. (Unmodifiable)
+     */
+    final List<Parameter> positionals;
+
+    /**
+     * Fields of the registered parameters by ordinal, once sealed. (null while parameters can still be registered)
+     */
+    private final ParameterTable table;
+
+    /**
+     * Sealed registry this one overlays (null if none), and the base ordinals whose Parameter is replaced, sorted.
+     * The table above is the base's, as replacements keep the shape of what they replace.
+     */
+    private final Registry base;
+    private final int[] overridden;
+    private final Parameter[] overrides;
+
+    /**
+     * Lookup structures, built on first use. Threads racing to build them build equal copies, so no lock is needed.
+     */
+    private volatile Compiled compiled;
+
+    /**
+     * Only needed for shell completion, so it is built separately, on first use.
+     */
+    private volatile PrefixIndex prefixes;
+
+    /**
+     * Every registered parameter of an overlay, in priority order. Built on first use.
+     */
+    private volatile List<Parameter> registered;
+
+    private Registry(List<Parameter> parameters, List<Parameter> positionals, ParameterTable table,
+                     Registry base, int[] overridden, Parameter[] overrides) {
+        this.parameters = parameters;
+        this.positionals = positionals;
+        this.table = table;
+        this.base = base;
+        this.overridden = overridden;
+        this.overrides = overrides;
+    }
+
+    private Registry copy(List<Parameter> parameters, List<Parameter> positionals) {
+        return new Registry(parameters, positionals, this.table, this.base, this.overridden, this.overrides);
+    }
+
+    /**
+     * Empty overlay of a sealed registry, with its positional parameters.
+     */
+    static Registry overlay(Registry base) {
+        if (base.table == null || base.base != null)
+            throw new RuntimeException("Only a sealed registry can be overlaid!");
+
+        return new Registry(Collections.emptyList(), base.positionals, base.table, base, NO_ORDINALS, NO_PARAMETERS);
+    }
+
+    /**
+     * Copy of this overlay with the base parameter at this ordinal replaced.
+     */
+    Registry withOverride(int ordinal, Parameter parameter) {
+        int index = Arrays.binarySearch(this.overridden, ordinal);
+        int[] overridden = this.overridden;
+        Parameter[] overrides;
+
+        if (index >= 0) {
+            overrides = this.overrides.clone();
+        } else {
+            index = -index - 1;
+            overridden = new int[this.overridden.length + 1];
+            overrides = new Parameter[this.overrides.length + 1];
+
+            System.arraycopy(this.overridden, 0, overridden, 0, index);
+            System.arraycopy(this.overrides, 0, overrides, 0, index);
+            System.arraycopy(this.overridden, index, overridden, index + 1, this.overridden.length - index);
+            System.arraycopy(this.overrides, index, overrides, index + 1, this.overrides.length - index);
+            overridden[index] = ordinal;
+        }
+
+        overrides[index] = parameter;
+        return new Registry(this.parameters, this.positionals, this.table, this.base, overridden, overrides);
+    }
+
+    /**
+     * Does this parameter have the same identifiers, priority, args, flags, clauses and fallback sources as the one with
+     * this ordinal? Then it can replace it without changing how args are parsed.
+     */
+    boolean sameShape(int ordinal, Parameter parameter) {
+        int flags = (parameter.isCaseSensitive() ? 1 : 0) | (parameter.isRequired() ? 2 : 0)
+                | (parameter.isInfinite() ? 4 : 0) | (parameter.isRepeatable() ? 8 : 0);
+        int expected = (this.isCaseSensitive(ordinal) ? 1 : 0) | (this.isRequired(ordinal) ? 2 : 0)
+                | (this.isInfinite(ordinal) ? 4 : 0) | (this.isRepeatable(ordinal) ? 8 : 0);
+
+        return flags == expected && parameter.getPriority() == this.priority(ordinal) && parameter.getArgCount() == this.argCount(ordinal)
+                && Arrays.equals(parameter.getIdentifiers(), this.identifiers(ordinal))
+                && Arrays.equals(parameter.isRequired() ? parameter.getRequiredClauses() : null, this.isRequired(ordinal) ? this.requiredClauses(ordinal) : null)
+                && Objects.equals(parameter.getEnvVariable(), this.envVariable(ordinal))
+                && Objects.equals(parameter.getConfigKey(), this.configKey(ordinal));
+    }
+
+    boolean isOverlay() {
+        return this.base != null;
+    }
+
+    /**
+     * Base registry of an overlay. (null if not an overlay)
+     */
+    Registry base() {
+        return this.base;
+    }
+
+    /**
+     * Every registered parameter, sorted by priority.
+     */
+    List<Parameter> registered() {
+        if (this.base == null)
+            return this.parameters;
+
+        List<Parameter> registered = this.registered;
+        if (registered == null) {
+            BitSet all = new BitSet();
+            all.set(0, this.size());
+            registered = Collections.unmodifiableList(new OrdinalView(this, this.inOrder(all)));
+            this.registered = registered;
+        }
+
+        return registered;
+    }
+
+    /**
+     * Copy of this registry with the parameter inserted in priority order, after any parameters of the same priority.
+     * The insert is deferred until the list is first read (see PendingList), so a run of register() calls costs one sort.
+     */
+    Registry with(Parameter parameter) {
+        return this.copy(new PendingList(this.parameters, parameter), this.positionals);
+    }
+
+    /**
+     * Copy of this registry with all of these parameters added, sorted once.
+     */
+    Registry withAll(Collection<? extends Parameter> added) {
+        List<Parameter> copy = new ArrayList<>(this.parameters.size() + added.size());
+        copy.addAll(this.parameters);
+        copy.addAll(added);
+        copy.sort((o1, o2) -> Short.compare(o2.getPriority(), o1.getPriority()));
+        return this.copy(Collections.unmodifiableList(copy), this.positionals);
+    }
+
+    /**
+     * Copy of this registry using these positional parameters, in this order.
+     */
+    Registry withPositionals(List<Parameter> positionals) {
+        return this.copy(this.parameters, Collections.unmodifiableList(new ArrayList<>(positionals)));
+    }
+
+    /**
+     * Compact copy of this registry that keeps no Parameter objects, only their fields by ordinal.
+     */
+    Registry sealed() {
+        if (this.table != null)
+            return this;
+
+        ParameterTable table = new ParameterTable(this.parameters);
+        return new Registry(new TableView(table), this.positionals, table, null, NO_ORDINALS, NO_PARAMETERS);
+    }
+
+    /**
+     * Sealed registry around a table read from a snapshot.
+     */
+    static Registry of(ParameterTable table, List<Parameter> positionals) {
+        return new Registry(new TableView(table), positionals, table, null, NO_ORDINALS, NO_PARAMETERS);
+    }
+
+    /**
+     * Table of a sealed registry. (null if not sealed)
+     */
+    ParameterTable table() {
+        return this.table;
+    }
+
+    /**
+     * Hash index of the registered identifiers.
+     */
+    IdentifierIndex index() {
+        return this.compiled().index;
+    }
+
+    boolean isSealed() {
+        return this.table != null;
+    }
+
+    int size() {
+        if (this.base != null)
+            return this.table.size + this.parameters.size();
+
+        return this.table != null ? this.table.size : this.parameters.size();
+    }
+
+    /**
+     * Number of ordinals: the registered parameters, then the positional parameters.
+     */
+    int ordinalCount() {
+        return this.size() + this.positionals.size();
+    }
+
+    /**
+     * Parameter with this ordinal, including the positional parameters.
+     */
+    Parameter get(int ordinal) {
+        if (ordinal >= this.size())
+            return this.positionals.get(ordinal - this.size());
+        if (this.table == null)
+            return this.parameters.get(ordinal);
+        if (ordinal >= this.table.size)
+            return this.parameters.get(ordinal - this.table.size); // Added by an overlay
+
+        if (this.overridden.length > 0) {
+            int index = Arrays.binarySearch(this.overridden, ordinal);
+            if (index >= 0)
+                return this.overrides[index];
+        }
+
+        return this.table.parameter(ordinal);
+    }
+
+    /*
+     * Fields by ordinal (including the positional parameters). A sealed registry answers these without creating Parameters.
+     */
+
+    String[] identifiers(int ordinal) {
+        return this.inTable(ordinal) ? this.table.identifiers(ordinal) : this.get(ordinal).getIdentifiers();
+    }
+
+    boolean isCaseSensitive(int ordinal) {
+        return this.inTable(ordinal) ? this.table.hasFlag(ordinal, ParameterTable.CASE_SENSITIVE) : this.get(ordinal).isCaseSensitive();
+    }
+
+    boolean isRequired(int ordinal) {
+        return this.inTable(ordinal) ? this.table.hasFlag(ordinal, ParameterTable.REQUIRED) : this.get(ordinal).isRequired();
+    }
+
+    boolean isInfinite(int ordinal) {
+        return this.inTable(ordinal) ? this.table.hasFlag(ordinal, ParameterTable.INFINITE) : this.get(ordinal).isInfinite();
+    }
+
+    boolean isRepeatable(int ordinal) {
+        return this.inTable(ordinal) ? this.table.hasFlag(ordinal, ParameterTable.REPEATABLE) : this.get(ordinal).isRepeatable();
+    }
+
+    int argCount(int ordinal) {
+        return this.inTable(ordinal) ? this.table.argCount(ordinal) : this.get(ordinal).getArgCount();
+    }
+
+    short priority(int ordinal) {
+        return this.inTable(ordinal) ? this.table.priority(ordinal) : this.get(ordinal).getPriority();
+    }
+
+    String[] requiredClauses(int ordinal) {
+        return this.inTable(ordinal) ? this.table.requiredClauses(ordinal) : this.get(ordinal).getRequiredClauses();
+    }
+
+    String envVariable(int ordinal) {
+        return this.inTable(ordinal) ? this.table.envVariable(ordinal) : this.get(ordinal).getEnvVariable();
+    }
+
+    String configKey(int ordinal) {
+        return this.inTable(ordinal) ? this.table.configKey(ordinal) : this.get(ordinal).getConfigKey();
+    }
+
+    private boolean inTable(int ordinal) {
+        return this.table != null && ordinal < this.table.size;
+    }
+
+    /**
+     * Ordinal of the registered parameter this token identifies, or -1.
+     */
+    int lookup(CharSequence token) {
+        int ordinal = this.compiled().index.lookup(token);
+        return ordinal >= 0 || this.base == null ? ordinal : this.base.lookup(token);
+    }
+
+    /**
+     * Ordinal of the registered parameter this stored token identifies, or -1. Compares bytes without decoding.
+     */
+    int lookup(ArgumentStore args, int index) {
+        int ordinal = this.compiled().index.lookup(args, index);
+        return ordinal >= 0 || this.base == null ? ordinal : this.base.lookup(args, index);
+    }
+
+    /**
+     * Ordinals of the parameters named by this parameter's requiredUnless() clauses. (null if it has none)
+     */
+    int[] clauses(int ordinal) {
+        Compiled compiled = this.compiled();
+        if (ordinal >= compiled.offset)
+            return compiled.clauses[ordinal - compiled.offset];
+
+        int[] resolved = compiled.rebased.isEmpty() ? null : compiled.rebased.get(ordinal);
+        return resolved != null ? resolved : this.base.clauses(ordinal);
+    }
+
+    /**
+     * Does the parameter with this ordinal count as --help? (It lifts every required constraint)
+     */
+    boolean isHelp(int ordinal) {
+        Compiled compiled = this.compiled();
+        return ordinal >= compiled.offset ? compiled.help[ordinal - compiled.offset] : this.base.isHelp(ordinal);
+    }
+
+    /**
+     * Ordinals of the required parameters, sorted by priority.
+     */
+    int[] requiredOrdinals() {
+        return this.compiled().required;
+    }
+
+    /**
+     * Ordinals of the parameters with an env() variable or configKey(), sorted by priority.
+     */
+    int[] fallbackOrdinals() {
+        return this.compiled().fallback;
+    }
+
+    /**
+     * Most args any registered parameter with a fixed arg count takes.
+     */
+    int maxArgCount() {
+        return this.compiled().maxArgCount;
+    }
+
+    /**
+     * These ordinals (the set bits), sorted by priority. Parameters added by an overlay, then positional parameters,
+     * come after any parameters of the same priority before them.
+     */
+    int[] inOrder(BitSet ordinals) {
+        int[] ordered = new int[ordinals.cardinality()];
+        Compiled compiled = this.compiled();
+        int[] later = compiled.laterOrder;
+        int[] ranks = compiled.laterRank;
+        int count = 0;
+        int next = 0;
+
+        // The first ordinals are already in priority order; only the later ones need placing.
+        for (int ordinal = ordinals.nextSetBit(0); ordinal >= 0 && ordinal < compiled.sorted; ordinal = ordinals.nextSetBit(ordinal + 1)) {
+            for (; next < later.length && ranks[next] <= ordinal; next++) {
+                if (ordinals.get(later[next]))
+                    ordered[count++] = later[next];
+            }
+            ordered[count++] = ordinal;
+        }
+
+        for (; next < later.length; next++) {
+            if (ordinals.get(later[next]))
+                ordered[count++] = later[next];
+        }
+
+        return ordered;
+    }
+
+    /**
+     * The order to run these ordinals (the set bits) in: priority order, except that --help parameters come first,
+     * whatever their priority, so help is shown before any other handler runs.
+     */
+    int[] plan(BitSet ordinals) {
+        int[] ordered = this.inOrder(ordinals);
+        int[] help = this.compiled().helpOrdinals;
+
+        for (int ordinal : help) {
+            if (ordinals.get(ordinal))
+                return this.pinFirst(ordered);
+        }
+
+        return ordered;
+    }
+
+    private int[] pinFirst(int[] ordered) {
+        int[] pinned = new int[ordered.length];
+        int count = 0;
+
+        for (int ordinal : ordered) {
+            if (this.isHelp(ordinal))
+                pinned[count++] = ordinal;
+        }
+        for (int ordinal : ordered) {
+            if (!this.isHelp(ordinal))
+                pinned[count++] = ordinal;
+        }
+
+        return pinned;
+    }
+
+    /**
+     * CRC32 of the shape of every parameter (identifiers, args, flags and priority) in ordinal order.
+     * Two registries with the same checksum parse any args the same way, whatever their handlers.
+     */
+    int checksum() {
+        return this.compiled().checksum;
+    }
+
+    /**
+     * Registered identifiers starting with this prefix, in sorted order.
+     */
+    List<String> identifiersStartingWith(String prefix) {
+        PrefixIndex prefixes = this.prefixes;
+
+        if (prefixes == null) {
+            prefixes = new PrefixIndex(this, this.base == null ? 0 : this.base.size());
+            this.prefixes = prefixes;
+        }
+
+        if (this.base == null)
+            return prefixes.startingWith(prefix);
+
+        // The base's index is shared; only this overlay's own identifiers are indexed here.
+        List<String> matches = this.base.identifiersStartingWith(prefix);
+        List<String> own = prefixes.startingWith(prefix);
+        if (own.isEmpty())
+            return matches;
+
+        List<String> merged = new ArrayList<>(matches);
+        merged.addAll(own);
+        merged.sort(PrefixIndex.ORDER);
+        return merged;
+    }
+
+    private Compiled compiled() {
+        Compiled compiled = this.compiled;
+
+        if (compiled == null) {
+            compiled = new Compiled(this);
+            this.compiled = compiled;
+        }
+
+        return compiled;
+    }
+
+    private static final class Compiled {
+        /**
+         * Identifiers from 'offset' on. (An overlay looks up the rest in its base)
+         */
+        private final IdentifierIndex index;
+
+        /**
+         * Ordinals below 'offset' are an overlay's base parameters, whose clauses and help flag are the base's.
+         * The arrays below are indexed by ordinal - offset.
+         */
+        private final int offset;
+        private final int[][] clauses;
+        private final boolean[] help;
+
+        /**
+         * Clauses of base parameters that name positional parameters, resolved again for this registry's ordinals.
+         */
+        private final Map<Integer, int[]> rebased;
+
+        private final int[] required;
+        private final int[] fallback;
+
+        /**
+         * Ordinals of every --help parameter, including an overlay's base ones, sorted by priority.
+         */
+        private final int[] helpOrdinals;
+
+        /**
+         * Ordinals below 'sorted' are in priority order. The later ones (an overlay's added parameters, then positional
+         * parameters) are in laterOrder sorted by priority, with how many sorted ordinals come before each.
+         */
+        private final int sorted;
+        private final int[] laterOrder;
+        private final int[] laterRank;
+        private final int maxArgCount;
+        private final int checksum;
+
+        private Compiled(Registry registry) {
+            int size = registry.size();
+            int count = registry.ordinalCount();
+            Registry base = registry.base;
+
+            this.offset = base == null ? 0 : base.size();
+            this.sorted = base == null ? size : this.offset;
+
+            Integer[] order = new Integer[count - this.sorted];
+            for (int i = 0; i < order.length; i++) order[i] = this.sorted + i;
+            Arrays.sort(order, (o1, o2) -> Short.compare(registry.priority(o2), registry.priority(o1)));
+
+            this.laterOrder = new int[order.length];
+            this.laterRank = new int[order.length];
+            for (int k = 0, rank = 0; k < order.length; k++) {
+                short priority = registry.priority(order[k]);
+                while (rank < this.sorted && registry.priority(rank) >= priority) {
+                    rank++;
+                }
+
+                this.laterOrder[k] = order[k];
+                this.laterRank[k] = rank;
+            }
+
+            if (base != null) {
+                this.index = new IdentifierIndex(registry, this.offset);
+            } else {
+                this.index = registry.table != null && registry.table.index != null ? registry.table.index : new IdentifierIndex(registry, 0);
+            }
+
+            this.clauses = new int[count - this.offset][];
+            this.help = new boolean[count - this.offset];
+
+            int[] required = new int[count];
+            int[] fallback = new int[count];
+            int[] help = new int[count];
+            int requiredCount = 0;
+            int fallbackCount = 0;
+            int helpCount = 0;
+            int maxArgCount = base == null ? 0 : base.maxArgCount();
+
+            for (int rank = 0, next = 0; rank < count; rank++) {
+                // Walk in priority order, with each later ordinal at its rank.
+                int ordinal;
+                if (next < order.length && this.laterRank[next] <= rank - next) {
+                    ordinal = this.laterOrder[next++];
+                } else {
+                    ordinal = rank - next;
+                }
+
+                if (registry.isRequired(ordinal))
+                    required[requiredCount++] = ordinal;
+                if (registry.envVariable(ordinal) != null || registry.configKey(ordinal) != null)
+                    fallback[fallbackCount++] = ordinal;
+
+                if (ordinal < this.offset) {
+                    if (base.isHelp(ordinal))
+                        help[helpCount++] = ordinal;
+                    continue;
+                }
+
+                for (String identifier : registry.identifiers(ordinal)) {
+                    if (registry.isCaseSensitive(ordinal) ? identifier.equals("--help") : identifier.equalsIgnoreCase("--help"))
+                        this.help[ordinal - this.offset] = true;
+                }
+                if (this.help[ordinal - this.offset])
+                    help[helpCount++] = ordinal;
+
+                if (ordinal < size && !registry.isInfinite(ordinal))
+                    maxArgCount = Math.max(maxArgCount, registry.argCount(ordinal));
+
+                this.clauses[ordinal - this.offset] = this.resolve(registry, ordinal);
+            }
+
+            // A base clause naming a positional parameter names it by the base's ordinals; find it again in this registry.
+            Map<Integer, int[]> rebased = Collections.emptyMap();
+            for (int ordinal = 0; ordinal < this.offset; ordinal++) {
+                int[] clauses = base.clauses(ordinal);
+                if (clauses == null)
+                    continue;
+
+                for (int clause : clauses) {
+                    if (clause >= this.offset) {
+                        if (rebased.isEmpty())
+                            rebased = new HashMap<>();
+                        rebased.put(ordinal, this.resolve(registry, ordinal));
+                        break;
+                    }
+                }
+            }
+
+            this.rebased = rebased;
+            this.required = Arrays.copyOf(required, requiredCount);
+            this.fallback = Arrays.copyOf(fallback, fallbackCount);
+            this.helpOrdinals = Arrays.copyOf(help, helpCount);
+            this.maxArgCount = maxArgCount;
+            this.checksum = checksum(registry);
+        }
+
+        /**
+         * Ordinals of the parameters named by this parameter's clauses. (null if it has none)
+         */
+        private int[] resolve(Registry registry, int ordinal) {
+            String[] clauses = registry.requiredClauses(ordinal);
+            if (clauses == null)
+                return null;
+
+            List<Parameter> positionals = registry.positionals;
+            int[] resolved = new int[clauses.length];
+            int count = 0;
+
+            for (String clause : clauses) {
+                int target = this.index.lookup(clause);
+                if (target < 0 && registry.base != null)
+                    target = registry.base.lookup(clause);
+                for (int i = 0; target < 0 && i < positionals.size(); i++) {
+                    if (positionals.get(i).matches(clause))
+                        target = registry.size() + i;
+                }
+                if (target >= 0)
+                    resolved[count++] = target;
+            }
+
+            return Arrays.copyOf(resolved, count);
+        }
+
+        private static int checksum(Registry registry) {
+            CRC32 crc = new CRC32();
+            ByteBuffer fields = ByteBuffer.allocate(16);
+
+            for (int ordinal = 0; ordinal <= registry.ordinalCount(); ordinal++) {
+                fields.clear();
+
+                if (ordinal == registry.ordinalCount()) {
+                    fields.putInt(-registry.positionals.size() - 1);
+                } else {
+                    int flags = (registry.isCaseSensitive(ordinal) ? 1 : 0) | (registry.isRequired(ordinal) ? 2 : 0)
+                            | (registry.isInfinite(ordinal) ? 4 : 0) | (registry.isRepeatable(ordinal) ? 8 : 0);
+
+                    fields.putInt(registry.argCount(ordinal)).putShort(registry.priority(ordinal)).putShort((short) flags);
+                    if (ordinal >= registry.size()) {
+                        Parameter positional = registry.get(ordinal);
+                        fields.putInt(positional.getMinArity()).putInt(positional.getMaxArity());
+                    }
+
+                    for (String identifier : registry.identifiers(ordinal)) {
+                        crc.update(identifier.getBytes(StandardCharsets.UTF_8));
+                        crc.update(0);
+                    }
+                }
+
+                crc.update(fields.array(), 0, fields.position());
+            }
+
+            return (int) crc.getValue();
+        }
+    }
+
+    /**
+     * Parameters of a registry in a given order of ordinals.
+     */
+    private static final class OrdinalView extends AbstractList<Parameter> implements RandomAccess {
+        private final Registry registry;
+        private final int[] ordinals;
+
+        private OrdinalView(Registry registry, int[] ordinals) {
+            this.registry = registry;
+            this.ordinals = ordinals;
+        }
+
+        @Override
+        public Parameter get(int index) {
+            return this.registry.get(this.ordinals[index]);
+        }
+
+        @Override
+        public int size() {
+            return this.ordinals.length;
+        }
+    }
+
+    /**
+     * The registered parameters of a sealed registry, created as they are accessed.
+     */
+    private static final class TableView extends AbstractList<Parameter> implements RandomAccess {
+        private final ParameterTable table;
+
+        private TableView(ParameterTable table) {
+            this.table = table;
+        }
+
+        @Override
+        public Parameter get(int index) {
+            if (index < 0 || index >= this.table.size)
+                throw new IndexOutOfBoundsException("Index: " + index);
+
+            return this.table.parameter(index);
+        }
+
+        @Override
+        public int size() {
+            return this.table.size;
+        }
+    }
+
+    /**
+     * Parameter list of a registry made by with(): the previous list with one parameter added, sorted into place on
+     * first read. Registrations in between are merged in the same pass, so the lists of snapshots nobody reads are never
+     * built. Threads racing to sort build equal lists, so no lock is needed.
+     */
+    private static final class PendingList extends AbstractList<Parameter> implements RandomAccess {
+
+        private static final class Addition {
+            final List<Parameter> previous;
+            final Parameter parameter;
+
+            Addition(List<Parameter> previous, Parameter parameter) {
+                this.previous = previous;
+                this.parameter = parameter;
+            }
+        }
+
+        /**
+         * The Addition until sorted, then the sorted list. (Dropping the Addition lets the chain before it go)
+         */
+        private volatile Object state;
+
+        PendingList(List<Parameter> previous, Parameter parameter) {
+            this.state = new Addition(previous, parameter);
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<Parameter> sorted() {
+            Object state = this.state;
+            if (state instanceof List)
+                return (List<Parameter>) state;
+
+            // Walk back to the last sorted list, collecting what was added since.
+            List<Parameter> added = new ArrayList<>();
+            List<Parameter> sorted = null;
+
+            while (sorted == null) {
+                Addition addition = (Addition) state;
+                added.add(addition.parameter);
+
+                if (addition.previous instanceof PendingList) {
+                    state = ((PendingList) addition.previous).state;
+                    if (state instanceof List)
+                        sorted = (List<Parameter>) state;
+                } else {
+                    sorted = addition.previous;
+                }
+            }
+
+            Collections.reverse(added);
+            List<Parameter> copy = new ArrayList<>(sorted.size() + added.size());
+            copy.addAll(sorted);
+            copy.addAll(added);
+            copy.sort((o1, o2) -> Short.compare(o2.getPriority(), o1.getPriority())); // Stable, so ties keep registration order
+
+            List<Parameter> result = Collections.unmodifiableList(copy);
+            this.state = result;
+            return result;
+        }
+
+        @Override
+        public Parameter get(int index) {
+            return this.sorted().get(index);
+        }
+
+        @Override
+        public int size() {
+            return this.sorted().size();
+        }
+
+        @Override
+        public Iterator<Parameter> iterator() {
+            return this.sorted().iterator();
+        }
+    }
+}
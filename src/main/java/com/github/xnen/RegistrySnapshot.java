@@ -0,0 +1,127 @@
+package com.github.xnen;
+
+import com.github.xnen.impl.IHandlerBinder;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * File form of a sealed registry, so large parameter sets don't have to be built, checked, sorted and indexed on every launch.
+ *
+ * Layout (big-endian), version 2:
+ * <pre>
+ *   int    magic ('PSNP')
+ *   short  version
+ *   int    fingerprint length, then its UTF-8 bytes (chosen by the application, i.e. its build id)
+ *   int    CRC32 of everything after it
+ *   the ParameterTable (shared string table, identifier/arg/clause refs, flags, stream args, priorities, timeouts)
+ *   the IdentifierIndex hash tables
+ * </pre>
+ * The file is memory-mapped and the arrays are copied out of the mapping in bulk; nothing is rehashed or sorted.
+ */
+final class RegistrySnapshot {
+
+    static final int MAGIC = 0x50534E50;
+    static final short VERSION = 2;
+
+    private RegistrySnapshot() {}
+
+    /**
+     * Write a sealed registry. The file is replaced in one step, so a concurrent reader sees the old or the new snapshot.
+     */
+    static void write(Registry registry, String fingerprint, Path path) throws IOException {
+        ParameterTable table = registry.table();
+        if (table == null)
+            throw new RuntimeException("Only a sealed registry can be written as a snapshot!");
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(body)) {
+            table.write(out, registry.index());
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(body.toByteArray());
+        byte[] fingerprintBytes = fingerprint.getBytes(StandardCharsets.UTF_8);
+
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null)
+            Files.createDirectories(directory);
+
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(temporary)); DataOutputStream out = new DataOutputStream(file)) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeInt(fingerprintBytes.length);
+                out.write(fingerprintBytes);
+                out.writeInt((int) crc.getValue());
+                body.writeTo(out);
+            }
+
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Read a snapshot written with the same fingerprint. null if there is none, or it is stale or damaged.
+     */
+    static ParameterTable read(Path path, String fingerprint, IHandlerBinder binder) throws IOException {
+        MappedByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                return null;
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION)
+                return null;
+
+            byte[] fingerprintBytes = new byte[buffer.getInt()];
+            buffer.get(fingerprintBytes);
+            if (!fingerprint.equals(new String(fingerprintBytes, StandardCharsets.UTF_8)))
+                return null;
+
+            int expected = buffer.getInt();
+            if (crc(buffer.duplicate()) != expected)
+                return null;
+
+            return new ParameterTable(buffer, binder);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            return null; // Truncated, or written by a different layout under the same version
+        }
+    }
+
+    private static int crc(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[8192];
+
+        while (buffer.hasRemaining()) {
+            int length = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, length);
+            crc.update(chunk, 0, length);
+        }
+
+        return (int) crc.getValue();
+    }
+}
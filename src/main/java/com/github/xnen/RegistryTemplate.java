@@ -0,0 +1,28 @@
+package com.github.xnen;
+
+import com.github.xnen.param.Parameter;
+
+import java.util.List;
+
+/**
+ * Sealed parameters shared by many Parameters instances, i.e. the common parameters of every tenant of a job host.
+ *
+ * Get one with Parameters.toTemplate() after seal(), then create each instance with new Parameters(template, ...).
+ * Instances share the template's parameters, tables and identifier index by reference, and only keep what they
+ * register() or override() themselves. Lookups check those first, then the template.
+ */
+public final class RegistryTemplate {
+
+    final Registry registry;
+
+    RegistryTemplate(Registry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Parameters of the template, sorted by priority. Unmodifiable.
+     */
+    public List<Parameter> getRegisteredParameters() {
+        return this.registry.parameters;
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.xnen;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs handlers that have a deadline on a shared pool of daemon threads, while the calling thread waits for them.
+ * A handler that overruns is interrupted and abandoned, so one stuck on I/O that ignores interrupts can't stall the caller.
+ * Handlers without a deadline never come here; they run on the calling thread as before.
+ *
+ * The pool grows as needed, since a bounded one would queue deadlines behind abandoned handlers. The cost is that an
+ * abandoned handler keeps its thread until it returns, and one that never returns leaks it; abandoned() counts them.
+ */
+final class Watchdog {
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+    private static final AtomicInteger ABANDONED = new AtomicInteger();
+
+    private static final int QUEUED = 0, RUNNING = 1, DONE = 2, ABANDON = 3;
+
+    private static final ExecutorService HANDLERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "parameters-handler-" + THREADS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Watchdog() {}
+
+    /**
+     * Handlers abandoned after their deadline that haven't returned yet.
+     */
+    static int abandoned() {
+        return ABANDONED.get();
+    }
+
+    /**
+     * Run the handler, waiting at most 'timeoutNanos' for it. Exceptions it throws are rethrown here.
+     */
+    static void run(Runnable handler, long timeoutNanos) throws TimeoutException {
+        AtomicInteger state = new AtomicInteger(QUEUED);
+
+        Future<?> future = HANDLERS.submit(() -> {
+            if (!state.compareAndSet(QUEUED, RUNNING))
+                return; // Abandoned before it started
+
+            try {
+                handler.run();
+            } finally {
+                if (!state.compareAndSet(RUNNING, DONE))
+                    ABANDONED.decrementAndGet();
+            }
+        });
+
+        try {
+            future.get(Math.max(0, timeoutNanos), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            abandon(state, future);
+            throw e;
+        } catch (InterruptedException e) {
+            abandon(state, future);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a handler!", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Interrupt the handler and stop waiting for it. One that already started counts as abandoned until it returns.
+     */
+    private static void abandon(AtomicInteger state, Future<?> future) {
+        ABANDONED.incrementAndGet(); // Counted first, so a handler returning meanwhile never takes the count below 0.
+        if (state.compareAndSet(QUEUED, ABANDON) || !state.compareAndSet(RUNNING, ABANDON))
+            ABANDONED.decrementAndGet();
+
+        future.cancel(true);
+    }
+}
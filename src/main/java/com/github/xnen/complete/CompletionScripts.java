@@ -0,0 +1,85 @@
+package com.github.xnen.complete;
+
+import com.github.xnen.Parameters;
+
+/**
+ * Generates shell completion scripts for a command built on Parameters.
+ * The scripts call "<command> __complete <index> <words...>" on every tab press and offer the lines it prints.
+ *
+ * (i.e. "mytool --completion-script bash > /etc/bash_completion.d/mytool")
+ */
+public final class CompletionScripts {
+
+    private CompletionScripts() {}
+
+    /**
+     * Script for bash. Source it, or place it in a bash_completion.d directory.
+     */
+    public static String bash(String command) {
+        String function = functionName(command);
+
+        return function + "() {\n" +
+                "    local IFS=$'\\n'\n" +
+                "    COMPREPLY=( $(" + quote(command) + " " + Parameters.COMPLETE + " \"$((COMP_CWORD - 1))\" \"${COMP_WORDS[@]:1}\" 2>/dev/null) )\n" +
+                "}\n" +
+                "complete -o default -F " + function + " " + quote(command) + "\n";
+    }
+
+    /**
+     * Script for zsh. Place it as '_<command>' in a directory on $fpath, or source it after compinit.
+     */
+    public static String zsh(String command) {
+        String function = functionName(command);
+
+        return "#compdef " + command + "\n" +
+                function + "() {\n" +
+                "    local -a candidates\n" +
+                "    candidates=(${(f)\"$(" + quote(command) + " " + Parameters.COMPLETE + " $((CURRENT - 2)) \"${(@)words[2,-1]}\" 2>/dev/null)\"})\n" +
+                "    compadd -a candidates\n" +
+                "}\n" +
+                "compdef " + function + " " + quote(command) + "\n";
+    }
+
+    /**
+     * Script for fish. Place it as '<command>.fish' in a fish completions directory.
+     */
+    public static String fish(String command) {
+        String function = functionName(command);
+
+        return "function " + function + "\n" +
+                "    set -l words (commandline -opc)[2..-1]\n" +
+                "    " + quote(command) + " " + Parameters.COMPLETE + " (count $words) $words (commandline -ct) 2>/dev/null\n" +
+                "end\n" +
+                "complete -c " + quote(command) + " -f -a '(" + function + ")'\n";
+    }
+
+    /**
+     * Shell function name for this command, i.e. "_my_tool_complete" for "my-tool".
+     */
+    private static String functionName(String command) {
+        StringBuilder sb = new StringBuilder("_");
+
+        for (int i = 0; i < command.length(); i++) {
+            char c = command.charAt(i);
+            sb.append(Character.isLetterOrDigit(c) ? c : '_');
+        }
+
+        return sb.append("_complete").toString();
+    }
+
+    /**
+     * Single-quote the command name if it has characters a shell would interpret.
+     */
+    private static String quote(String command) {
+        if (command.isEmpty())
+            throw new RuntimeException("Command name cannot be empty!");
+
+        for (int i = 0; i < command.length(); i++) {
+            char c = command.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '-' && c != '_' && c != '.' && c != '/')
+                return "'" + command.replace("'", "'\\''") + "'";
+        }
+
+        return command;
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.xnen.config;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A properties/INI style configuration file used as a fallback value source for parameters.
+ *
+ * The file is parsed once into sorted key/value arrays and kept until its modification time changes.
+ * Keys inside an INI '[section]' are stored as 'section.key'. Lines starting with '#' or ';' are comments.
+ * A missing file is treated as an empty configuration.
+ */
+public final class ConfigFile {
+
+    private static final String[] EMPTY = new String[0];
+
+    private final Path path;
+
+    private volatile FileTime modified;
+    private volatile Entries entries = new Entries(EMPTY, EMPTY);
+
+    public ConfigFile(Path path) {
+        if (path == null)
+            throw new RuntimeException("Config file path cannot be null!");
+
+        this.path = path;
+    }
+
+    /**
+     * Re-reads the file if its modification time differs from the cached copy.
+     */
+    public synchronized void reloadIfModified() {
+        FileTime current;
+
+        try {
+            current = Files.getLastModifiedTime(this.path);
+        } catch (NoSuchFileException e) {
+            this.modified = null;
+            this.entries = new Entries(EMPTY, EMPTY);
+            return;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read config file " + this.path, e);
+        }
+
+        if (current.equals(this.modified))
+            return;
+
+        this.entries = parse(this.path);
+        this.modified = current;
+    }
+
+    /**
+     * Value of this key from the cached copy of the file, or null if it isn't present.
+     * Call reloadIfModified() first to pick up changes on disk.
+     */
+    public String get(String key) {
+        return this.entries.get(key);
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    private static Entries parse(Path path) {
+        Map<String, String> values = new TreeMap<>();
+        String section = "";
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+
+                if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == ';')
+                    continue;
+
+                if (line.charAt(0) == '[' && line.charAt(line.length() - 1) == ']') {
+                    section = line.substring(1, line.length() - 1).trim();
+                    if (!section.isEmpty())
+                        section += ".";
+                    continue;
+                }
+
+                int split = separatorIndex(line);
+                if (split < 0) {
+                    values.put(section + line, ""); // A bare key is treated as a key with an empty value.
+                } else {
+                    values.put(section + line.substring(0, split).trim(), line.substring(split + 1).trim());
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return new Entries(EMPTY, EMPTY);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read config file " + path, e);
+        }
+
+        return new Entries(values.keySet().toArray(EMPTY), values.values().toArray(EMPTY));
+    }
+
+    private static int separatorIndex(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '=' || c == ':')
+                return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Sorted parallel arrays, searched with a binary search.
+     */
+    private static final class Entries {
+        private final String[] keys;
+        private final String[] values;
+
+        private Entries(String[] keys, String[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        private String get(String key) {
+            int index = Arrays.binarySearch(this.keys, key);
+            return index < 0 ? null : this.values[index];
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.xnen.config;
+
+/**
+ * Places a parameter's value can come from when it isn't passed on the command line.
+ * Command line arguments always take precedence over every ValueSource.
+ */
+public enum ValueSource {
+    /**
+     * Environment variable, as named by ParamBuilder.env()
+     */
+    ENVIRONMENT,
+
+    /**
+     * Key in the config file, as named by ParamBuilder.configKey()
+     */
+    CONFIG_FILE
+}
@@ -0,0 +1,36 @@
+package com.github.xnen.exception;
+
+import java.time.Duration;
+
+/**
+ * A handler ran past its deadline: its parameter's timeout(), or what was left of the invocation timeout.
+ * The handler was interrupted and left to finish (or not) on its own thread.
+ */
+public class HandlerTimeoutException extends ParameterException {
+    private static final long serialVersionUID = 1L;
+
+    public static final int ID = 5;
+
+    private final String identifier;
+    private final Duration elapsed;
+
+    public HandlerTimeoutException(String identifier, Duration elapsed) {
+        super(ID, "Handler of parameter '" + identifier + "' ran past its deadline after " + elapsed.toMillis() + "ms.");
+        this.identifier = identifier;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Main identifier of the parameter whose handler overran.
+     */
+    public String getIdentifier() {
+        return this.identifier;
+    }
+
+    /**
+     * How long the handler had been running when it was abandoned.
+     */
+    public Duration getElapsed() {
+        return this.elapsed;
+    }
+}
@@ -8,6 +8,15 @@ public class ParameterException extends Exception {
         this.id = id;
     }
 
+    /**
+     * Exception that optionally skips filling in its stack trace.
+     * Parameters throws these without a stack trace, as they describe bad input rather than a bug.
+     */
+    public ParameterException(int id, String message, boolean stackTrace) {
+        super(message, null, false, stackTrace);
+        this.id = id;
+    }
+
     public int getId() {
         return id;
     }
@@ -26,12 +26,12 @@ public class DefaultHelpHandler implements IHandler {
         System.exit(0);
     }
 
-    // TODO: .priority should max out at Short.MAX_VALUE - 1, as help should always be the highest priority
     public void showHelp() {
         StringBuilder sb = new StringBuilder("Usage: " + this.jarName + " ");
 
-        if (parameters.getDefaultParameter() != null) {
-            sb.append("[").append(parameters.getDefaultParameter().getMainIdentifier().toUpperCase(Locale.ROOT)).append("] ");
+        for (Parameter positional : parameters.getPositionalParameters()) {
+            String name = positional.getMainIdentifier().toUpperCase(Locale.ROOT) + (positional.getMaxArity() > 1 ? "..." : "");
+            sb.append(positional.isRequired() ? name : "[" + name + "]").append(" ");
         }
 
         for (Parameter parameter : this.parameters.getRegisteredParameters()) {
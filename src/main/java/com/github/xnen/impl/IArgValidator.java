@@ -0,0 +1,17 @@
+package com.github.xnen.impl;
+
+/**
+ * Validator that checks each argument on its own. All arguments must pass.
+ */
+public interface IArgValidator extends IValidator {
+    boolean test(String arg);
+
+    @Override
+    default boolean validate(String... args) {
+        for (String arg : args) {
+            if (!this.test(arg))
+                return false;
+        }
+        return true;
+    }
+}
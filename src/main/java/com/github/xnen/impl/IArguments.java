@@ -0,0 +1,19 @@
+package com.github.xnen.impl;
+
+/**
+ * Tokens of a command line, as seen by the parser.
+ * Identifiers are matched against view(), so an implementation only needs to build a String when get() is called.
+ */
+public interface IArguments {
+    int size();
+
+    /**
+     * The token's text. May be a view over a larger buffer, so it shouldn't be kept after parsing.
+     */
+    CharSequence view(int index);
+
+    /**
+     * The token as a String, for passing to handlers and validators.
+     */
+    String get(int index);
+}
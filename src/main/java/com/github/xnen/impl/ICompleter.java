@@ -0,0 +1,13 @@
+package com.github.xnen.impl;
+
+import java.util.List;
+
+/**
+ * Suggests values for a parameter's arguments during shell completion.
+ */
+public interface ICompleter {
+    /**
+     * Candidate values for the word being typed. (Usually those starting with 'prefix')
+     */
+    List<String> complete(String prefix);
+}
@@ -0,0 +1,20 @@
+package com.github.xnen.impl;
+
+/**
+ * Supplies the behaviour of parameters loaded from a registry snapshot, which only holds their shape.
+ * A parameter is bound the first time it is needed, i.e. when it is matched, so unused ones are never bound.
+ *
+ * 'ordinal' is the parameter's position in the priority-sorted registry the snapshot was written from,
+ * 'identifier' its main (first) identifier.
+ */
+public interface IHandlerBinder {
+    IHandler handler(int ordinal, String identifier);
+
+    default IValidator validator(int ordinal, String identifier) {
+        return null;
+    }
+
+    default ICompleter completer(int ordinal, String identifier) {
+        return null;
+    }
+}
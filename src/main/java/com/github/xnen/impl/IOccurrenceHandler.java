@@ -0,0 +1,18 @@
+package com.github.xnen.impl;
+
+import com.github.xnen.Occurrences;
+
+/**
+ * Handler for repeatable parameters that receives every occurrence at once, instead of their args flattened together.
+ */
+public interface IOccurrenceHandler extends IHandler {
+    void handle(Occurrences occurrences);
+
+    /**
+     * Called for a single occurrence, such as a value from a fallback source.
+     */
+    @Override
+    default void handle(String... args) {
+        this.handle(Occurrences.of(args));
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.xnen.impl;
+
+import com.github.xnen.param.Parameter;
+
+import java.util.Collection;
+
+/**
+ * Contributes parameters to an application. Listed in META-INF/services/com.github.xnen.impl.IParameterPlugin
+ * and found with ServiceLoader. (See Plugins)
+ *
+ * Implementations need a public no-arg constructor, and should return the same parameters every time.
+ */
+public interface IParameterPlugin {
+    Collection<Parameter> parameters();
+}
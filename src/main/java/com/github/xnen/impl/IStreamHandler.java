@@ -0,0 +1,22 @@
+package com.github.xnen.impl;
+
+import com.github.xnen.param.StreamArguments;
+
+import java.io.IOException;
+
+/**
+ * Handler for parameters with acceptInput() / acceptOutput() args, which opens them as channels instead of parsing paths.
+ * Everything opened through the StreamArguments is closed as soon as handle() returns or throws.
+ * An IOException is rethrown from Parameter.accept() as an UncheckedIOException.
+ */
+public interface IStreamHandler extends IHandler {
+    void handle(StreamArguments args) throws IOException;
+
+    /**
+     * Parameter.accept() calls handle(StreamArguments) instead; this is only reached when called directly.
+     */
+    @Override
+    default void handle(String... args) {
+        throw new RuntimeException("Stream handlers are called through Parameter.accept()!");
+    }
+}
@@ -1,8 +1,11 @@
 package com.github.xnen.param;
 
+import com.github.xnen.impl.ICompleter;
 import com.github.xnen.impl.IHandler;
 import com.github.xnen.impl.IValidator;
 
+import java.time.Duration;
+
 public final class ParamBuilder implements IdentifyStep, DescriptionStep, HandleStep {
 
     private final Parameter param;
@@ -55,7 +58,7 @@ public final class ParamBuilder implements IdentifyStep, DescriptionStep, Handle
     }
 
     /**
-     * What order should these arguments execute in? (Higher # => Earlier)
+     * What order should these arguments execute in? (Higher # => Earlier; --help always runs first, whatever its priority)
      */
     public ParamBuilder priority(short priority) {
         this.param.priority = priority;
@@ -70,6 +73,66 @@ public final class ParamBuilder implements IdentifyStep, DescriptionStep, Handle
         return this;
     }
 
+    /**
+     * Collect every occurrence of this parameter (i.e. "-D key value -D key value", "-v -v -v") instead of keeping only the last one.
+     * The handler is called once; use an IOccurrenceHandler to see each occurrence separately.
+     */
+    public ParamBuilder repeatable() {
+        this.param.repeatable = true;
+        return this;
+    }
+
+    /**
+     * Read this parameter from an environment variable when it isn't passed as an argument.
+     * Flags are enabled unless the variable is empty, 'false' or '0'.
+     */
+    public ParamBuilder env(String variable) {
+        this.param.envVariable = variable;
+        return this;
+    }
+
+    /**
+     * Read this parameter from the Parameters' config file when it isn't passed as an argument.
+     * Flags are enabled unless the value is empty, 'false' or '0'.
+     */
+    public ParamBuilder configKey(String key) {
+        this.param.configKey = key;
+        return this;
+    }
+
+    /**
+     * How should values for this parameter's arguments be suggested during shell completion?
+     */
+    public ParamBuilder completer(ICompleter completer) {
+        this.param.completer = completer;
+        return this;
+    }
+
+    /**
+     * How many leftover tokens does this parameter take when it is a positional parameter? (i.e. 1 and Integer.MAX_VALUE
+     * for SRC..., then 1 and 1 for DEST) Fewer than 'min' is an arity error, unless it gets none at all.
+     */
+    public ParamBuilder arity(int min, int max) {
+        if (min < 0 || max < 1 || min > max)
+            throw new RuntimeException("Arity must be 0 <= min <= max, and max at least 1!");
+
+        this.param.minArity = min;
+        this.param.maxArity = max;
+        return this;
+    }
+
+    /**
+     * How long may the handler run? Past this it is interrupted and abandoned, and dispatch reports a HandlerTimeoutException.
+     * Handlers with a timeout run on a watchdog thread instead of the calling thread.
+     */
+    public ParamBuilder timeout(Duration timeout) {
+        if (timeout == null || timeout.isNegative() || timeout.isZero())
+            throw new RuntimeException("Timeout must be positive!");
+
+        this.param.timeout = timeout;
+        return this;
+    }
+
     /**
      * What text should this parameter look for to identify itself?
      * (i.e. "--test", "-t")
@@ -107,12 +170,44 @@ public final class ParamBuilder implements IdentifyStep, DescriptionStep, Handle
         return this;
     }
 
+    /**
+     * Accept an argument naming something to read: a path, or "-" for stdin.
+     * With an IStreamHandler, it is opened as a channel when the handler asks for it, and closed after.
+     */
+    public ParamBuilder acceptInput(String clarifier) {
+        this.param.inputArgs |= this.streamArg(clarifier);
+        return this;
+    }
+
+    /**
+     * Accept an argument naming somewhere to write: a path, or "-" for stdout.
+     * With an IStreamHandler, it is opened (created or truncated) when the handler asks for it, and closed after.
+     */
+    public ParamBuilder acceptOutput(String clarifier) {
+        this.param.outputArgs |= this.streamArg(clarifier);
+        return this;
+    }
+
+    private int streamArg(String clarifier) {
+        if (this.param.infinite)
+            throw new RuntimeException("Parameters with infinite args cannot take streams!");
+
+        int index = this.param.getArgCount();
+        if (index >= 32)
+            throw new RuntimeException("Only the first 32 args can be streams!");
+
+        this.param.addArg(clarifier);
+        return 1 << index;
+    }
+
     /**
      * Sets up parameter to accept an infinite amount of arguments after its identifier (until a future identifier is found)
      * ** NOTE ** This will CLEAR all previous arguments added to this parameter.
      */
     public ParamBuilder acceptsInfiniteArgs(String clarifier) {
         this.param.infinite = true;
+        this.param.inputArgs = 0;
+        this.param.outputArgs = 0;
         this.param.args.clear();
         this.param.args.add(clarifier);
         return this;
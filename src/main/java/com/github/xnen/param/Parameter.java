@@ -1,8 +1,15 @@
 package com.github.xnen.param;
 
+import com.github.xnen.Occurrences;
+import com.github.xnen.impl.ICompleter;
 import com.github.xnen.impl.IHandler;
+import com.github.xnen.impl.IOccurrenceHandler;
+import com.github.xnen.impl.IStreamHandler;
 import com.github.xnen.impl.IValidator;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,9 +26,29 @@ public class Parameter {
     boolean required;
 
     boolean infinite;
+    boolean repeatable;
 
     short priority;
 
+    String envVariable;
+    String configKey;
+
+    ICompleter completer;
+
+    Duration timeout;
+
+    /**
+     * Bit i is set if arg i was added with acceptInput() / acceptOutput().
+     */
+    int inputArgs;
+    int outputArgs;
+
+    /**
+     * Tokens taken when bound as a positional parameter, set with arity(). (-1 until then)
+     */
+    int minArity = -1;
+    int maxArity = -1;
+
     List<String> args = new ArrayList<>();
 
     Parameter() {}
@@ -47,6 +74,13 @@ public class Parameter {
         return required;
     }
 
+    /**
+     * Are this parameter's identifiers matched case-sensitively?
+     */
+    public boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
     /**
      * Tests if this parameter's validator accepts these args
      */
@@ -59,7 +93,66 @@ public class Parameter {
      * Use this parameter's handler to handle these args
      */
     public void accept(String[] args) {
-        this.handler.handle(args);
+        if (this.handler instanceof IStreamHandler) {
+            this.acceptStreams(args);
+        } else {
+            this.handler.handle(args);
+        }
+    }
+
+    /**
+     * Use this parameter's handler to handle every occurrence of a repeatable parameter.
+     * IOccurrenceHandlers receive the occurrences, other handlers receive the args of all occurrences one after another.
+     */
+    public void accept(Occurrences occurrences) {
+        if (this.handler instanceof IStreamHandler) {
+            for (int i = 0; i < occurrences.count(); i++) {
+                this.acceptStreams(occurrences.args(i));
+            }
+        } else if (this.handler instanceof IOccurrenceHandler) {
+            ((IOccurrenceHandler) this.handler).handle(occurrences);
+        } else {
+            this.handler.handle(occurrences.flat());
+        }
+    }
+
+    /**
+     * Call the stream handler, closing whatever it opened once it returns.
+     */
+    private void acceptStreams(String[] args) {
+        try (StreamArguments streams = new StreamArguments(args, this.inputArgs, this.outputArgs)) {
+            ((IStreamHandler) this.handler).handle(streams);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Was arg 'index' added with acceptInput()? (a path, or "-" for stdin)
+     */
+    public boolean isInput(int index) {
+        return index < 32 && (this.inputArgs & (1 << index)) != 0;
+    }
+
+    /**
+     * Was arg 'index' added with acceptOutput()? (a path, or "-" for stdout)
+     */
+    public boolean isOutput(int index) {
+        return index < 32 && (this.outputArgs & (1 << index)) != 0;
+    }
+
+    /**
+     * Bit i set for every arg i added with acceptInput(). (Only the first 32 args can be streams)
+     */
+    public int getInputArgs() {
+        return this.inputArgs;
+    }
+
+    /**
+     * Bit i set for every arg i added with acceptOutput().
+     */
+    public int getOutputArgs() {
+        return this.outputArgs;
     }
 
     /**
@@ -84,6 +177,43 @@ public class Parameter {
         return false;
     }
 
+    /**
+     * Does this parameter match with this token? Same as matches(String), without needing a String.
+     */
+    public boolean matches(CharSequence token) {
+        if (token == null || token instanceof String)
+            return this.matches((String) token);
+
+        for (String id : identifiers) {
+            if (id.length() == token.length() && regionMatches(id, token)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean regionMatches(String id, CharSequence token) {
+        for (int i = 0; i < id.length(); i++) {
+            char a = id.charAt(i);
+            char b = token.charAt(i);
+
+            if (a == b)
+                continue;
+
+            if (this.caseSensitive)
+                return false;
+
+            // Same comparison as String.equalsIgnoreCase
+            char upperA = Character.toUpperCase(a);
+            char upperB = Character.toUpperCase(b);
+            if (upperA != upperB && Character.toLowerCase(upperA) != Character.toLowerCase(upperB))
+                return false;
+        }
+
+        return true;
+    }
+
     public int getArgCount() {
         if (this.args == null) return 0;
         return this.args.size();
@@ -97,6 +227,31 @@ public class Parameter {
         return this.infinite;
     }
 
+    /**
+     * Are all occurrences of this parameter collected, rather than only the last one?
+     */
+    public boolean isRepeatable() {
+        return this.repeatable;
+    }
+
+    /**
+     * Fewest leftover tokens this parameter takes as a positional parameter. Unless set with arity(), a required
+     * parameter needs all its args (one more than getArgCount(), or one if infinite), and an optional one takes any.
+     */
+    public int getMinArity() {
+        if (this.minArity >= 0) return this.minArity;
+        if (!this.required) return 0;
+        return this.infinite ? 1 : this.getArgCount() + 1;
+    }
+
+    /**
+     * Most leftover tokens this parameter takes as a positional parameter. (Integer.MAX_VALUE for no limit)
+     */
+    public int getMaxArity() {
+        if (this.maxArity >= 0) return this.maxArity;
+        return this.infinite ? Integer.MAX_VALUE : this.getArgCount() + 1;
+    }
+
     @Override public String toString() {
         StringBuilder sb = new StringBuilder(this.identifiers[0]);
         for (String s : this.args) sb.append(" <").append(s).append(">");
@@ -114,4 +269,46 @@ public class Parameter {
     public String[] getIdentifiers() {
         return this.identifiers;
     }
+
+    /**
+     * Environment variable this parameter falls back to when not passed as an argument. (null if none)
+     */
+    public String getEnvVariable() {
+        return this.envVariable;
+    }
+
+    /**
+     * Config file key this parameter falls back to when not passed as an argument. (null if none)
+     */
+    public String getConfigKey() {
+        return this.configKey;
+    }
+
+    /**
+     * Suggests values for this parameter's arguments during shell completion. (null if it has none)
+     */
+    public ICompleter getCompleter() {
+        return this.completer;
+    }
+
+    /**
+     * Handler called with this parameter's args.
+     */
+    public IHandler getHandler() {
+        return this.handler;
+    }
+
+    /**
+     * Validator checking this parameter's args. (null if none)
+     */
+    public IValidator getValidator() {
+        return this.validator;
+    }
+
+    /**
+     * How long the handler may run before it is interrupted and abandoned. (null if it may run forever)
+     */
+    public Duration getTimeout() {
+        return this.timeout;
+    }
 }
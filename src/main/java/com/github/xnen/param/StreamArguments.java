@@ -0,0 +1,201 @@
+package com.github.xnen.param;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Args of a parameter with acceptInput() / acceptOutput() args, as given to an IStreamHandler.
+ *
+ * An input or output arg is a path, or "-" for stdin / stdout. Nothing is opened until the handler asks for it, and
+ * everything opened is closed (in reverse order) when the handler returns. Stdin and stdout are flushed, not closed.
+ */
+public final class StreamArguments implements Closeable {
+
+    /**
+     * The arg meaning stdin for inputs and stdout for outputs.
+     */
+    public static final String STANDARD = "-";
+
+    private final String[] args;
+    private final int inputs;
+    private final int outputs;
+
+    private final List<Closeable> opened = new ArrayList<>();
+
+    StreamArguments(String[] args, int inputs, int outputs) {
+        this.args = args;
+        this.inputs = inputs;
+        this.outputs = outputs;
+    }
+
+    public int size() {
+        return this.args.length;
+    }
+
+    /**
+     * The arg as passed.
+     */
+    public String get(int index) {
+        return this.args[index];
+    }
+
+    /**
+     * Every arg as passed.
+     */
+    public String[] toArray() {
+        return Arrays.copyOf(this.args, this.args.length);
+    }
+
+    /**
+     * Is this arg stdin or stdout?
+     */
+    public boolean isStandard(int index) {
+        return STANDARD.equals(this.args[index]);
+    }
+
+    /**
+     * Path of an input or output arg. (null for "-")
+     */
+    public Path path(int index) {
+        return this.isStandard(index) ? null : Paths.get(this.args[index]);
+    }
+
+    /**
+     * Open an input arg for reading. Bytes are read only as the handler reads the channel.
+     */
+    public ReadableByteChannel input(int index) throws IOException {
+        this.check(index, this.inputs, "an input");
+
+        ReadableByteChannel channel = this.isStandard(index)
+                ? Channels.newChannel(new FilterInputStream(System.in) {
+                    @Override
+                    public void close() {
+                        // stdin stays open for the rest of the application
+                    }
+                })
+                : FileChannel.open(this.path(index), StandardOpenOption.READ);
+
+        return this.track(channel);
+    }
+
+    /**
+     * Open an input arg as UTF-8 text.
+     */
+    public BufferedReader reader(int index) throws IOException {
+        return this.track(new BufferedReader(Channels.newReader(this.input(index), StandardCharsets.UTF_8.newDecoder(), -1)));
+    }
+
+    /**
+     * Map a regular file input into memory, read-only, for random access to large files without copying them.
+     * stdin can't be mapped, so it is read fully into a heap buffer instead.
+     */
+    public ByteBuffer map(int index) throws IOException {
+        this.check(index, this.inputs, "an input");
+
+        if (this.isStandard(index))
+            return readFully(System.in).asReadOnlyBuffer();
+
+        try (FileChannel channel = FileChannel.open(this.path(index), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("File is too large to map: " + this.args[index]);
+
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // Stays valid after the channel is closed
+        }
+    }
+
+    /**
+     * Open an output arg for writing. Files are created, or truncated if they exist.
+     */
+    public WritableByteChannel output(int index) throws IOException {
+        this.check(index, this.outputs, "an output");
+
+        WritableByteChannel channel = this.isStandard(index)
+                ? Channels.newChannel(new FilterOutputStream(System.out) {
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        this.out.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        this.flush(); // stdout stays open for the rest of the application
+                    }
+                })
+                : FileChannel.open(this.path(index), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        return this.track(channel);
+    }
+
+    /**
+     * Open an output arg as UTF-8 text.
+     */
+    public BufferedWriter writer(int index) throws IOException {
+        return this.track(new BufferedWriter(Channels.newWriter(this.output(index), StandardCharsets.UTF_8.newEncoder(), -1)));
+    }
+
+    /**
+     * Close everything opened, last first. Called by Parameter.accept() once the handler is done.
+     */
+    @Override
+    public void close() {
+        IOException failure = null;
+
+        for (int i = this.opened.size() - 1; i >= 0; i--) {
+            try {
+                this.opened.get(i).close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        this.opened.clear();
+
+        if (failure != null)
+            throw new UncheckedIOException(failure);
+    }
+
+    private void check(int index, int kinds, String kind) {
+        if (index < 0 || index >= this.args.length || index >= 32 || (kinds & (1 << index)) == 0)
+            throw new RuntimeException("Arg " + index + " is not " + kind + "!");
+    }
+
+    private <T extends Closeable> T track(T closeable) {
+        this.opened.add(closeable);
+        return closeable;
+    }
+
+    private static ByteBuffer readFully(InputStream in) throws IOException {
+        byte[] bytes = new byte[8192];
+        int length = 0;
+
+        for (int read; (read = in.read(bytes, length, bytes.length - length)) >= 0; ) {
+            length += read;
+            if (length == bytes.length)
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+
+        return ByteBuffer.wrap(bytes, 0, length).slice();
+    }
+}
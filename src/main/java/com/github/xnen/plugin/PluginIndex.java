@@ -0,0 +1,220 @@
+package com.github.xnen.plugin;
+
+import com.github.xnen.impl.IParameterPlugin;
+import com.github.xnen.param.Parameter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Index of every parameter the plugins on a class path contribute: everything needed to match and describe them,
+ * without their handlers. Written at build time, so the application can register plugins without loading them.
+ *
+ * Generate it after compiling, with the plugins on the class path:
+ * <pre>
+ *   java -cp target/classes:... com.github.xnen.plugin.PluginIndex target/classes
+ * </pre>
+ * (i.e. from exec-maven-plugin in the process-classes phase) which writes target/classes/META-INF/parameters/plugins.idx
+ *
+ * Layout (DataOutput), version 3:
+ * <pre>
+ *   int    magic ('PIDX')
+ *   short  version
+ *   int    entry count, then for each parameter:
+ *          UTF plugin class, UTF[] identifiers, UTF[] arg clarifiers, UTF description
+ *          byte flags (case sensitive, required, infinite, repeatable, has validator, has completer)
+ *          int input args, int output args (bit i set if arg i is an acceptInput() / acceptOutput() stream)
+ *          UTF[] required clauses, short priority, UTF env variable, UTF config key, long timeout (ns, -1 if none)
+ * </pre>
+ * Arrays are written as an int count (-1 for null) followed by their elements, and strings that may be null as a
+ * boolean (present?) followed by their UTF.
+ */
+public final class PluginIndex {
+
+    public static final String RESOURCE = "META-INF/parameters/plugins.idx";
+
+    static final int MAGIC = 0x50494458;
+    static final short VERSION = 3;
+
+    static final int CASE_SENSITIVE = 1;
+    static final int REQUIRED = 1 << 1;
+    static final int INFINITE = 1 << 2;
+    static final int REPEATABLE = 1 << 3;
+    static final int VALIDATOR = 1 << 4;
+    static final int COMPLETER = 1 << 5;
+
+    private PluginIndex() {}
+
+    /**
+     * Write the index of every plugin ServiceLoader finds on the class path to '<directory>/META-INF/parameters/plugins.idx'.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1)
+            throw new RuntimeException("Usage: PluginIndex <output directory>");
+
+        Path file = Paths.get(args[0]).resolve(RESOURCE);
+        Files.createDirectories(file.getParent());
+
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out, ServiceLoader.load(IParameterPlugin.class));
+        }
+    }
+
+    /**
+     * Index these plugins' parameters.
+     */
+    public static void write(OutputStream out, Iterable<? extends IParameterPlugin> plugins) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+
+        for (IParameterPlugin plugin : plugins) {
+            for (Parameter parameter : plugin.parameters()) {
+                entries.add(new Entry(plugin.getClass().getName(), parameter));
+            }
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeInt(entries.size());
+
+        for (Entry entry : entries) {
+            entry.write(data);
+        }
+
+        data.flush();
+    }
+
+    /**
+     * Read an index written by write().
+     */
+    static List<Entry> read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+
+        if (data.readInt() != MAGIC)
+            throw new IOException("Not a plugin index!");
+
+        short version = data.readShort();
+        if (version != VERSION)
+            throw new IOException("Unsupported plugin index version " + version + "!");
+
+        int count = data.readInt();
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(Entry.read(data));
+        }
+
+        return entries;
+    }
+
+    /**
+     * One indexed parameter.
+     */
+    static final class Entry {
+        final String plugin;
+        final String[] identifiers;
+        final String[] args;
+        final String description;
+        final int flags;
+        final int inputArgs;
+        final int outputArgs;
+        final String[] clauses;
+        final short priority;
+        final String envVariable;
+        final String configKey;
+        final long timeoutNanos;
+
+        private Entry(String plugin, Parameter parameter) {
+            this.plugin = plugin;
+            this.identifiers = parameter.getIdentifiers();
+            this.args = parameter.getArgs().toArray(new String[0]);
+            this.description = parameter.getDescription();
+            this.flags = (parameter.isCaseSensitive() ? CASE_SENSITIVE : 0)
+                    | (parameter.isRequired() ? REQUIRED : 0)
+                    | (parameter.isInfinite() ? INFINITE : 0)
+                    | (parameter.isRepeatable() ? REPEATABLE : 0)
+                    | (parameter.getValidator() != null ? VALIDATOR : 0)
+                    | (parameter.getCompleter() != null ? COMPLETER : 0);
+            this.inputArgs = parameter.getInputArgs();
+            this.outputArgs = parameter.getOutputArgs();
+            this.clauses = parameter.getRequiredClauses();
+            this.priority = parameter.getPriority();
+            this.envVariable = parameter.getEnvVariable();
+            this.configKey = parameter.getConfigKey();
+            this.timeoutNanos = parameter.getTimeout() == null ? -1 : parameter.getTimeout().toNanos();
+        }
+
+        private Entry(DataInputStream data) throws IOException {
+            this.plugin = data.readUTF();
+            this.identifiers = readArray(data);
+            this.args = readArray(data);
+            this.description = readString(data);
+            this.flags = data.readByte();
+            this.inputArgs = data.readInt();
+            this.outputArgs = data.readInt();
+            this.clauses = readArray(data);
+            this.priority = data.readShort();
+            this.envVariable = readString(data);
+            this.configKey = readString(data);
+            this.timeoutNanos = data.readLong();
+        }
+
+        static Entry read(DataInputStream data) throws IOException {
+            return new Entry(data);
+        }
+
+        boolean has(int flag) {
+            return (this.flags & flag) != 0;
+        }
+
+        private void write(DataOutputStream data) throws IOException {
+            data.writeUTF(this.plugin);
+            writeArray(data, this.identifiers);
+            writeArray(data, this.args);
+            writeString(data, this.description);
+            data.writeByte(this.flags);
+            data.writeInt(this.inputArgs);
+            data.writeInt(this.outputArgs);
+            writeArray(data, this.clauses);
+            data.writeShort(this.priority);
+            writeString(data, this.envVariable);
+            writeString(data, this.configKey);
+            data.writeLong(this.timeoutNanos);
+        }
+
+        private static void writeArray(DataOutputStream data, String[] values) throws IOException {
+            data.writeInt(values == null ? -1 : values.length);
+            if (values != null) {
+                for (String value : values) data.writeUTF(value);
+            }
+        }
+
+        private static String[] readArray(DataInputStream data) throws IOException {
+            int count = data.readInt();
+            if (count < 0)
+                return null;
+
+            String[] values = new String[count];
+            for (int i = 0; i < count; i++) values[i] = data.readUTF();
+            return values;
+        }
+
+        private static void writeString(DataOutputStream data, String value) throws IOException {
+            data.writeBoolean(value != null);
+            if (value != null)
+                data.writeUTF(value);
+        }
+
+        private static String readString(DataInputStream data) throws IOException {
+            return data.readBoolean() ? data.readUTF() : null;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.github.xnen.plugin;
+
+import com.github.xnen.Occurrences;
+import com.github.xnen.Parameters;
+import com.github.xnen.impl.ICompleter;
+import com.github.xnen.impl.IOccurrenceHandler;
+import com.github.xnen.impl.IParameterPlugin;
+import com.github.xnen.impl.IValidator;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.param.Parameter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * Registers the parameters of IParameterPlugins.
+ *
+ * With a PluginIndex on the class path, parameters are registered from the index alone: a plugin's class is only loaded
+ * (and instantiated) the first time one of its parameters is handled, validated or completed. Plugins ServiceLoader finds
+ * but no index lists are instantiated up front, as every plugin is when there is no index at all.
+ */
+public final class Plugins {
+
+    private static final String SERVICES = "META-INF/services/" + IParameterPlugin.class.getName();
+
+    private Plugins() {}
+
+    /**
+     * Register every plugin's parameters, from the index if there is one. Returns how many were registered.
+     */
+    public static int register(Parameters parameters, ClassLoader loader) {
+        List<PluginIndex.Entry> entries = readIndexes(loader);
+
+        if (entries == null) {
+            List<Parameter> all = new ArrayList<>();
+            for (IParameterPlugin plugin : ServiceLoader.load(IParameterPlugin.class, loader)) {
+                all.addAll(plugin.parameters());
+            }
+
+            parameters.registerAll(all);
+            return all.size();
+        }
+
+        Map<String, LazyPlugin> plugins = new HashMap<>();
+        List<Parameter> all = new ArrayList<>(entries.size());
+
+        for (PluginIndex.Entry entry : entries) {
+            LazyPlugin plugin = plugins.computeIfAbsent(entry.plugin, name -> new LazyPlugin(name, loader));
+            all.add(placeholder(entry, plugin));
+        }
+
+        // A jar built without an index still has its plugins registered, the usual way.
+        for (String provider : readProviders(loader)) {
+            if (!plugins.containsKey(provider))
+                all.addAll(instantiate(provider, loader).parameters());
+        }
+
+        parameters.registerAll(all);
+        return all.size();
+    }
+
+    /**
+     * Every index on the class path, concatenated. (null if there are none)
+     * A plugin listed by more than one index (the same jar twice on the class path, say) keeps the entries of the first.
+     */
+    private static List<PluginIndex.Entry> readIndexes(ClassLoader loader) {
+        List<PluginIndex.Entry> entries = null;
+        Set<String> indexed = new HashSet<>();
+
+        try {
+            Enumeration<URL> indexes = loader.getResources(PluginIndex.RESOURCE);
+
+            while (indexes.hasMoreElements()) {
+                try (InputStream in = indexes.nextElement().openStream()) {
+                    if (entries == null)
+                        entries = new ArrayList<>();
+
+                    Set<String> plugins = new HashSet<>();
+                    for (PluginIndex.Entry entry : PluginIndex.read(in)) {
+                        if (!indexed.contains(entry.plugin)) {
+                            entries.add(entry);
+                            plugins.add(entry.plugin);
+                        }
+                    }
+
+                    indexed.addAll(plugins);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read plugin index", e);
+        }
+
+        return entries;
+    }
+
+    /**
+     * Class names of the plugins ServiceLoader would find, in order and without duplicates, without loading them.
+     */
+    private static Set<String> readProviders(ClassLoader loader) {
+        Set<String> providers = new LinkedHashSet<>();
+
+        try {
+            Enumeration<URL> files = loader.getResources(SERVICES);
+
+            while (files.hasMoreElements()) {
+                try (BufferedReader in = new BufferedReader(new InputStreamReader(files.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        int comment = line.indexOf('#');
+                        String name = (comment >= 0 ? line.substring(0, comment) : line).trim();
+
+                        if (!name.isEmpty())
+                            providers.add(name);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + SERVICES, e);
+        }
+
+        return providers;
+    }
+
+    private static IParameterPlugin instantiate(String className, ClassLoader loader) {
+        try {
+            return Class.forName(className, true, loader).asSubclass(IParameterPlugin.class).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Could not load plugin " + className + "!", e);
+        }
+    }
+
+    /**
+     * A parameter with the indexed shape, whose handler, validator and completer load the plugin on first use.
+     */
+    private static Parameter placeholder(PluginIndex.Entry entry, LazyPlugin plugin) {
+        String identifier = entry.identifiers[0];
+
+        ParamBuilder builder = ParamBuilder.with()
+                .identifier(entry.identifiers)
+                .description(entry.description)
+                .handler(new IOccurrenceHandler() {
+                    @Override
+                    public void handle(Occurrences occurrences) {
+                        plugin.parameter(identifier).accept(occurrences);
+                    }
+
+                    @Override
+                    public void handle(String... args) {
+                        plugin.parameter(identifier).accept(args);
+                    }
+                })
+                .priority(entry.priority)
+                .env(entry.envVariable)
+                .configKey(entry.configKey);
+
+        if (entry.has(PluginIndex.CASE_SENSITIVE))
+            builder.caseSensitive();
+        if (entry.has(PluginIndex.REQUIRED))
+            builder.requiredUnless(entry.clauses);
+        if (entry.has(PluginIndex.REPEATABLE))
+            builder.repeatable();
+        if (entry.has(PluginIndex.VALIDATOR))
+            builder.validator((IValidator) args -> plugin.parameter(identifier).isValid(args));
+        if (entry.has(PluginIndex.COMPLETER))
+            builder.completer((ICompleter) prefix -> plugin.parameter(identifier).getCompleter().complete(prefix));
+        if (entry.timeoutNanos >= 0)
+            builder.timeout(Duration.ofNanos(entry.timeoutNanos));
+
+        for (int i = 0; i < entry.args.length; i++) {
+            String clarifier = entry.args[i];
+
+            if (entry.has(PluginIndex.INFINITE)) {
+                builder.acceptsInfiniteArgs(clarifier);
+            } else if (i < 32 && (entry.inputArgs & (1 << i)) != 0) {
+                builder.acceptInput(clarifier);
+            } else if (i < 32 && (entry.outputArgs & (1 << i)) != 0) {
+                builder.acceptOutput(clarifier);
+            } else {
+                builder.acceptArg(clarifier);
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * A plugin that hasn't been loaded yet. The first call to parameter() loads and instantiates it.
+     */
+    private static final class LazyPlugin {
+        private final String className;
+        private final ClassLoader loader;
+        private volatile Map<String, Parameter> parameters;
+
+        private LazyPlugin(String className, ClassLoader loader) {
+            this.className = className;
+            this.loader = loader;
+        }
+
+        Parameter parameter(String identifier) {
+            Parameter parameter = this.load().get(identifier);
+
+            if (parameter == null)
+                throw new RuntimeException("Plugin " + this.className + " no longer has parameter '" + identifier + "', rebuild the plugin index!");
+
+            return parameter;
+        }
+
+        private Map<String, Parameter> load() {
+            Map<String, Parameter> parameters = this.parameters;
+            if (parameters != null)
+                return parameters;
+
+            synchronized (this) {
+                if (this.parameters == null) {
+                    IParameterPlugin plugin = instantiate(this.className, this.loader);
+
+                    Map<String, Parameter> loaded = new HashMap<>();
+                    for (Parameter parameter : plugin.parameters()) {
+                        loaded.put(parameter.getMainIdentifier(), parameter);
+                    }
+
+                    this.parameters = Collections.unmodifiableMap(loaded);
+                }
+
+                return this.parameters;
+            }
+        }
+    }
+}
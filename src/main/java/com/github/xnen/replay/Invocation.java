@@ -0,0 +1,69 @@
+package com.github.xnen.replay;
+
+import java.util.Arrays;
+
+/**
+ * One process() call from an invocation log: its args, how it ended and how long it took.
+ */
+public final class Invocation {
+
+    private final long timestamp;
+    private final String[] args;
+    private final Outcome outcome;
+    private final int errorId;
+    private final long parseNanos;
+    private final long dispatchNanos;
+
+    public Invocation(long timestamp, String[] args, Outcome outcome, int errorId, long parseNanos, long dispatchNanos) {
+        if (args == null || outcome == null)
+            throw new RuntimeException("Args and outcome cannot be null!");
+
+        this.timestamp = timestamp;
+        this.args = args;
+        this.outcome = outcome;
+        this.errorId = errorId;
+        this.parseNanos = parseNanos;
+        this.dispatchNanos = dispatchNanos;
+    }
+
+    /**
+     * When it started, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * The args, with redacted values replaced by InvocationLog.REDACTED.
+     */
+    public String[] getArgs() {
+        return this.args;
+    }
+
+    public Outcome getOutcome() {
+        return this.outcome;
+    }
+
+    /**
+     * ParameterException id of a PARSE_ERROR or HANDLER_ERROR, or -1. (i.e. a handler throwing a RuntimeException)
+     */
+    public int getErrorId() {
+        return this.errorId;
+    }
+
+    public long getParseNanos() {
+        return this.parseNanos;
+    }
+
+    /**
+     * Time spent running handlers. (0 if parsing failed)
+     */
+    public long getDispatchNanos() {
+        return this.dispatchNanos;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(this.args) + " -> " + this.outcome + (this.errorId >= 0 ? " (" + this.errorId + ")" : "");
+    }
+}
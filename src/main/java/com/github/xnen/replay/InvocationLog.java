@@ -0,0 +1,209 @@
+package com.github.xnen.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary log of process() calls, written by Parameters.startRecording() and read back for a Replayer.
+ *
+ * Layout (big-endian), version 1. Numbers marked var are unsigned LEB128, so most take one or two bytes:
+ * <pre>
+ *   int    magic ('PLOG')
+ *   short  version
+ *   then for each invocation:
+ *     var  length of the rest of the record
+ *     var  timestamp (ms since the epoch)
+ *     byte outcome (Outcome ordinal)
+ *     var  error id + 1 (0 for none)
+ *     var  parse nanos, dispatch nanos
+ *     var  arg count, then for each arg its UTF-8 length and bytes
+ * </pre>
+ * A record cut short (i.e. by a crash while writing) ends the log.
+ */
+public final class InvocationLog {
+
+    static final int MAGIC = 0x504C4F47;
+    static final short VERSION = 1;
+
+    /**
+     * Written in place of redacted values.
+     */
+    public static final String REDACTED = "***";
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private InvocationLog() {}
+
+    /**
+     * Open a log for appending, creating it if missing.
+     */
+    public static Writer append(Path path) throws IOException {
+        boolean exists = Files.exists(path) && Files.size(path) > 0;
+
+        if (exists) {
+            try (InputStream in = Files.newInputStream(path)) {
+                readHeader(new DataInputStream(in));
+            }
+        }
+
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 1 << 16);
+        if (!exists) {
+            out.write(new byte[] { (byte) (MAGIC >>> 24), (byte) (MAGIC >>> 16), (byte) (MAGIC >>> 8), (byte) MAGIC,
+                    (byte) (VERSION >>> 8), (byte) VERSION });
+        }
+
+        return new Writer(out);
+    }
+
+    /**
+     * Every invocation in a log, in the order they were written.
+     */
+    public static List<Invocation> read(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        List<Invocation> invocations = new ArrayList<>();
+
+        if (buffer.remaining() < 6 || buffer.getInt() != MAGIC)
+            throw new IOException("Not an invocation log!");
+
+        short version = buffer.getShort();
+        if (version != VERSION)
+            throw new IOException("Unsupported invocation log version " + version + "!");
+
+        while (buffer.hasRemaining()) {
+            int length = (int) readVar(buffer);
+            if (length < 0 || length > buffer.remaining())
+                break;
+
+            ByteBuffer record = buffer.slice();
+            record.limit(length);
+            buffer.position(buffer.position() + length);
+
+            long timestamp = readVar(record);
+            int outcome = record.get();
+            if (outcome < 0 || outcome >= OUTCOMES.length)
+                throw new IOException("Unknown outcome " + outcome + " in invocation log!");
+
+            int errorId = (int) readVar(record) - 1;
+            long parseNanos = readVar(record);
+            long dispatchNanos = readVar(record);
+            String[] args = new String[(int) readVar(record)];
+
+            for (int i = 0; i < args.length; i++) {
+                int size = (int) readVar(record);
+                args[i] = new String(record.array(), record.arrayOffset() + record.position(), size, StandardCharsets.UTF_8);
+                record.position(record.position() + size);
+            }
+
+            invocations.add(new Invocation(timestamp, args, OUTCOMES[outcome], errorId, parseNanos, dispatchNanos));
+        }
+
+        return invocations;
+    }
+
+    private static void readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC)
+            throw new IOException("Not an invocation log!");
+
+        short version = in.readShort();
+        if (version != VERSION)
+            throw new IOException("Unsupported invocation log version " + version + "!");
+    }
+
+    private static long readVar(ByteBuffer buffer) {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buffer.hasRemaining())
+                return -1;
+
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Appends invocations to a log. Safe to share between threads; close it to flush what is buffered.
+     */
+    public static final class Writer implements Closeable {
+        private final OutputStream out;
+
+        /**
+         * Record being encoded, reused for every write.
+         */
+        private byte[] record = new byte[256];
+        private int length;
+
+        private Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        public synchronized void write(Invocation invocation) throws IOException {
+            this.length = 0;
+            this.putVar(invocation.getTimestamp());
+            this.put((byte) invocation.getOutcome().ordinal());
+            this.putVar(invocation.getErrorId() + 1L);
+            this.putVar(invocation.getParseNanos());
+            this.putVar(invocation.getDispatchNanos());
+
+            String[] args = invocation.getArgs();
+            this.putVar(args.length);
+            for (String arg : args) {
+                byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+                this.putVar(bytes.length);
+                this.ensure(bytes.length);
+                System.arraycopy(bytes, 0, this.record, this.length, bytes.length);
+                this.length += bytes.length;
+            }
+
+            long recordLength = this.length;
+            for (; recordLength >= 0x80; recordLength >>>= 7) {
+                this.out.write((int) (recordLength & 0x7F) | 0x80);
+            }
+            this.out.write((int) recordLength);
+            this.out.write(this.record, 0, this.length);
+        }
+
+        public synchronized void flush() throws IOException {
+            this.out.flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            this.out.close();
+        }
+
+        private void putVar(long value) {
+            this.ensure(10);
+            for (; (value & ~0x7FL) != 0; value >>>= 7) {
+                this.record[this.length++] = (byte) ((value & 0x7F) | 0x80);
+            }
+            this.record[this.length++] = (byte) value;
+        }
+
+        private void put(byte value) {
+            this.ensure(1);
+            this.record[this.length++] = value;
+        }
+
+        private void ensure(int bytes) {
+            if (this.length + bytes > this.record.length)
+                this.record = Arrays.copyOf(this.record, Math.max(this.record.length * 2, this.length + bytes));
+        }
+    }
+}
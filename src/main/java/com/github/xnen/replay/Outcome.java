@@ -0,0 +1,26 @@
+package com.github.xnen.replay;
+
+/**
+ * How a recorded or replayed invocation ended.
+ */
+public enum Outcome {
+    /**
+     * Parsed, and the handlers ran (or would have, when replaying without dispatch).
+     */
+    HANDLED,
+
+    /**
+     * Parsed, and the args went to the invalid options handler.
+     */
+    UNHANDLED,
+
+    /**
+     * Parsing threw a ParameterException. (Arity, required, validation or tokenize errors)
+     */
+    PARSE_ERROR,
+
+    /**
+     * A handler threw, or timed out.
+     */
+    HANDLER_ERROR
+}
@@ -0,0 +1,43 @@
+package com.github.xnen.replay;
+
+/**
+ * Options for Replayer.replay()
+ */
+public final class ReplayOptions {
+
+    boolean dispatch;
+    int warmupRounds;
+
+    private ReplayOptions(boolean dispatch) {
+        this.dispatch = dispatch;
+    }
+
+    /**
+     * Parse each invocation and run its handlers, like process().
+     */
+    public static ReplayOptions dispatching() {
+        return new ReplayOptions(true);
+    }
+
+    /**
+     * Parse, check and validate each invocation, but run no handlers; as if every handler were a stub.
+     */
+    public static ReplayOptions parseOnly() {
+        return new ReplayOptions(false);
+    }
+
+    /**
+     * How many times should the whole log run, untimed, before the measured run? (So the JIT has compiled the parser)
+     */
+    public ReplayOptions warmupRounds(int warmupRounds) {
+        if (warmupRounds < 0)
+            throw new RuntimeException("Warmup rounds cannot be negative!");
+
+        this.warmupRounds = warmupRounds;
+        return this;
+    }
+
+    public boolean isDispatching() {
+        return this.dispatch;
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.xnen.replay;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Throughput, latency percentiles and outcome differences of a Replayer run.
+ */
+public final class ReplayReport {
+
+    /**
+     * Latency of each invocation, by index in the log.
+     */
+    private final long[] latencies;
+    private final long elapsedNanos;
+    private final List<Diff> diffs;
+
+    private long[] sorted;
+
+    ReplayReport(long[] latencies, long elapsedNanos, List<Diff> diffs) {
+        this.latencies = latencies;
+        this.elapsedNanos = elapsedNanos;
+        this.diffs = Collections.unmodifiableList(diffs);
+    }
+
+    public int getInvocationCount() {
+        return this.latencies.length;
+    }
+
+    /**
+     * Wall-clock time of the measured run, without the warmup rounds.
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Invocations per second over the measured run.
+     */
+    public double getThroughput() {
+        return this.elapsedNanos == 0 ? 0 : this.latencies.length * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * Latency of the invocation at this index in the log.
+     */
+    public long getLatencyNanos(int index) {
+        return this.latencies[index];
+    }
+
+    /**
+     * Latency that this percentage of invocations (0 to 100) took at most, i.e. 50 for the median, 99.9 for p999.
+     */
+    public synchronized long getPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new RuntimeException("Percentile must be between 0 and 100!");
+        if (this.latencies.length == 0)
+            return 0;
+
+        if (this.sorted == null) {
+            this.sorted = this.latencies.clone();
+            Arrays.sort(this.sorted);
+        }
+
+        // Nearest rank
+        int rank = (int) Math.ceil(percentile / 100 * this.sorted.length);
+        return this.sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Invocations that ended differently than when they were recorded, in log order.
+     */
+    public List<Diff> getDiffs() {
+        return this.diffs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d invocations, %.0f/s, p50 %dns, p99 %dns, p99.9 %dns, max %dns, %d diffs",
+                this.latencies.length, this.getThroughput(), this.getPercentileNanos(50), this.getPercentileNanos(99),
+                this.getPercentileNanos(99.9), this.getPercentileNanos(100), this.diffs.size());
+    }
+
+    public static final class Diff {
+        private final int index;
+        private final Invocation recorded;
+        private final Outcome outcome;
+        private final int errorId;
+
+        Diff(int index, Invocation recorded, Outcome outcome, int errorId) {
+            this.index = index;
+            this.recorded = recorded;
+            this.outcome = outcome;
+            this.errorId = errorId;
+        }
+
+        /**
+         * Index of the invocation in the log.
+         */
+        public int getIndex() {
+            return this.index;
+        }
+
+        public Invocation getRecorded() {
+            return this.recorded;
+        }
+
+        /**
+         * How it ended when replayed.
+         */
+        public Outcome getOutcome() {
+            return this.outcome;
+        }
+
+        public int getErrorId() {
+            return this.errorId;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + this.index + " " + this.recorded + ", now " + this.outcome + (this.errorId >= 0 ? " (" + this.errorId + ")" : "");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.xnen.replay;
+
+import com.github.xnen.ParseResult;
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feeds recorded invocations back through a Parameters instance as fast as it takes them, timing each one and comparing
+ * how it ends with how it ended when recorded. Record with one version of the parameters (or of this library), replay
+ * with another, and the report's diffs are every invocation that behaves differently.
+ *
+ * Outcomes only compare like with like: replaying parseOnly() never reports HANDLER_ERROR, and values redacted when
+ * recording may fail validation where the real ones didn't.
+ */
+public final class Replayer {
+
+    private Replayer() {}
+
+    public static ReplayReport replay(Parameters parameters, List<Invocation> invocations, ReplayOptions options) {
+        for (int round = 0; round < options.warmupRounds; round++) {
+            for (Invocation invocation : invocations) {
+                run(parameters, invocation.getArgs(), options.dispatch, null);
+            }
+        }
+
+        long[] latencies = new long[invocations.size()];
+        List<ReplayReport.Diff> diffs = new ArrayList<>();
+        int[] error = new int[1];
+        long start = System.nanoTime();
+
+        for (int i = 0; i < latencies.length; i++) {
+            Invocation invocation = invocations.get(i);
+
+            long before = System.nanoTime();
+            Outcome outcome = run(parameters, invocation.getArgs(), options.dispatch, error);
+            latencies[i] = System.nanoTime() - before;
+
+            if (outcome != invocation.getOutcome() || error[0] != invocation.getErrorId())
+                diffs.add(new ReplayReport.Diff(i, invocation, outcome, error[0]));
+        }
+
+        return new ReplayReport(latencies, System.nanoTime() - start, diffs);
+    }
+
+    /**
+     * Parse (and dispatch) these args; error[0] is set to the error id, or -1.
+     */
+    private static Outcome run(Parameters parameters, String[] args, boolean dispatch, int[] error) {
+        ParseResult result;
+        int errorId = -1;
+        Outcome outcome;
+
+        try {
+            result = parameters.parse(args);
+        } catch (ParameterException e) {
+            if (error != null) error[0] = e.getId();
+            return Outcome.PARSE_ERROR;
+        }
+
+        outcome = result.getUnhandled() != null ? Outcome.UNHANDLED : Outcome.HANDLED;
+
+        if (dispatch) {
+            try {
+                parameters.dispatch(result);
+            } catch (ParameterException e) {
+                outcome = Outcome.HANDLER_ERROR;
+                errorId = e.getId();
+            } catch (RuntimeException e) {
+                outcome = Outcome.HANDLER_ERROR;
+            }
+        }
+
+        if (error != null) error[0] = errorId;
+        return outcome;
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.xnen.script;
+
+/**
+ * What a ScriptRunner does when a line fails to parse, validate or run.
+ */
+public enum ErrorPolicy {
+    /**
+     * Record the error and keep running the following lines.
+     */
+    CONTINUE_ON_ERROR,
+
+    /**
+     * Record the error and stop the script.
+     */
+    STOP_ON_ERROR
+}
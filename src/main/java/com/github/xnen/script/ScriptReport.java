@@ -0,0 +1,96 @@
+package com.github.xnen.script;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a ScriptRunner run: one LineResult for every command that was executed.
+ */
+public final class ScriptReport {
+
+    private final List<LineResult> lines;
+    private final boolean stopped;
+    private final long elapsedNanos;
+
+    ScriptReport(List<LineResult> lines, boolean stopped, long elapsedNanos) {
+        this.lines = Collections.unmodifiableList(lines);
+        this.stopped = stopped;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Results of every executed command, in script order.
+     */
+    public List<LineResult> getLines() {
+        return this.lines;
+    }
+
+    /**
+     * Did the script stop early because of an error? (STOP_ON_ERROR only)
+     */
+    public boolean isStopped() {
+        return this.stopped;
+    }
+
+    public int getFailureCount() {
+        int count = 0;
+        for (LineResult line : this.lines) {
+            if (line.getError() != null) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Wall-clock time of the whole run, including reading the file.
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    public static final class LineResult {
+        private final int lineNumber;
+        private final long parseNanos;
+        private final long dispatchNanos;
+        private final Exception error;
+
+        LineResult(int lineNumber, long parseNanos, long dispatchNanos, Exception error) {
+            this.lineNumber = lineNumber;
+            this.parseNanos = parseNanos;
+            this.dispatchNanos = dispatchNanos;
+            this.error = error;
+        }
+
+        /**
+         * Line the command starts on. (1-based, continuation lines count towards the line they continue)
+         */
+        public int getLineNumber() {
+            return this.lineNumber;
+        }
+
+        /**
+         * Time spent matching, checking and validating the command.
+         */
+        public long getParseNanos() {
+            return this.parseNanos;
+        }
+
+        /**
+         * Time spent in the command's handlers.
+         */
+        public long getDispatchNanos() {
+            return this.dispatchNanos;
+        }
+
+        /**
+         * ParameterException or handler exception, or null if the command succeeded.
+         */
+        public Exception getError() {
+            return this.error;
+        }
+
+        @Override public String toString() {
+            return "line " + this.lineNumber + ": " + (this.error == null ? "ok" : this.error.getMessage())
+                    + " (parse " + this.parseNanos / 1000 + "us, run " + this.dispatchNanos / 1000 + "us)";
+        }
+    }
+}
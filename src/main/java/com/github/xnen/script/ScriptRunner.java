@@ -0,0 +1,277 @@
+package com.github.xnen.script;
+
+import com.github.xnen.ParseResult;
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.token.CommandLine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Runs a text file of commands through one Parameters instance, one command per line.
+ *
+ * A reader thread reads and tokenizes lines while the calling thread parses and dispatches them,
+ * with a bounded queue between the two. Blank lines and lines starting with '#' are skipped,
+ * and a line ending in '\' continues on the next line.
+ */
+public final class ScriptRunner {
+
+    private static final Line END = new Line(0, null, null);
+
+    private final Parameters parameters;
+
+    private ErrorPolicy errorPolicy = ErrorPolicy.STOP_ON_ERROR;
+    private int queueCapacity = 1024;
+
+    public ScriptRunner(Parameters parameters) {
+        if (parameters == null)
+            throw new RuntimeException("Parameters cannot be null!");
+
+        this.parameters = parameters;
+    }
+
+    /**
+     * Should the script keep going after a failing line? (Defaults to STOP_ON_ERROR)
+     */
+    public ScriptRunner errorPolicy(ErrorPolicy errorPolicy) {
+        if (errorPolicy == null)
+            throw new RuntimeException("Error policy cannot be null!");
+
+        this.errorPolicy = errorPolicy;
+        return this;
+    }
+
+    /**
+     * How many tokenized lines may wait for execution before the reader blocks?
+     */
+    public ScriptRunner queueCapacity(int queueCapacity) {
+        if (queueCapacity < 1)
+            throw new RuntimeException("Queue capacity must be at least 1!");
+
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Run every command in the script. Handlers run on the calling thread.
+     */
+    public ScriptReport run(Path script) throws IOException {
+        long start = System.nanoTime();
+
+        BlockingQueue<Line> queue = new ArrayBlockingQueue<>(this.queueCapacity);
+        Reader reader = new Reader(script, queue);
+        Thread readerThread = new Thread(reader, "parameters-script-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        List<ScriptReport.LineResult> results = new ArrayList<>();
+        boolean stopped = false;
+
+        try {
+            while (true) {
+                Line line = queue.take();
+                if (line == END)
+                    break;
+
+                ScriptReport.LineResult result = this.execute(line);
+                results.add(result);
+
+                if (result.getError() != null && this.errorPolicy == ErrorPolicy.STOP_ON_ERROR) {
+                    stopped = true;
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        } finally {
+            readerThread.interrupt();
+        }
+
+        try {
+            readerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        }
+
+        // Interrupting a reader that is inside channel I/O closes the channel; that's no failure when we stopped it.
+        Throwable failure = reader.failure;
+        if (failure != null && !(stopped && (failure instanceof ClosedByInterruptException || failure instanceof InterruptedIOException))) {
+            if (failure instanceof IOException)
+                throw (IOException) failure;
+            if (failure instanceof Error)
+                throw (Error) failure;
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException) failure;
+            throw new IOException("Script reader failed", failure);
+        }
+
+        return new ScriptReport(results, stopped, System.nanoTime() - start);
+    }
+
+    private ScriptReport.LineResult execute(Line line) {
+        if (line.error != null)
+            return new ScriptReport.LineResult(line.number, 0, 0, line.error);
+
+        long parseStart = System.nanoTime();
+        ParseResult result;
+
+        try {
+            result = this.parameters.parse(line.tokens);
+        } catch (ParameterException | RuntimeException e) {
+            return new ScriptReport.LineResult(line.number, System.nanoTime() - parseStart, 0, e);
+        }
+
+        long dispatchStart = System.nanoTime();
+        Exception error = null;
+
+        try {
+            this.parameters.dispatch(result);
+        } catch (ParameterException | RuntimeException e) {
+            error = e;
+        }
+
+        return new ScriptReport.LineResult(line.number, dispatchStart - parseStart, System.nanoTime() - dispatchStart, error);
+    }
+
+    /**
+     * A tokenized command, or the tokenizer error for it.
+     */
+    private static final class Line {
+        private final int number;
+        private final CommandLine tokens;
+        private final ParameterException error;
+
+        private Line(int number, CommandLine tokens, ParameterException error) {
+            this.number = number;
+            this.tokens = tokens;
+            this.error = error;
+        }
+    }
+
+    /**
+     * First stage: reads physical lines, joins continuations, drops comments and tokenizes.
+     */
+    private static final class Reader implements Runnable {
+        private final Path script;
+        private final BlockingQueue<Line> queue;
+
+        /**
+         * What stopped the reader before the end of the script, if anything.
+         */
+        private volatile Throwable failure;
+
+        /**
+         * Quote the command being joined is inside, carried from one continued line to the next. (0 if none)
+         */
+        private char quote;
+
+        private Reader(Path script, BlockingQueue<Line> queue) {
+            this.script = script;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            boolean interrupted = false;
+
+            try (FileChannel channel = FileChannel.open(this.script, StandardOpenOption.READ);
+                 BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1), 1 << 16)) {
+
+                StringBuilder command = new StringBuilder();
+                int physical = 0;
+                int first = 0;
+                String text;
+
+                while ((text = reader.readLine()) != null) {
+                    physical++;
+
+                    if (command.length() == 0) {
+                        String trimmed = text.trim();
+                        if (trimmed.isEmpty() || trimmed.charAt(0) == '#')
+                            continue;
+                        first = physical;
+                    }
+
+                    if (this.endsWithContinuation(text)) {
+                        command.append(text, 0, text.length() - 1);
+                        continue;
+                    }
+
+                    this.quote = 0;
+                    command.append(text);
+                    this.queue.put(tokenize(first, command));
+                    command.setLength(0);
+                }
+
+                if (command.length() > 0)
+                    this.queue.put(tokenize(first, command));
+            } catch (InterruptedException e) {
+                interrupted = true; // The runner stopped early, and takes nothing more.
+            } catch (Throwable e) {
+                this.failure = e;
+            } finally {
+                // Whatever went wrong, the runner must not wait for lines that will never come.
+                if (!interrupted) {
+                    try {
+                        this.queue.put(END);
+                    } catch (InterruptedException ignored) {
+                        // The runner stopped early.
+                    }
+                }
+            }
+        }
+
+        private static Line tokenize(int number, StringBuilder command) {
+            try {
+                return new Line(number, CommandLine.tokenize(command.toString()), null);
+            } catch (ParameterException e) {
+                return new Line(number, null, e);
+            }
+        }
+
+        /**
+         * Does this line end in a backslash escaping the newline? Scanned with shell quoting rules from the quote the
+         * command is already inside: a backslash escapes the next character, except inside single quotes, where it is
+         * literal and never continues the line.
+         */
+        private boolean endsWithContinuation(String text) {
+            char quote = this.quote;
+
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+
+                if (quote == '\'') {
+                    if (c == '\'')
+                        quote = 0;
+                } else if (c == '\\') {
+                    if (i == text.length() - 1) {
+                        this.quote = quote;
+                        return true;
+                    }
+                    i++;
+                } else if (quote == 0 && (c == '"' || c == '\'')) {
+                    quote = c;
+                } else if (quote == '"' && c == '"') {
+                    quote = 0;
+                }
+            }
+
+            this.quote = quote;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.xnen.timeout;
+
+/**
+ * What Parameters.dispatch() does after a handler runs past its ParamBuilder.timeout().
+ * Either way the handler is interrupted and abandoned, and a HandlerTimeoutException is thrown once dispatch stops.
+ */
+public enum TimeoutPolicy {
+    /**
+     * Skip the handlers that haven't run yet. (lower priority ones)
+     */
+    SKIP_REMAINING,
+
+    /**
+     * Keep running the remaining handlers. Later timeouts are attached to the thrown exception as suppressed exceptions.
+     */
+    CONTINUE
+}
@@ -0,0 +1,234 @@
+package com.github.xnen.token;
+
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.impl.IArguments;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * A command line split into tokens following POSIX shell quoting rules:
+ * whitespace separates tokens, '...' is literal, "..." allows \ escapes of $ ` " \ and newline, and a \ outside quotes
+ * escapes the next character. (\ followed by a newline is a line continuation.)
+ *
+ * Tokenizing is a single pass that only records spans over the input. Tokens whose text is a contiguous part of the
+ * input are views over it; others are unquoted when their String is first requested.
+ */
+public final class CommandLine implements IArguments {
+
+    private static final int SIMPLE = 0;
+    private static final int COMPLEX = 1;
+
+    private final CharSequence source;
+
+    /**
+     * start, end and kind of each token, flattened. For SIMPLE tokens the span is the text itself,
+     * for COMPLEX tokens it is the raw (still quoted) text.
+     */
+    private final int[] spans;
+    private final int size;
+    private final String[] strings;
+
+    private CommandLine(CharSequence source, int[] spans, int size) {
+        this.source = source;
+        this.spans = spans;
+        this.size = size;
+        this.strings = new String[size];
+    }
+
+    /**
+     * Split a command line into tokens.
+     * Throws a ParameterException (ID 3) for an unterminated quote or a trailing backslash.
+     */
+    public static CommandLine tokenize(CharSequence line) throws ParameterException {
+        int length = line.length();
+        int[] spans = new int[24];
+        int size = 0;
+        int i = 0;
+
+        while (true) {
+            // Skip separators, including line continuations between tokens.
+            while (i < length) {
+                char c = line.charAt(i);
+                if (isWhitespace(c)) {
+                    i++;
+                } else if (c == '\\' && i + 1 < length && line.charAt(i + 1) == '\n') {
+                    i += 2;
+                } else {
+                    break;
+                }
+            }
+
+            if (i >= length)
+                break;
+
+            int start = i;
+            int quoted = 0;
+            boolean unquoted = false;
+            boolean escaped = false;
+
+            while (i < length) {
+                char c = line.charAt(i);
+
+                if (isWhitespace(c)) {
+                    break;
+                } else if (c == '\'') {
+                    int close = indexOf(line, '\'', i + 1);
+                    if (close < 0)
+                        throw new ParameterException(3, "Unterminated single quote at index " + i + ".", false);
+                    quoted++;
+                    i = close + 1;
+                } else if (c == '"') {
+                    int j = i + 1;
+                    while (true) {
+                        if (j >= length)
+                            throw new ParameterException(3, "Unterminated double quote at index " + i + ".", false);
+
+                        char d = line.charAt(j);
+                        if (d == '"') break;
+                        if (d == '\\') {
+                            escaped = true;
+                            j++;
+                        }
+                        j++;
+                    }
+                    quoted++;
+                    i = j + 1;
+                } else if (c == '\\') {
+                    if (i + 1 >= length)
+                        throw new ParameterException(3, "Trailing backslash at index " + i + ".", false);
+                    escaped = true;
+                    i += 2;
+                } else {
+                    unquoted = true;
+                    i++;
+                }
+            }
+
+            if (size * 3 + 3 > spans.length)
+                spans = Arrays.copyOf(spans, spans.length * 2);
+
+            if (escaped || (quoted > 0 && unquoted) || quoted > 1) {
+                spans[size * 3] = start;
+                spans[size * 3 + 1] = i;
+                spans[size * 3 + 2] = COMPLEX;
+            } else if (quoted == 1) {
+                spans[size * 3] = start + 1; // Strip the surrounding quotes, the text inside is contiguous.
+                spans[size * 3 + 1] = i - 1;
+                spans[size * 3 + 2] = SIMPLE;
+            } else {
+                spans[size * 3] = start;
+                spans[size * 3 + 1] = i;
+                spans[size * 3 + 2] = SIMPLE;
+            }
+
+            size++;
+        }
+
+        return new CommandLine(line, spans, size);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public CharSequence view(int index) {
+        if (this.strings[index] != null)
+            return this.strings[index];
+
+        if (this.spans[index * 3 + 2] == SIMPLE)
+            return CharBuffer.wrap(this.source, this.spans[index * 3], this.spans[index * 3 + 1]);
+
+        return this.get(index);
+    }
+
+    @Override
+    public String get(int index) {
+        String string = this.strings[index];
+
+        if (string == null) {
+            int start = this.spans[index * 3];
+            int end = this.spans[index * 3 + 1];
+
+            string = this.spans[index * 3 + 2] == SIMPLE
+                    ? this.source.subSequence(start, end).toString()
+                    : unquote(this.source, start, end);
+            this.strings[index] = string;
+        }
+
+        return string;
+    }
+
+    /**
+     * All tokens as Strings.
+     */
+    public String[] toArray() {
+        String[] array = new String[this.size];
+        for (int i = 0; i < this.size; i++) {
+            array[i] = this.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Apply the quoting rules to a raw token that tokenize() already checked.
+     */
+    private static String unquote(CharSequence source, int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        int i = start;
+
+        while (i < end) {
+            char c = source.charAt(i);
+
+            if (c == '\'') {
+                int close = indexOf(source, '\'', i + 1);
+                sb.append(source, i + 1, close);
+                i = close + 1;
+            } else if (c == '"') {
+                i++;
+                while (source.charAt(i) != '"') {
+                    char d = source.charAt(i);
+                    if (d == '\\') {
+                        char next = source.charAt(i + 1);
+                        if (next == '\n') {
+                            // Line continuation
+                        } else if (next == '\\' || next == '"' || next == '$' || next == '`') {
+                            sb.append(next);
+                        } else {
+                            sb.append(d).append(next);
+                        }
+                        i += 2;
+                    } else {
+                        sb.append(d);
+                        i++;
+                    }
+                }
+                i++;
+            } else if (c == '\\') {
+                char next = source.charAt(i + 1);
+                if (next != '\n')
+                    sb.append(next);
+                i += 2;
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static int indexOf(CharSequence source, char c, int from) {
+        for (int i = from; i < source.length(); i++) {
+            if (source.charAt(i) == c)
+                return i;
+        }
+        return -1;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
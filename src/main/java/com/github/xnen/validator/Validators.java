@@ -0,0 +1,242 @@
+package com.github.xnen.validator;
+
+import com.github.xnen.impl.IArgValidator;
+
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Ready-made validators, checked against every argument passed to a parameter.
+ * They can be combined with and() / or(), which flatten into a single list of checks run in one pass over the args.
+ *
+ * (i.e. ".validator(Validators.and(Validators.intRange(1, 65535), Validators.oneOf("80", "443", "8080")))")
+ */
+public final class Validators {
+
+    private Validators() {}
+
+    /**
+     * Argument fully matches this regular expression. The pattern is compiled once, here.
+     */
+    public static IArgValidator regex(String regex) {
+        Pattern pattern = Pattern.compile(regex);
+        return arg -> pattern.matcher(arg).matches();
+    }
+
+    /**
+     * Argument is a whole number between min and max. (inclusive)
+     */
+    public static IArgValidator intRange(int min, int max) {
+        if (min > max)
+            throw new RuntimeException("Range minimum cannot be above its maximum!");
+
+        return arg -> {
+            long value = parseInt(arg);
+            return value >= min && value <= max;
+        };
+    }
+
+    /**
+     * Argument is one of these values. (case-sensitive)
+     */
+    public static IArgValidator oneOf(String... values) {
+        Set<String> set = new HashSet<>(Arrays.asList(values));
+        return set::contains;
+    }
+
+    /**
+     * Argument is the path of an existing regular file.
+     */
+    public static IArgValidator existingFile() {
+        return arg -> {
+            Path path = toPath(arg);
+            return path != null && Files.isRegularFile(path);
+        };
+    }
+
+    /**
+     * Same as existingFile(), but results are remembered for 'ttl', for at most 'maxEntries' paths.
+     */
+    public static IArgValidator existingFile(Duration ttl, int maxEntries) {
+        return new Memoized(existingFile(), ttl, maxEntries);
+    }
+
+    /**
+     * Argument is the path of an existing directory that can be written to.
+     */
+    public static IArgValidator writableDir() {
+        return arg -> {
+            Path path = toPath(arg);
+            return path != null && Files.isDirectory(path) && Files.isWritable(path);
+        };
+    }
+
+    /**
+     * Same as writableDir(), but results are remembered for 'ttl', for at most 'maxEntries' paths.
+     */
+    public static IArgValidator writableDir(Duration ttl, int maxEntries) {
+        return new Memoized(writableDir(), ttl, maxEntries);
+    }
+
+    /**
+     * Every argument passes all of these validators.
+     */
+    public static IArgValidator and(IArgValidator... validators) {
+        return new AllOf(flatten(AllOf.class, validators));
+    }
+
+    /**
+     * Every argument passes at least one of these validators.
+     */
+    public static IArgValidator or(IArgValidator... validators) {
+        return new AnyOf(flatten(AnyOf.class, validators));
+    }
+
+    /**
+     * Collect the checks of nested combinations of the same kind, so and(a, and(b, c)) runs as and(a, b, c).
+     */
+    private static IArgValidator[] flatten(Class<? extends Combined> kind, IArgValidator[] validators) {
+        List<IArgValidator> flat = new ArrayList<>(validators.length);
+
+        for (IArgValidator validator : validators) {
+            if (validator == null)
+                throw new RuntimeException("Validator cannot be null!");
+
+            if (kind.isInstance(validator)) {
+                flat.addAll(Arrays.asList(((Combined) validator).checks));
+            } else {
+                flat.add(validator);
+            }
+        }
+
+        return flat.toArray(new IArgValidator[0]);
+    }
+
+    /**
+     * Parse a whole int without throwing; returns a value outside the int range if the argument isn't one.
+     */
+    private static long parseInt(String arg) {
+        int length = arg.length();
+        if (length == 0 || length > 11)
+            return Long.MIN_VALUE;
+
+        int i = 0;
+        boolean negative = false;
+
+        if (arg.charAt(0) == '-' || arg.charAt(0) == '+') {
+            negative = arg.charAt(0) == '-';
+            if (++i == length)
+                return Long.MIN_VALUE;
+        }
+
+        long value = 0;
+        for (; i < length; i++) {
+            char c = arg.charAt(i);
+            if (c < '0' || c > '9')
+                return Long.MIN_VALUE;
+            value = value * 10 + (c - '0');
+        }
+
+        return negative ? -value : value;
+    }
+
+    private static Path toPath(String arg) {
+        try {
+            return Paths.get(arg);
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private abstract static class Combined implements IArgValidator {
+        final IArgValidator[] checks;
+
+        Combined(IArgValidator[] checks) {
+            this.checks = checks;
+        }
+    }
+
+    private static final class AllOf extends Combined {
+        AllOf(IArgValidator[] checks) {
+            super(checks);
+        }
+
+        @Override
+        public boolean test(String arg) {
+            for (IArgValidator check : this.checks) {
+                if (!check.test(arg))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class AnyOf extends Combined {
+        AnyOf(IArgValidator[] checks) {
+            super(checks);
+        }
+
+        @Override
+        public boolean test(String arg) {
+            for (IArgValidator check : this.checks) {
+                if (check.test(arg))
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Remembers results of an expensive check (i.e. hitting the filesystem) for a while.
+     * The least recently used result is dropped once there are more than maxEntries.
+     */
+    private static final class Memoized implements IArgValidator {
+        private final IArgValidator check;
+        private final long ttlNanos;
+        private final Map<String, long[]> results;
+
+        Memoized(IArgValidator check, Duration ttl, int maxEntries) {
+            if (maxEntries < 1)
+                throw new RuntimeException("Memoized validators need room for at least one entry!");
+
+            this.check = check;
+            this.ttlNanos = ttl.toNanos();
+            this.results = new LinkedHashMap<String, long[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+                    return this.size() > maxEntries;
+                }
+            };
+        }
+
+        @Override
+        public boolean test(String arg) {
+            long now = System.nanoTime();
+
+            synchronized (this.results) {
+                long[] cached = this.results.get(arg); // { result (1 or 0), time checked }
+                if (cached != null && now - cached[1] < this.ttlNanos)
+                    return cached[0] == 1;
+            }
+
+            boolean result = this.check.test(arg);
+
+            synchronized (this.results) {
+                this.results.put(arg, new long[] { result ? 1 : 0, now });
+            }
+
+            return result;
+        }
+    }
+}
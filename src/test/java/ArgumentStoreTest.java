@@ -0,0 +1,92 @@
+import com.github.xnen.ArgumentStore;
+import com.github.xnen.ParseResult;
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.param.Parameter;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ArgumentStoreTest {
+
+    private Parameter files;
+    private Parameter name;
+    private Parameter mode;
+
+    private Parameters create() {
+        Parameters parameters = new Parameters(args -> {});
+
+        this.files = ParamBuilder.with().identifier("--files").description("Files").handler(args -> {}).acceptsInfiniteArgs("file").build();
+        this.name = ParamBuilder.with().identifier("--na\u00efve", "-n").description("Name").handler(args -> {}).acceptArg("name").build();
+        this.mode = ParamBuilder.with().identifier("--Mode").description("Mode").handler(args -> {}).caseSensitive().acceptArg("mode").build();
+
+        parameters.register(this.files);
+        parameters.register(this.name);
+        parameters.register(this.mode);
+        return parameters;
+    }
+
+    @Test
+    public void testMatchesLikeStrings() throws ParameterException {
+        String[] args = { "--FILES", "a.txt", "b\u20ac.txt", "--NA\u00cfVE", "zo\u00eb", "--mode", "--Mode", "fast" };
+
+        for (boolean direct : new boolean[] { false, true }) {
+            Parameters parameters = this.create();
+            ArgumentStore.Builder builder = ArgumentStore.builder().addAll(args);
+            ArgumentStore store = direct ? builder.buildDirect() : builder.build();
+
+            assertEquals(direct, store.isDirect());
+            assertEquals(args.length, store.size());
+            for (int i = 0; i < args.length; i++) {
+                assertEquals(args[i], store.get(i));
+                assertEquals(args[i], store.view(i).toString());
+            }
+
+            ParseResult expected = parameters.parse(args);
+            ParseResult actual = parameters.parse(store);
+
+            // '--mode' is not '--Mode' (case-sensitive), so it's left over; non-ASCII identifiers still match ignoring case.
+            assertArrayEquals(expected.getArgs(this.files), actual.getArgs(this.files));
+            assertArrayEquals(new String[] { "a.txt", "b\u20ac.txt" }, actual.getArgs(this.files));
+            assertArrayEquals(new String[] { "zo\u00eb" }, actual.getArgs(this.name));
+            assertArrayEquals(new String[] { "fast" }, actual.getArgs(this.mode));
+        }
+    }
+
+    @Test
+    public void testReadLines() throws IOException, ParameterException {
+        Path file = Files.createTempFile("args", ".txt");
+
+        try {
+            StringBuilder sb = new StringBuilder("--files\r\n");
+            for (int i = 0; i < 10_000; i++) sb.append("file-").append(i).append(".txt\n");
+            sb.append("\n-n\nJos\u00e9\n");
+            Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+
+            for (boolean direct : new boolean[] { false, true }) {
+                ArgumentStore store = ArgumentStore.readLines(file, direct);
+                assertEquals(10_003, store.size());
+                assertTrue(store.byteSize() > 0);
+
+                Parameters parameters = this.create();
+                ParseResult result = parameters.parse(store);
+
+                assertEquals(10_000, result.getArgs(this.files).length);
+                assertEquals("file-9999.txt", result.getArgs(this.files)[9999]);
+                assertArrayEquals(new String[] { "Jos\u00e9" }, result.getArgs(this.name));
+                assertFalse(result.isPresent(this.mode));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+import com.github.xnen.BatchOptions;
+import com.github.xnen.BatchResult;
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.param.ParamBuilder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchBenchmarkTest {
+
+    private static final int ITEMS = 50_000;
+    private static final int PARAMS = 50;
+
+    private Parameters create(LongAdder handled) {
+        Parameters parameters = new Parameters(args -> {});
+
+        for (int i = 0; i < PARAMS; i++) {
+            parameters.register(ParamBuilder.with()
+                    .identifier("--option-" + i)
+                    .description("Option " + i)
+                    .handler(args -> handled.increment())
+                    .acceptArg("value")
+                    .priority((short) (i % 5))
+                    .build());
+        }
+
+        parameters.register(ParamBuilder.with()
+                .identifier("--files")
+                .description("Files")
+                .handler(args -> handled.increment())
+                .acceptsInfiniteArgs("file")
+                .build());
+
+        parameters.register(ParamBuilder.with()
+                .identifier("--id")
+                .description("Job id")
+                .handler(args -> handled.increment())
+                .validator(args -> !args[0].startsWith("bad"))
+                .acceptArg("id")
+                .required()
+                .build());
+
+        return parameters;
+    }
+
+    private List<String[]> jobs() {
+        List<String[]> jobs = new ArrayList<>(ITEMS);
+
+        for (int i = 0; i < ITEMS; i++) {
+            String id = i % 100 == 0 ? "bad-" + i : "job-" + i;
+            jobs.add(new String[] { "--id", id, "--option-" + (i % PARAMS), "v" + i, "--files", "a", "b", "c" });
+        }
+
+        return jobs;
+    }
+
+    @Test
+    public void testOrderedBatch() {
+        // Failures are reported per item, and handlers run in input order.
+        Parameters parameters = new Parameters(args -> {});
+        List<String> seen = new ArrayList<>();
+
+        parameters.register(ParamBuilder.with()
+                .identifier("--id")
+                .description("Job id")
+                .handler(args -> seen.add(args[0]))
+                .acceptArg("id")
+                .build());
+
+        List<String[]> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(i % 10 == 0 ? new String[] { "--id" } : new String[] { "--id", String.valueOf(i) });
+        }
+
+        BatchResult result = parameters.processBatch(batch, BatchOptions.ordered().parallelism(4).threshold(16));
+        assertEquals(100, result.getFailureCount());
+
+        int expected = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (i % 10 == 0) {
+                if (!(result.getError(i) instanceof ParameterException) || ((ParameterException) result.getError(i)).getId() != 0) {
+                    fail("Expected an arity ParameterException for item " + i);
+                }
+                continue;
+            }
+
+            assertTrue(result.succeeded(i));
+            assertEquals(String.valueOf(i), seen.get(expected++));
+        }
+    }
+
+    @Test
+    public void benchmarkScaling() {
+        // Demonstrates throughput at increasing parallelism. Speedup depends on the cores available.
+        List<String[]> jobs = jobs();
+        int cores = Runtime.getRuntime().availableProcessors();
+        double baseline = 0;
+
+        System.out.println("processBatch scaling, " + ITEMS + " items, " + cores + " cores available");
+
+        for (int parallelism = 1; parallelism <= Math.max(4, cores); parallelism *= 2) {
+            LongAdder handled = new LongAdder();
+            Parameters parameters = create(handled);
+            BatchOptions options = BatchOptions.unordered().parallelism(parallelism);
+
+            parameters.processBatch(jobs, options); // warm up
+            handled.reset();
+
+            long start = System.nanoTime();
+            BatchResult result = parameters.processBatch(jobs, options);
+            long elapsed = System.nanoTime() - start;
+
+            assertEquals(ITEMS / 100, result.getFailureCount());
+            assertEquals((ITEMS - ITEMS / 100) * 3L, handled.sum());
+
+            double perSecond = ITEMS / (elapsed / 1e9);
+            if (parallelism == 1) baseline = perSecond;
+
+            System.out.printf("  parallelism %2d: %,12.0f items/s (x%.2f)%n", parallelism, perSecond, perSecond / baseline);
+        }
+    }
+
+    @Test
+    public void testBatchMatchesSequential() throws ParameterException {
+        AtomicInteger sequential = new AtomicInteger();
+        Parameters parameters = new Parameters(args -> {});
+        parameters.register(ParamBuilder.with()
+                .identifier("--count")
+                .description("Count")
+                .handler(args -> sequential.addAndGet(args.length))
+                .acceptsInfiniteArgs("item")
+                .build());
+
+        List<String[]> batch = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String[] args = new String[i % 7 + 1];
+            args[0] = "--count";
+            for (int j = 1; j < args.length; j++) args[j] = "x" + j;
+            batch.add(args);
+        }
+
+        for (String[] args : batch) {
+            parameters.process(args);
+        }
+
+        int expected = sequential.getAndSet(0);
+        BatchResult result = parameters.processBatch(batch, BatchOptions.unordered());
+
+        assertEquals(0, result.getFailureCount());
+        assertEquals(expected, sequential.get());
+    }
+}
@@ -0,0 +1,117 @@
+import com.github.xnen.Occurrences;
+import com.github.xnen.ParseResult;
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.impl.IOccurrenceHandler;
+import com.github.xnen.param.ParamBuilder;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CodecTest {
+
+    /**
+     * Same parameters as the launcher would register, recording what its handlers receive.
+     */
+    private Parameters create(List<String> log) {
+        Parameters parameters = new Parameters(args -> log.add("help"));
+
+        parameters.register(ParamBuilder.with()
+                .identifier("--name")
+                .description("Name")
+                .handler(args -> log.add("name " + String.join(",", args)))
+                .acceptArg("name")
+                .required()
+                .priority((short) 5)
+                .build());
+
+        parameters.register(ParamBuilder.with()
+                .identifier("-D")
+                .description("Define")
+                .handler((IOccurrenceHandler) occurrences -> {
+                    for (int k = 0; k < occurrences.count(); k++) log.add("define " + String.join("=", occurrences.args(k)));
+                })
+                .acceptArg("key")
+                .acceptArg("value")
+                .repeatable()
+                .build());
+
+        parameters.setDefaultParameter(ParamBuilder.with()
+                .identifier("files")
+                .description("Files")
+                .handler(args -> log.add("files " + String.join(",", args)))
+                .acceptsInfiniteArgs("file")
+                .build());
+
+        return parameters;
+    }
+
+    @Test
+    public void testRoundTrip() throws ParameterException {
+        List<String> launcherLog = new ArrayList<>();
+        List<String> workerLog = new ArrayList<>();
+
+        Parameters launcher = this.create(launcherLog);
+        ParseResult parsed = launcher.parse("a.txt", "-D", "k1", "v\u00e9", "--name", "x y", "-D", "k2", "", "b.txt");
+        launcher.dispatch(parsed);
+
+        ByteBuffer encoded = parsed.encode();
+
+        // A direct buffer, as if it came from a pipe or shared memory.
+        ByteBuffer received = ByteBuffer.allocateDirect(encoded.remaining());
+        received.put(encoded.duplicate()).flip();
+
+        Parameters worker = this.create(workerLog);
+        ParseResult decoded = worker.decode(received);
+        worker.dispatch(decoded);
+
+        assertEquals(launcherLog, workerLog);
+        assertEquals(0, received.remaining());
+
+        Occurrences defines = decoded.getOccurrences(worker.getRegisteredParameters().get(2));
+        assertEquals(2, defines.count());
+        assertArrayEquals(new String[] { "k2", "" }, defines.args(1));
+    }
+
+    @Test
+    public void testUnhandled() throws ParameterException {
+        List<String> log = new ArrayList<>();
+        Parameters parameters = new Parameters(args -> {});
+        parameters.handleInvalidOptionsWith(args -> log.add(String.join(",", args)));
+
+        ByteBuffer encoded = parameters.parse("--what", "now").encode();
+        parameters.dispatch(parameters.decode(encoded));
+
+        assertEquals("--what,now", log.get(0));
+    }
+
+    @Test
+    public void testRejectsOtherRegistries() throws ParameterException {
+        ByteBuffer encoded = this.create(new ArrayList<>()).parse("--name", "x").encode();
+
+        Parameters different = this.create(new ArrayList<>());
+        different.register(ParamBuilder.with().identifier("--extra").description("Extra").handler(args -> {}).build());
+
+        try {
+            different.decode(encoded.duplicate());
+            fail("Decoded a result encoded against different parameters.");
+        } catch (RuntimeException expected) {
+            // Expected
+        }
+
+        ByteBuffer future = encoded.duplicate();
+        future.putShort(4, (short) 99);
+        try {
+            this.create(new ArrayList<>()).decode(future);
+            fail("Decoded an unknown encoding version.");
+        } catch (RuntimeException expected) {
+            // Expected
+        }
+    }
+}
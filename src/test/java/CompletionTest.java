@@ -0,0 +1,108 @@
+import com.github.xnen.Parameters;
+import com.github.xnen.complete.CompletionScripts;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.param.ParamBuilder;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompletionTest {
+
+    private boolean handled;
+
+    private Parameters create() {
+        Parameters parameters = new Parameters(args -> fail("Help should not run during completion."));
+
+        parameters.register(ParamBuilder.with()
+                .identifier("--level", "-l")
+                .description("Log level")
+                .handler(args -> handled = true)
+                .validator(args -> { fail("Validators should not run during completion."); return true; })
+                .completer(prefix -> {
+                    List<String> values = new ArrayList<>();
+                    for (String level : Arrays.asList("debug", "info", "warn")) {
+                        if (level.startsWith(prefix)) values.add(level);
+                    }
+                    return values;
+                })
+                .acceptArg("level")
+                .required()
+                .build());
+
+        parameters.register(ParamBuilder.with()
+                .identifier("--Lines")
+                .description("Line count")
+                .handler(args -> handled = true)
+                .caseSensitive()
+                .acceptArg("count")
+                .build());
+
+        parameters.register(ParamBuilder.with()
+                .identifier("--files")
+                .description("Files")
+                .handler(args -> handled = true)
+                .completer(prefix -> Collections.singletonList(prefix + "a.txt"))
+                .acceptsInfiniteArgs("file")
+                .build());
+
+        return parameters;
+    }
+
+    @Test
+    public void testIdentifierCandidates() {
+        Parameters parameters = this.create();
+
+        // Case-sensitive identifiers only match a prefix of the same case.
+        assertEquals(Arrays.asList("--level", "--Lines"), parameters.complete(0, "--L"));
+        assertEquals(Collections.singletonList("--level"), parameters.complete(0, "--l"));
+        assertEquals(Arrays.asList("--files", "--help", "--level", "--Lines"), parameters.complete(0, "--"));
+        assertEquals(Arrays.asList("--files", "--help", "--level", "--Lines", "-?", "-l"), parameters.complete(2, "--Lines", "5"));
+    }
+
+    @Test
+    public void testValueCandidates() {
+        Parameters parameters = this.create();
+
+        // A fixed-arity parameter waiting for its arg only offers its values.
+        assertEquals(Arrays.asList("debug"), parameters.complete(1, "-l", "d"));
+        assertEquals(Arrays.asList("debug", "info", "warn"), parameters.complete(1, "--level"));
+
+        // Once its args are given, identifiers are offered again.
+        assertEquals(Collections.singletonList("--files"), parameters.complete(2, "--level", "info", "--f"));
+
+        // An infinite parameter offers its values and the identifiers that would end it.
+        assertEquals(Arrays.asList("--a.txt", "--files", "--help", "--level", "--Lines"), parameters.complete(2, "--files", "x", "--"));
+    }
+
+    @Test
+    public void testHiddenCommand() throws ParameterException {
+        Parameters parameters = this.create();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        parameters.setCompletionOutput(new PrintStream(bytes, true));
+
+        parameters.process(Parameters.COMPLETE, "1", "--level", "w");
+
+        assertEquals("warn" + System.lineSeparator(), new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+        assertTrue("Handlers should not run during completion.", !handled);
+    }
+
+    @Test
+    public void testScripts() {
+        String bash = CompletionScripts.bash("my-tool");
+        assertTrue(bash.contains("complete -o default -F _my_tool_complete my-tool"));
+        assertTrue(bash.contains("my-tool __complete \"$((COMP_CWORD - 1))\""));
+
+        assertTrue(CompletionScripts.zsh("my-tool").startsWith("#compdef my-tool\n"));
+        assertTrue(CompletionScripts.fish("my tool").contains("complete -c 'my tool' -f"));
+    }
+}
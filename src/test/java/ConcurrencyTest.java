@@ -0,0 +1,113 @@
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.param.Parameter;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ConcurrencyTest {
+
+    private static final int PROCESSORS = 8;
+    private static final int ITERATIONS = 5_000;
+    private static final int PLUGINS = 500;
+
+    @Test
+    public void testProcessWhileRegistering() throws InterruptedException {
+        // Many threads process while another registers parameters at runtime.
+        Parameters parameters = new Parameters(args -> {});
+        AtomicInteger handled = new AtomicInteger();
+
+        parameters.register(ParamBuilder.with()
+                .identifier("--name", "-n")
+                .description("Name")
+                .handler(args -> {
+                    if (args.length == 1 && args[0].equals("value")) {
+                        handled.incrementAndGet();
+                    }
+                })
+                .acceptArg("name")
+                .build());
+
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[PROCESSORS + 1];
+
+        for (int t = 0; t < PROCESSORS; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        parameters.process("--name", "value", "--plugin-" + (i % PLUGINS));
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+        }
+
+        threads[PROCESSORS] = new Thread(() -> {
+            try {
+                start.await();
+                for (int i = 0; i < PLUGINS; i++) {
+                    parameters.register(ParamBuilder.with()
+                            .identifier("--plugin-" + i)
+                            .description("Plugin " + i)
+                            .handler(args -> {})
+                            .priority((short) (i % 7))
+                            .build());
+                }
+            } catch (Throwable e) {
+                errors.add(e);
+            }
+        });
+
+        for (Thread thread : threads) thread.start();
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+
+        for (Throwable error : errors) {
+            error.printStackTrace();
+        }
+
+        if (!errors.isEmpty()) {
+            fail(errors.size() + " errors thrown while processing concurrently with registration.");
+        }
+
+        assertEquals(PROCESSORS * ITERATIONS, handled.get());
+        assertEquals(PLUGINS + 2, parameters.getRegisteredParameters().size());
+    }
+
+    @Test
+    public void testSnapshotIsStable() throws ParameterException {
+        // A list returned by getRegisteredParameters is never changed by later registrations.
+        Parameters parameters = new Parameters(args -> {});
+        List<Parameter> before = parameters.getRegisteredParameters();
+
+        parameters.register(ParamBuilder.with()
+                .identifier("--later")
+                .description("Registered later")
+                .handler(args -> {})
+                .priority((short) 5)
+                .build());
+
+        assertEquals(1, before.size());
+        assertEquals(2, parameters.getRegisteredParameters().size());
+
+        try {
+            parameters.getRegisteredParameters().clear();
+            fail("Registered parameter snapshot should be unmodifiable.");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        parameters.process("--later");
+    }
+}
@@ -0,0 +1,85 @@
+import com.github.xnen.ParseError;
+import com.github.xnen.ParseResult;
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.param.Parameter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HelpPlanTest {
+
+    private final List<String> ran = new ArrayList<>();
+
+    private Parameter flag(String identifier, short priority) {
+        return ParamBuilder.with().identifier(identifier).description(identifier)
+                .handler(args -> ran.add(identifier)).priority(priority).build();
+    }
+
+    @Test
+    public void helpRunsFirstWhateverThePriority() throws ParameterException {
+        Parameters parameters = new Parameters(args -> ran.add("help"));
+        parameters.registerAll(Arrays.asList(this.flag("--first", Short.MAX_VALUE), this.flag("--second", Short.MAX_VALUE)));
+        parameters.setDefaultParameter(ParamBuilder.with().identifier("files").description("Files")
+                .handler(args -> ran.add("files")).priority(Short.MAX_VALUE).acceptsInfiniteArgs("file").build());
+
+        parameters.process("a.txt", "--second", "--first", "--help");
+        assertEquals(Arrays.asList("help", "--first", "--second", "files"), ran);
+
+        // The same for an overlay adding its own parameters to a sealed template.
+        parameters.seal();
+        Parameters overlay = new Parameters(parameters.toTemplate(), args -> ran.add("overlay help"));
+        overlay.register(this.flag("--added", Short.MAX_VALUE));
+
+        ran.clear();
+        overlay.process("--added", "--first", "-?");
+        assertEquals(Arrays.asList("overlay help", "--first", "--added"), ran);
+    }
+
+    @Test
+    public void helpSkipsRequiredChecking() throws ParameterException {
+        Parameters parameters = new Parameters(args -> ran.add("help"));
+        parameters.register(ParamBuilder.with().identifier("--out").description("Output")
+                .handler(args -> ran.add("out")).required().acceptArg("file").build());
+
+        assertTrue(parameters.tryParse("--help").getErrors().isEmpty());
+
+        parameters.process("--help");
+        assertEquals(Arrays.asList("help"), ran);
+
+        try {
+            parameters.process();
+            fail("Missing required parameter was not reported without --help.");
+        } catch (ParameterException e) {
+            assertEquals(1, e.getId());
+        }
+    }
+
+    @Test
+    public void requiredErrorsComeBeforeValidationErrors() {
+        Parameters parameters = new Parameters(args -> ran.add("help"));
+        parameters.register(ParamBuilder.with().identifier("--out").description("Output")
+                .handler(args -> {}).required().acceptArg("file").build());
+        parameters.register(ParamBuilder.with().identifier("--level").description("Level")
+                .handler(args -> {}).priority((short) 5).validator(args -> args[0].equals("info")).acceptArg("level").build());
+
+        ParseResult result = parameters.tryParse("--level", "trace");
+        List<Integer> ids = new ArrayList<>();
+        for (ParseError error : result.getErrors()) ids.add(error.getId());
+        assertEquals(Arrays.asList(1, 2), ids);
+
+        try {
+            parameters.parse("--level", "trace");
+            fail("Parsed with a required parameter missing.");
+        } catch (ParameterException e) {
+            assertEquals(1, e.getId());
+        }
+    }
+}
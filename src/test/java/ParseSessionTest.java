@@ -0,0 +1,259 @@
+import com.github.xnen.Occurrences;
+import com.github.xnen.ParseError;
+import com.github.xnen.ParseResult;
+import com.github.xnen.ParseSession;
+import com.github.xnen.Parameters;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.param.Parameter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParseSessionTest {
+
+    private static final String[] VOCABULARY = {
+            "--level", "--pair", "--files", "--tag", "--verbose", "--help", "info", "debug", "bad", "a", "b", "c", "--unknown"
+    };
+
+    private final List<Parameter> registered = new ArrayList<>();
+
+    private int validated;
+
+    private Parameters create(boolean withDefault) {
+        return this.create(withDefault ? ParamBuilder.with().identifier("target").description("Target")
+                .handler(args -> {}).acceptArg("target").build() : null);
+    }
+
+    private Parameters create(Parameter defaultParam) {
+        Parameters parameters = new Parameters(args -> {});
+        this.registered.clear();
+
+        parameters.register(ParamBuilder.with().identifier("--level", "-l").description("Level")
+                .handler(args -> {}).validator(args -> this.count(!args[0].equals("bad"))).acceptArg("level").requiredUnless("--files").build());
+        parameters.register(ParamBuilder.with().identifier("--pair").description("Pair")
+                .handler(args -> {}).validator(args -> this.count(true)).acceptArg("left").acceptArg("right").build());
+        parameters.register(ParamBuilder.with().identifier("--files").description("Files")
+                .handler(args -> {}).acceptsInfiniteArgs("file").build());
+        parameters.register(ParamBuilder.with().identifier("--tag").description("Tag")
+                .handler(args -> {}).acceptArg("tag").repeatable().build());
+        parameters.register(ParamBuilder.with().identifier("--verbose").description("Verbose")
+                .handler(args -> {}).build());
+
+        if (defaultParam != null) {
+            parameters.setDefaultParameter(defaultParam);
+            this.registered.add(defaultParam);
+        }
+
+        this.registered.addAll(parameters.getRegisteredParameters()); // Includes the built-in --help
+        return parameters;
+    }
+
+    private boolean count(boolean valid) {
+        this.validated++;
+        return valid;
+    }
+
+    private Parameter find(String identifier) {
+        for (Parameter parameter : this.registered) {
+            if (parameter.matches(identifier)) return parameter;
+        }
+        throw new AssertionError(identifier);
+    }
+
+    @Test
+    public void matchesTryParseAcrossRandomEdits() {
+        Parameter[] defaults = {
+                null,
+                ParamBuilder.with().identifier("target").description("Target").handler(args -> {}).acceptArg("target").build(),
+                ParamBuilder.with().identifier("targets").description("Targets").handler(args -> {}).acceptsInfiniteArgs("target").build()
+        };
+
+        for (int config = 0; config < defaults.length; config++) {
+            Parameters parameters = this.create(defaults[config]);
+            ParseSession session = parameters.session();
+            Random random = new Random(3 + 4 * config);
+            List<String> line = new ArrayList<>();
+            String[] previous = new String[0];
+
+            for (int edit = 0; edit < 5000; edit++) {
+                int position = line.isEmpty() ? 0 : random.nextInt(line.size() + 1);
+                String word = VOCABULARY[random.nextInt(VOCABULARY.length)];
+
+                switch (random.nextInt(6)) {
+                    case 0:
+                    case 1:
+                        line.add(word);
+                        break;
+                    case 2:
+                        if (!line.isEmpty()) line.remove(line.size() - 1);
+                        break;
+                    case 3:
+                        if (position < line.size()) line.set(position, word);
+                        break;
+                    case 4:
+                        line.add(position, word);
+                        break;
+                    default:
+                        if (line.size() > 12) line.subList(position / 2, line.size()).clear();
+                        break;
+                }
+
+                String[] tokens = line.toArray(new String[0]);
+
+                if (edit % 3 == 0 && previous.length > 0) {
+                    // Retype the last word of the previous line, then go on with the edited line.
+                    String[] retyped = previous.clone();
+                    retyped[retyped.length - 1] = word;
+                    ParseResult incremental = session.replaceFrom(retyped.length - 1, word);
+                    assertEquals(Arrays.toString(retyped), this.describe(parameters.tryParse(retyped)), this.describe(incremental));
+                }
+
+                ParseResult incremental = session.update(tokens);
+                assertEquals(line.toString(), this.describe(parameters.tryParse(tokens)), this.describe(incremental));
+                previous = tokens;
+            }
+        }
+    }
+
+    @Test
+    public void replaceFromMatchesTryParse() {
+        Parameters parameters = this.create(false);
+        ParseSession session = parameters.session();
+        List<String> line = new ArrayList<>(Arrays.asList("--level", "info", "--files", "a", "b"));
+        session.update(line.toArray(new String[0]));
+
+        String[] typed = { "--pair", "a", "b", "--tag", "c", "--files", "c" };
+        for (String word : typed) {
+            line.add(word);
+            ParseResult incremental = session.replaceFrom(line.size() - 1, word);
+            assertEquals(line.toString(), this.describe(parameters.tryParse(line.toArray(new String[0]))), this.describe(incremental));
+        }
+
+        line.set(1, "bad");
+        ParseResult incremental = session.replaceFrom(1, line.subList(1, line.size()).toArray(new String[0]));
+        assertEquals(this.describe(parameters.tryParse(line.toArray(new String[0]))), this.describe(incremental));
+    }
+
+    @Test
+    public void editingTheLastTokenOnlyRescansTheEnd() {
+        Parameters parameters = this.create(false);
+        ParseSession session = parameters.session();
+
+        List<String> line = new ArrayList<>(Arrays.asList("--level", "info"));
+        for (int i = 0; i < 2000; i++) {
+            line.add("--tag");
+            line.add("t" + i);
+        }
+        line.add("--pair");
+        line.add("a");
+        line.add("b");
+
+        String[] tokens = line.toArray(new String[0]);
+        session.update(tokens);
+        assertEquals(0, session.getRescannedFrom());
+
+        tokens[tokens.length - 1] = "c";
+        ParseResult result = session.update(tokens);
+        assertEquals(tokens.length - 3, session.getRescannedFrom());
+        assertEquals("c", result.getArgs(this.find("--pair"))[1]);
+        assertEquals(2000, result.getOccurrences(this.find("--tag")).count());
+
+        // An infinite span reaching the end of the line is redone from its identifier, and nothing before it.
+        String[] withFiles = Arrays.copyOf(tokens, tokens.length + 3);
+        withFiles[tokens.length] = "--files";
+        withFiles[tokens.length + 1] = "a";
+        withFiles[tokens.length + 2] = "b";
+        session.update(withFiles);
+
+        String[] longer = Arrays.copyOf(withFiles, withFiles.length + 1);
+        longer[withFiles.length] = "c";
+        result = session.update(longer);
+        assertEquals(tokens.length, session.getRescannedFrom());
+        assertEquals(3, result.getArgs(this.find("--files")).length);
+    }
+
+    @Test
+    public void workPerEditStaysFlatAsTheLineGrows() {
+        long[] work = new long[3];
+        int[] validations = new int[3];
+
+        for (int round = 0; round < work.length; round++) {
+            Parameters parameters = this.create(true);
+            ParseSession session = parameters.session();
+
+            List<String> line = new ArrayList<>(Arrays.asList("--level", "info", "a.txt"));
+            for (int i = 0; i < 1000 * (int) Math.pow(10, round); i++) {
+                line.add("--tag");
+                line.add("t" + i);
+            }
+            line.add("--pair");
+            line.add("a");
+            line.add("b");
+
+            String[] tokens = line.toArray(new String[0]);
+            session.update(tokens);
+
+            this.validated = 0;
+            for (int edit = 0; edit < 10; edit++) {
+                ParseResult result = session.replaceFrom(tokens.length - 1, edit % 2 == 0 ? "c" : "d");
+                assertEquals(edit % 2 == 0 ? "c" : "d", result.getArgs(this.find("--pair"))[1]);
+                assertEquals("a.txt", result.getArgs(this.find("target"))[0]);
+                work[round] += session.getWork();
+            }
+            validations[round] = this.validated;
+        }
+
+        // Only --pair is matched and validated again, however many tags come before it.
+        assertEquals(10, validations[0]);
+        assertEquals(validations[0], validations[2]);
+        assertEquals(work[0], work[1]);
+        assertEquals(work[0], work[2]);
+        assertTrue(work[0] < 10 * 20);
+    }
+
+    @Test
+    public void registeringStartsOver() {
+        Parameters parameters = this.create(false);
+        ParseSession session = parameters.session();
+        String[] tokens = { "--level", "info", "--extra" };
+
+        assertTrue(session.update(tokens).hasErrors());
+
+        parameters.register(ParamBuilder.with().identifier("--extra").description("Extra").handler(args -> {}).build());
+        ParseResult result = session.update(tokens);
+
+        assertEquals(0, session.getRescannedFrom());
+        assertEquals(this.describe(parameters.tryParse(tokens)), this.describe(result));
+        assertTrue(!result.hasErrors());
+    }
+
+    private String describe(ParseResult result) {
+        StringBuilder sb = new StringBuilder();
+
+        for (ParseError error : result.getErrors()) {
+            sb.append(error.getId()).append('@').append(error.getPosition()).append(' ').append(error.getMessage()).append('\n');
+        }
+
+        if (result.getUnhandled() != null)
+            sb.append("unhandled ").append(Arrays.toString(result.getUnhandled())).append('\n');
+
+        for (Parameter parameter : this.registered) {
+            if (!result.isPresent(parameter))
+                continue;
+
+            sb.append(parameter).append(' ').append(Arrays.toString(result.getArgs(parameter)));
+            Occurrences occurrences = result.getOccurrences(parameter);
+            if (occurrences != null)
+                sb.append(" x").append(occurrences.count());
+            sb.append('\n');
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,248 @@
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.impl.IParameterPlugin;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.param.Parameter;
+import com.github.xnen.plugin.PluginIndex;
+import com.github.xnen.plugin.Plugins;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PluginTest {
+
+    static final AtomicInteger ALPHA_LOADS = new AtomicInteger();
+    static final AtomicInteger BETA_LOADS = new AtomicInteger();
+    static final List<String> RAN = Collections.synchronizedList(new ArrayList<>());
+
+    public static class Alpha implements IParameterPlugin {
+        public Alpha() {
+            ALPHA_LOADS.incrementAndGet();
+        }
+
+        @Override
+        public Collection<Parameter> parameters() {
+            return Arrays.asList(
+                    ParamBuilder.with().identifier("--alpha", "-a").description("Alpha")
+                            .handler(args -> RAN.add("alpha " + args[0]))
+                            .validator(args -> !args[0].isEmpty())
+                            .acceptArg("value").priority((short) 3).build(),
+                    ParamBuilder.with().identifier("--define", "-D").description("Define")
+                            .handler(args -> RAN.add("define " + String.join(",", args)))
+                            .acceptArg("key").repeatable().build());
+        }
+    }
+
+    public static class Beta implements IParameterPlugin {
+        public Beta() {
+            BETA_LOADS.incrementAndGet();
+        }
+
+        @Override
+        public Collection<Parameter> parameters() {
+            return Collections.singletonList(ParamBuilder.with().identifier("--beta").description("Beta")
+                    .handler(args -> RAN.add("beta " + args.length))
+                    .acceptsInfiniteArgs("file").build());
+        }
+    }
+
+    public static class Gamma implements IParameterPlugin {
+        @Override
+        public Collection<Parameter> parameters() {
+            return Arrays.asList(
+                    ParamBuilder.with().identifier("--fast").description("Fast")
+                            .handler(args -> {}).timeout(Duration.ofNanos(250_000)).build(),
+                    ParamBuilder.with().identifier("--slow").description("Slow")
+                            .handler(args -> {}).timeout(Duration.ofNanos(1_500_000)).build());
+        }
+    }
+
+    public static class Delta implements IParameterPlugin {
+        @Override
+        public Collection<Parameter> parameters() {
+            return Collections.singletonList(ParamBuilder.with().identifier("--copy").description("Copy")
+                    .handler(args -> RAN.add("copy " + String.join(",", args)))
+                    .acceptArg("mode").acceptInput("from").acceptOutput("to").build());
+        }
+    }
+
+    private static ClassLoader withResource(String resource, byte[] content) throws IOException {
+        return withRoots(root(resource, content));
+    }
+
+    /**
+     * Class path entry holding just this resource.
+     */
+    private static URL root(String resource, byte[] content) throws IOException {
+        Path root = Files.createTempDirectory("plugins");
+        Path file = root.resolve(resource);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+        root.toFile().deleteOnExit();
+        return root.toUri().toURL();
+    }
+
+    private static ClassLoader withRoots(URL... roots) {
+        return new URLClassLoader(roots, PluginTest.class.getClassLoader());
+    }
+
+    private static byte[] index(IParameterPlugin... plugins) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PluginIndex.write(out, Arrays.asList(plugins));
+        return out.toByteArray();
+    }
+
+    private static byte[] services(Class<?>... plugins) {
+        StringBuilder sb = new StringBuilder("# Providers\n");
+        for (Class<?> plugin : plugins) sb.append(plugin.getName()).append('\n');
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void indexedPluginsLoadOnlyWhenUsed() throws IOException, ParameterException {
+        Path index = Files.createTempFile("plugins", ".idx");
+        try (OutputStream out = Files.newOutputStream(index)) {
+            PluginIndex.write(out, Arrays.asList(new Alpha(), new Beta()));
+        }
+        ClassLoader loader = withResource(PluginIndex.RESOURCE, Files.readAllBytes(index));
+        Files.delete(index);
+
+        ALPHA_LOADS.set(0);
+        BETA_LOADS.set(0);
+        RAN.clear();
+
+        Parameters parameters = new Parameters(args -> {});
+        assertEquals(3, Plugins.register(parameters, loader));
+        assertEquals(0, ALPHA_LOADS.get());
+        assertEquals(0, BETA_LOADS.get());
+
+        parameters.process("--beta", "x", "y");
+        assertEquals(0, ALPHA_LOADS.get());
+        assertEquals(1, BETA_LOADS.get());
+
+        parameters.process("-a", "1", "-D", "k", "-D", "v", "--beta");
+        parameters.process("--alpha", "2");
+        assertEquals(1, ALPHA_LOADS.get());
+        assertEquals(1, BETA_LOADS.get());
+        assertEquals(Arrays.asList("beta 2", "alpha 1", "define k,v", "beta 0", "alpha 2"), RAN);
+
+        try {
+            parameters.process("--alpha", "");
+            throw new AssertionError("The plugin's validator should reject an empty value");
+        } catch (ParameterException e) {
+            assertEquals(2, e.getId());
+        }
+    }
+
+    @Test
+    public void indexKeepsTimeoutsToTheNanosecond() throws IOException {
+        Path index = Files.createTempFile("plugins", ".idx");
+        try (OutputStream out = Files.newOutputStream(index)) {
+            PluginIndex.write(out, Collections.singletonList(new Gamma()));
+        }
+        ClassLoader loader = withResource(PluginIndex.RESOURCE, Files.readAllBytes(index));
+        Files.delete(index);
+
+        Parameters parameters = new Parameters(args -> {});
+        assertEquals(2, Plugins.register(parameters, loader));
+
+        for (Parameter parameter : parameters.getRegisteredParameters()) {
+            if (parameter.matches("--fast"))
+                assertEquals(Duration.ofNanos(250_000), parameter.getTimeout());
+            if (parameter.matches("--slow"))
+                assertEquals(Duration.ofNanos(1_500_000), parameter.getTimeout());
+        }
+    }
+
+    @Test
+    public void withoutAnIndexEveryPluginIsLoaded() throws IOException, ParameterException {
+        String services = PluginTest.Alpha.class.getName() + "\n" + PluginTest.Beta.class.getName() + "\n";
+        ClassLoader loader = withResource("META-INF/services/" + IParameterPlugin.class.getName(), services.getBytes(StandardCharsets.UTF_8));
+
+        ALPHA_LOADS.set(0);
+        BETA_LOADS.set(0);
+        RAN.clear();
+
+        Parameters parameters = new Parameters(args -> {});
+        assertEquals(3, Plugins.register(parameters, loader));
+        assertEquals(1, ALPHA_LOADS.get());
+        assertEquals(1, BETA_LOADS.get());
+
+        parameters.process("--alpha", "x");
+        assertTrue(RAN.contains("alpha x"));
+    }
+
+    @Test
+    public void servicesMissingFromTheIndexAreStillLoaded() throws IOException, ParameterException {
+        // Alpha is indexed; Beta comes from a jar built without an index.
+        ClassLoader loader = withRoots(root(PluginIndex.RESOURCE, index(new Alpha())),
+                root("META-INF/services/" + IParameterPlugin.class.getName(), services(Alpha.class, Beta.class)));
+
+        ALPHA_LOADS.set(0);
+        BETA_LOADS.set(0);
+        RAN.clear();
+
+        Parameters parameters = new Parameters(args -> {});
+        assertEquals(3, Plugins.register(parameters, loader));
+        assertEquals(0, ALPHA_LOADS.get());
+        assertEquals(1, BETA_LOADS.get());
+
+        parameters.process("--beta", "x", "--alpha", "y");
+        assertEquals(1, ALPHA_LOADS.get());
+        assertEquals(Arrays.asList("alpha y", "beta 1"), RAN);
+    }
+
+    @Test
+    public void pluginIndexedTwiceIsRegisteredOnce() throws IOException, ParameterException {
+        // The same jar twice on the class path, next to another indexing Beta too.
+        ClassLoader loader = withRoots(root(PluginIndex.RESOURCE, index(new Alpha())), root(PluginIndex.RESOURCE, index(new Alpha())),
+                root(PluginIndex.RESOURCE, index(new Beta(), new Alpha())));
+
+        ALPHA_LOADS.set(0);
+        RAN.clear();
+
+        Parameters parameters = new Parameters(args -> {});
+        assertEquals(3, Plugins.register(parameters, loader));
+
+        parameters.process("--alpha", "x");
+        assertEquals(1, ALPHA_LOADS.get());
+        assertEquals(Collections.singletonList("alpha x"), RAN);
+    }
+
+    @Test
+    public void indexKeepsStreamArgs() throws IOException, ParameterException {
+        ClassLoader loader = withResource(PluginIndex.RESOURCE, index(new Delta()));
+        RAN.clear();
+
+        Parameters parameters = new Parameters(args -> {});
+        assertEquals(1, Plugins.register(parameters, loader));
+
+        for (Parameter parameter : parameters.getRegisteredParameters()) {
+            if (parameter.matches("--copy")) {
+                assertEquals(Arrays.asList("mode", "from", "to"), parameter.getArgs());
+                assertEquals(1 << 1, parameter.getInputArgs());
+                assertEquals(1 << 2, parameter.getOutputArgs());
+            }
+        }
+
+        parameters.process("--copy", "fast", "-", "-");
+        assertEquals(Collections.singletonList("copy fast,-,-"), RAN);
+    }
+}
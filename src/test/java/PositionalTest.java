@@ -0,0 +1,171 @@
+import com.github.xnen.ParseError;
+import com.github.xnen.ParseResult;
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.handler.DefaultHelpHandler;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.param.Parameter;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PositionalTest {
+
+    private final List<String> ran = new ArrayList<>();
+
+    private Parameter src, dest;
+
+    /**
+     * cp-like: SRC... DEST, with a --verbose flag that may appear anywhere.
+     */
+    private Parameters create() {
+        Parameters parameters = new Parameters(args -> ran.add("help"));
+
+        parameters.register(ParamBuilder.with().identifier("--verbose", "-v").description("Verbose")
+                .handler(args -> ran.add("verbose")).build());
+
+        this.src = ParamBuilder.with().identifier("src").description("Sources")
+                .handler(args -> ran.add("src " + String.join(",", args)))
+                .required().arity(1, Integer.MAX_VALUE).build();
+        this.dest = ParamBuilder.with().identifier("dest").description("Destination")
+                .handler(args -> ran.add("dest " + String.join(",", args)))
+                .required().arity(1, 1).build();
+
+        parameters.addPositionalParameter(this.src);
+        parameters.addPositionalParameter(this.dest);
+        return parameters;
+    }
+
+    @Test
+    public void lastTokenGoesToDest() throws ParameterException {
+        Parameters parameters = this.create();
+
+        parameters.process("a", "-v", "b", "c", "out");
+        assertEquals("[verbose, src a,b,c, dest out]", ran.toString());
+
+        ran.clear();
+        parameters.process("a", "out");
+        assertEquals("[src a, dest out]", ran.toString());
+    }
+
+    @Test
+    public void singleTokenGoesToDest() {
+        Parameters parameters = this.create();
+
+        // SRC leaves one token for DEST, so it gets none and is reported as required.
+        ParseResult result = parameters.tryParse("a");
+        assertFalse(result.isPresent(this.src));
+        assertTrue(result.isPresent(this.dest));
+
+        ParseError error = result.getErrors().get(0);
+        assertEquals(1, error.getId());
+        assertEquals(this.src, error.getParameter());
+
+        result = parameters.tryParse("-v");
+        assertEquals(2, result.getErrors().size());
+    }
+
+    @Test
+    public void tooFewForMinArity() {
+        Parameters parameters = new Parameters(args -> {});
+        Parameter pair = ParamBuilder.with().identifier("pair").description("Pair")
+                .handler(args -> {}).required().arity(2, 2).build();
+        parameters.addPositionalParameter(pair);
+
+        try {
+            parameters.parse("x");
+            fail("Bound one token to a positional parameter that needs two.");
+        } catch (ParameterException e) {
+            assertEquals(0, e.getId());
+        }
+
+        // Like a short option, it is then also missing for the required check.
+        ParseResult result = parameters.tryParse("x");
+        assertEquals(2, result.getErrors().size());
+        assertEquals(0, result.getErrors().get(0).getId());
+        assertEquals(0, result.getErrors().get(0).getPosition());
+        assertEquals(1, result.getErrors().get(1).getId());
+    }
+
+    @Test
+    public void optionalPositionalsTakeWhatIsLeft() throws ParameterException {
+        Parameters parameters = new Parameters(args -> {});
+        Parameter input = ParamBuilder.with().identifier("input").description("Input")
+                .handler(args -> {}).required().arity(1, 1).build();
+        Parameter output = ParamBuilder.with().identifier("output").description("Output")
+                .handler(args -> {}).arity(1, 1).build();
+        parameters.addPositionalParameter(input);
+        parameters.addPositionalParameter(output);
+
+        ParseResult one = parameters.parse("in");
+        assertArrayEquals(new String[] { "in" }, one.getArgs(input));
+        assertFalse(one.isPresent(output));
+
+        ParseResult two = parameters.parse("in", "out");
+        assertArrayEquals(new String[] { "out" }, two.getArgs(output));
+    }
+
+    @Test
+    public void extrasGoToUnknownOrUnhandled() throws ParameterException {
+        Parameters parameters = new Parameters(args -> {});
+        Parameter name = ParamBuilder.with().identifier("name").description("Name")
+                .handler(args -> {}).arity(1, 1).build();
+        parameters.addPositionalParameter(name);
+
+        ParseResult result = parameters.tryParse("a", "b", "c");
+        assertEquals(2, result.getErrors().size());
+        assertEquals(4, result.getErrors().get(0).getId());
+        assertEquals(1, result.getErrors().get(0).getPosition());
+        assertArrayEquals(new String[] { "a" }, result.getArgs(name));
+
+        parameters.handleInvalidOptionsWith(args -> {});
+        result = parameters.parse("a", "b", "c");
+        assertArrayEquals(new String[] { "b", "c" }, result.getUnhandled());
+    }
+
+    @Test
+    public void helpSkipsMissingPositionals() throws ParameterException {
+        Parameters parameters = this.create();
+
+        parameters.process("--help");
+        assertEquals("[help]", ran.toString());
+    }
+
+    @Test
+    public void usageListsPositionals() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Parameters parameters = new Parameters("cp.jar", "Copies", null);
+        parameters.addPositionalParameter(ParamBuilder.with().identifier("src").description("Sources")
+                .handler(args -> {}).required().arity(1, Integer.MAX_VALUE).build());
+        parameters.addPositionalParameter(ParamBuilder.with().identifier("dest").description("Destination")
+                .handler(args -> {}).arity(1, 1).build());
+
+        new DefaultHelpHandler(parameters, new PrintStream(out), "cp.jar", "Copies").showHelp();
+        assertTrue(out.toString(), out.toString().startsWith("Usage: cp.jar SRC... [DEST] "));
+    }
+
+    @Test
+    public void positionalsKeepPriorityOrder() throws ParameterException {
+        Parameters parameters = new Parameters(args -> {});
+        parameters.register(ParamBuilder.with().identifier("--first").description("First")
+                .handler(args -> ran.add("first")).priority((short) 10).build());
+        parameters.register(ParamBuilder.with().identifier("--last").description("Last")
+                .handler(args -> ran.add("last")).priority((short) -10).build());
+        parameters.addPositionalParameter(ParamBuilder.with().identifier("a").description("A")
+                .handler(args -> ran.add("a")).arity(1, 1).build());
+        parameters.addPositionalParameter(ParamBuilder.with().identifier("b").description("B")
+                .handler(args -> ran.add("b")).arity(1, 1).priority((short) 20).build());
+
+        parameters.process("--last", "x", "--first", "y");
+        assertEquals("[b, first, a, last]", ran.toString());
+    }
+}
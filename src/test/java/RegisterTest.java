@@ -1,12 +1,22 @@
+import com.github.xnen.Occurrences;
+import com.github.xnen.ParseError;
+import com.github.xnen.ParseResult;
 import com.github.xnen.Parameters;
+import com.github.xnen.config.ValueSource;
 import com.github.xnen.exception.ParameterException;
 import com.github.xnen.impl.IHandler;
+import com.github.xnen.impl.IOccurrenceHandler;
 import com.github.xnen.impl.IValidator;
 import com.github.xnen.param.ParamBuilder;
 import com.github.xnen.param.Parameter;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.Arrays;
+import java.util.Collections;
 
 import static org.junit.Assert.fail;
 
@@ -589,4 +599,227 @@ public class RegisterTest {
             // ignored
         }
     }
+
+    private String threadsFifteen;
+    private boolean verboseFifteen;
+
+    @Test
+    public void testFifteen() throws IOException {
+        // Test environment and config file fallback sources
+        Path config = Files.createTempFile("parameters", ".ini");
+        Files.write(config, Arrays.asList("# comment", "[app]", "threads = 8", "verbose = true"));
+
+        Parameters parameters = new Parameters(args -> {});
+        parameters.register(ParamBuilder.with()
+                .identifier("--threads")
+                .description("Threads")
+                .handler(args -> threadsFifteen = args[0])
+                .acceptArg("count")
+                .env("APP_THREADS")
+                .configKey("app.threads")
+                .required()
+                .build());
+        parameters.register(ParamBuilder.with()
+                .identifier("--verbose")
+                .description("Verbose")
+                .handler(args -> verboseFifteen = true)
+                .configKey("app.verbose")
+                .build());
+
+        parameters.useConfigFile(config);
+        parameters.useEnvironment(Collections.singletonMap("APP_THREADS", "4"));
+
+        try {
+            parameters.process();
+            if (!"4".equals(threadsFifteen)) {
+                fail("Environment should take precedence over the config file, but got " + threadsFifteen);
+            }
+            if (!verboseFifteen) {
+                fail("Flag was not enabled from the config file.");
+            }
+
+            parameters.setFallbackOrder(ValueSource.CONFIG_FILE, ValueSource.ENVIRONMENT);
+            parameters.process();
+            if (!"8".equals(threadsFifteen)) {
+                fail("Config file should take precedence after reordering, but got " + threadsFifteen);
+            }
+
+            parameters.process("--threads", "2");
+            if (!"2".equals(threadsFifteen)) {
+                fail("Args should always take precedence over fallback sources.");
+            }
+
+            Files.write(config, Collections.singletonList("app.threads = 16"));
+            Files.setLastModifiedTime(config, FileTime.fromMillis(Files.getLastModifiedTime(config).toMillis() + 5000));
+            parameters.process();
+            if (!"16".equals(threadsFifteen)) {
+                fail("Config file was not reloaded after being modified.");
+            }
+
+            parameters.useEnvironment(Collections.emptyMap());
+            parameters.useConfigFile(null);
+            parameters.process();
+            fail("Required parameter was satisfied without any source.");
+        } catch (ParameterException e) {
+            if (e.getId() != 1) {
+                e.printStackTrace();
+                fail("Unexpected ParameterException when using fallback sources.");
+            }
+        } finally {
+            Files.deleteIfExists(config);
+        }
+    }
+
+    private int verbositySixteen;
+    private Occurrences definesSixteen;
+    private String[] flatSixteen;
+
+    @Test
+    public void testSixteen() {
+        // Test repeatable parameters
+        Parameters parameters = new Parameters(args -> {});
+        IOccurrenceHandler verbose = occurrences -> verbositySixteen = occurrences.count();
+        IOccurrenceHandler define = occurrences -> definesSixteen = occurrences;
+
+        parameters.register(ParamBuilder.with()
+                .identifier("-v")
+                .description("Verbosity")
+                .handler(verbose)
+                .repeatable()
+                .build());
+        parameters.register(ParamBuilder.with()
+                .identifier("-D")
+                .description("Define")
+                .handler(define)
+                .acceptArg("key")
+                .acceptArg("value")
+                .repeatable()
+                .build());
+        parameters.register(ParamBuilder.with()
+                .identifier("--include", "-I")
+                .description("Include")
+                .handler(args -> flatSixteen = args)
+                .acceptsInfiniteArgs("dir")
+                .repeatable()
+                .build());
+
+        try {
+            parameters.process("-v", "-D", "a", "1", "-v", "-I", "x", "y", "-D", "b", "2", "-v", "-I", "z");
+
+            if (verbositySixteen != 3) {
+                fail("Expected 3 occurrences of -v, but got " + verbositySixteen);
+            }
+            if (definesSixteen.count() != 2 || !definesSixteen.get(1, 0).equals("b") || !definesSixteen.get(0, 1).equals("1")) {
+                fail("-D occurrences were not collected in order.");
+            }
+            if (!Arrays.equals(flatSixteen, new String[] { "x", "y", "z" })) {
+                fail("Plain handler should receive the args of every occurrence, but got " + Arrays.toString(flatSixteen));
+            }
+
+            parameters.process("-v");
+            if (verbositySixteen != 1) {
+                fail("Occurrences leaked between process calls.");
+            }
+        } catch (ParameterException e) {
+            e.printStackTrace();
+            fail("ParameterException thrown in normal usage.");
+        }
+    }
+
+    @Test
+    public void testSeventeen() {
+        // Test collecting every error without throwing
+        Parameters parameters = new Parameters(args -> {});
+        parameters.register(ParamBuilder.with()
+                .identifier("--port")
+                .description("Port")
+                .handler(args -> {})
+                .validator(args -> args[0].matches("[0-9]+"))
+                .acceptArg("port")
+                .build());
+        parameters.register(ParamBuilder.with()
+                .identifier("--host")
+                .description("Host")
+                .handler(args -> {})
+                .acceptArg("host")
+                .required()
+                .build());
+        parameters.register(ParamBuilder.with()
+                .identifier("--user")
+                .description("User")
+                .handler(args -> {})
+                .acceptArg("name")
+                .build());
+
+        ParseResult result = parameters.tryParse("--port", "abc", "--bogus", "--user");
+
+        int[] ids = result.getErrors().stream().mapToInt(ParseError::getId).sorted().toArray();
+        if (!Arrays.equals(ids, new int[] { 0, 1, 2, 4 })) {
+            fail("Expected arity, required, validation and unknown errors, but got " + result.getErrors());
+        }
+
+        for (ParseError error : result.getErrors()) {
+            int expected = error.getId() == 0 ? 3 : error.getId() == 2 ? 0 : error.getId() == 4 ? 2 : -1;
+            if (error.getPosition() != expected) {
+                fail("Wrong position for " + error);
+            }
+        }
+
+        try {
+            parameters.dispatch(result);
+            fail("A result with errors was dispatched.");
+        } catch (ParameterException e) {
+            if (e.getStackTrace().length != 0) {
+                fail("ParameterException should be stackless.");
+            }
+        }
+
+        try {
+            parameters.process("--port", "abc", "--host", "h");
+            fail("Improper validation of --port.");
+        } catch (ParameterException e) {
+            if (e.getId() != 2 || e.getStackTrace().length != 0) {
+                fail("Expected a stackless validation exception.");
+            }
+        }
+
+        if (parameters.tryParse("--host", "h", "--port", "80").hasErrors()) {
+            fail("Errors collected in normal usage.");
+        }
+        if (parameters.tryParseLine("--host 'h").getErrors().get(0).getId() != 3) {
+            fail("Tokenizer error not collected.");
+        }
+    }
+
+    @Test
+    public void testEighteen() {
+        // Test collecting errors when leftovers go to the invalid options handler
+        Parameters parameters = new Parameters(args -> {});
+        parameters.handleInvalidOptionsWith(args -> fail("Leftovers handled despite an arity error."));
+        parameters.register(ParamBuilder.with()
+                .identifier("--n")
+                .description("Pair")
+                .handler(args -> {})
+                .acceptArg("first")
+                .acceptArg("second")
+                .build());
+
+        ParseResult result = parameters.tryParse("stray", "--n", "1");
+        if (result.getErrors().size() != 1 || result.getErrors().get(0).getId() != 0) {
+            fail("Expected the arity error parse() throws, but got " + result.getErrors());
+        }
+
+        try {
+            parameters.parse("stray", "--n", "1");
+            fail("Parsed --n without enough args.");
+        } catch (ParameterException e) {
+            if (e.getId() != 0) {
+                fail("Expected an arity exception.");
+            }
+        }
+
+        if (parameters.tryParse("stray", "--n", "1", "2").hasErrors()) {
+            fail("Errors collected when the leftovers are only unhandled.");
+        }
+    }
 }
@@ -0,0 +1,193 @@
+import com.github.xnen.BatchOptions;
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.replay.Invocation;
+import com.github.xnen.replay.InvocationLog;
+import com.github.xnen.replay.Outcome;
+import com.github.xnen.replay.ReplayOptions;
+import com.github.xnen.replay.ReplayReport;
+import com.github.xnen.replay.Replayer;
+import com.github.xnen.script.ScriptRunner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReplayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> ran = new ArrayList<>();
+
+    private Parameters create(boolean strictLevel) {
+        Parameters parameters = new Parameters(args -> {});
+
+        parameters.register(ParamBuilder.with().identifier("--level").description("Level")
+                .handler(args -> ran.add("level " + args[0]))
+                .validator(args -> !strictLevel || !args[0].equals("trace"))
+                .acceptArg("level").build());
+        parameters.register(ParamBuilder.with().identifier("--token").description("Secret")
+                .handler(args -> {}).acceptArg("token").build());
+        parameters.register(ParamBuilder.with().identifier("--fail").description("Throws")
+                .handler(args -> { throw new IllegalStateException("fail"); }).build());
+        parameters.setDefaultParameter(ParamBuilder.with().identifier("files").description("Files")
+                .handler(args -> ran.add("files " + args.length)).acceptsInfiniteArgs("file").build());
+
+        return parameters;
+    }
+
+    private void process(Parameters parameters, String... args) {
+        try {
+            parameters.process(args);
+        } catch (ParameterException | RuntimeException ignored) {
+            // Recorded as the outcome
+        }
+    }
+
+    @Test
+    public void recordsArgsOutcomesAndRedacts() throws IOException {
+        Path log = this.folder.getRoot().toPath().resolve("invocations.log");
+        Parameters parameters = this.create(false);
+        parameters.startRecording(log, "--token");
+
+        this.process(parameters, "--level", "info", "--token", "s3cr\u00e9t", "a.txt", "b.txt");
+        this.process(parameters, "--level");
+        this.process(parameters, "--fail");
+        parameters.stopRecording();
+
+        // Not recorded any more
+        this.process(parameters, "--level", "debug");
+
+        List<Invocation> invocations = InvocationLog.read(log);
+        assertEquals(3, invocations.size());
+
+        assertArrayEquals(new String[] { "--level", "info", "--token", InvocationLog.REDACTED, "a.txt", "b.txt" }, invocations.get(0).getArgs());
+        assertEquals(Outcome.HANDLED, invocations.get(0).getOutcome());
+        assertEquals(Outcome.PARSE_ERROR, invocations.get(1).getOutcome());
+        assertEquals(0, invocations.get(1).getErrorId());
+        assertEquals(Outcome.HANDLER_ERROR, invocations.get(2).getOutcome());
+        assertEquals(-1, invocations.get(2).getErrorId());
+        assertTrue(invocations.get(0).getParseNanos() > 0);
+
+        // Appending keeps what is there.
+        parameters.startRecording(log, "files");
+        this.process(parameters, "x.txt", "--level", "warn");
+        parameters.stopRecording();
+
+        invocations = InvocationLog.read(log);
+        assertEquals(4, invocations.size());
+        assertArrayEquals(new String[] { InvocationLog.REDACTED, "--level", "warn" }, invocations.get(3).getArgs());
+    }
+
+    @Test
+    public void redactsIdentifierTakenAsAnotherValue() throws IOException, ParameterException {
+        Path log = this.folder.getRoot().toPath().resolve("overlap.log");
+        List<String> passwords = new ArrayList<>();
+        Parameters parameters = new Parameters(args -> {});
+        parameters.register(ParamBuilder.with().identifier("-o").description("Output")
+                .handler(args -> {}).acceptArg("file").build());
+        parameters.register(ParamBuilder.with().identifier("--password").description("Secret")
+                .handler(args -> passwords.add(args[0])).acceptArg("password").build());
+
+        parameters.startRecording(log, "--password");
+        parameters.process("-o", "--password", "hunter2");
+        parameters.stopRecording();
+
+        // parse() matches --password even though -o takes it as its value; so does the redaction.
+        assertEquals(Arrays.asList("hunter2"), passwords);
+        assertArrayEquals(new String[] { "-o", "--password", InvocationLog.REDACTED }, InvocationLog.read(log).get(0).getArgs());
+    }
+
+    @Test
+    public void recordsEveryEntryPoint() throws IOException, ParameterException {
+        Path log = this.folder.getRoot().toPath().resolve("entry-points.log");
+        Path script = this.folder.getRoot().toPath().resolve("script.txt");
+        Files.write(script, Arrays.asList("--level warn", "--level"));
+
+        Parameters parameters = this.create(false);
+        parameters.startRecording(log, "--token");
+        parameters.processLine("--level 'in fo' --token secret");
+        parameters.processBatch(Arrays.asList(new String[] { "--level", "debug" }, new String[] { "--fail" }), BatchOptions.ordered());
+        new ScriptRunner(parameters).run(script);
+        parameters.stopRecording();
+
+        List<Invocation> invocations = InvocationLog.read(log);
+        assertEquals(5, invocations.size());
+        assertArrayEquals(new String[] { "--level", "in fo", "--token", InvocationLog.REDACTED }, invocations.get(0).getArgs());
+        assertEquals(Outcome.HANDLED, invocations.get(1).getOutcome());
+        assertEquals(Outcome.HANDLER_ERROR, invocations.get(2).getOutcome());
+        assertArrayEquals(new String[] { "--level", "warn" }, invocations.get(3).getArgs());
+        assertEquals(Outcome.PARSE_ERROR, invocations.get(4).getOutcome());
+    }
+
+    @Test
+    public void truncatedRecordEndsTheLog() throws IOException {
+        Path log = this.folder.getRoot().toPath().resolve("truncated.log");
+        Parameters parameters = this.create(false);
+        parameters.startRecording(log);
+        this.process(parameters, "--level", "info");
+        this.process(parameters, "--level", "debug");
+        parameters.stopRecording();
+
+        byte[] bytes = Files.readAllBytes(log);
+        Files.write(log, Arrays.copyOf(bytes, bytes.length - 3), StandardOpenOption.TRUNCATE_EXISTING);
+        assertEquals(1, InvocationLog.read(log).size());
+
+        Files.write(log, new byte[] { 1, 2, 3, 4, 5, 6 }, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            InvocationLog.read(log);
+            fail("Read a file that isn't an invocation log.");
+        } catch (IOException expected) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void replayReportsLatenciesAndDiffs() throws IOException {
+        Path log = this.folder.getRoot().toPath().resolve("replay.log");
+        Parameters recorded = this.create(false);
+        recorded.startRecording(log);
+
+        for (int i = 0; i < 200; i++) {
+            this.process(recorded, "--level", i % 10 == 0 ? "trace" : "info", "f" + i, "--unknown");
+        }
+        this.process(recorded, "--level");
+        recorded.stopRecording();
+
+        List<Invocation> invocations = InvocationLog.read(log);
+
+        // The same parameters replay without differences, running no handlers when parsing only.
+        ran.clear();
+        ReplayReport same = Replayer.replay(this.create(false), invocations, ReplayOptions.parseOnly().warmupRounds(1));
+        assertEquals(201, same.getInvocationCount());
+        assertTrue(same.getDiffs().isEmpty());
+        assertTrue(ran.isEmpty());
+        assertTrue(same.getThroughput() > 0);
+        assertTrue(same.getPercentileNanos(50) <= same.getPercentileNanos(99));
+        assertTrue(same.getPercentileNanos(99) <= same.getPercentileNanos(100));
+
+        // A stricter validator changes every tenth invocation.
+        ReplayReport stricter = Replayer.replay(this.create(true), invocations, ReplayOptions.dispatching());
+        assertEquals(20, stricter.getDiffs().size());
+
+        ReplayReport.Diff diff = stricter.getDiffs().get(0);
+        assertEquals(0, diff.getIndex());
+        assertEquals(Outcome.HANDLED, diff.getRecorded().getOutcome());
+        assertEquals(Outcome.PARSE_ERROR, diff.getOutcome());
+        assertEquals(2, diff.getErrorId());
+    }
+}
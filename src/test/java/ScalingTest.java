@@ -0,0 +1,320 @@
+import com.github.xnen.ParseResult;
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.param.Parameter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ScalingTest {
+
+    private static final int[] SIZES = { 100_000, 1_000_000 };
+
+    /**
+     * Random registry of flags, fixed-arity, infinite and requiredUnless parameters, plus an infinite default parameter.
+     */
+    private Parameters randomParameters(Random random, int count) {
+        return this.randomParameters(random, count, true);
+    }
+
+    /**
+     * The same, registered with one registerAll() call, or one register() call per parameter.
+     */
+    private Parameters randomParameters(Random random, int count, boolean batched) {
+        Parameters parameters = new Parameters(args -> {});
+        List<Parameter> batch = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            ParamBuilder builder = ParamBuilder.with()
+                    .identifier("--p" + i, "-p" + i)
+                    .description("Parameter " + i)
+                    .handler(args -> {})
+                    .priority((short) random.nextInt(10));
+
+            int kind = random.nextInt(10);
+            if (kind < 3) {
+                for (int j = 0; j <= kind; j++) builder.acceptArg("arg" + j);
+            } else if (kind == 3) {
+                builder.acceptsInfiniteArgs("items");
+            } else if (kind == 4 && i > 0) {
+                builder.requiredUnless("--p" + random.nextInt(i), "-P" + random.nextInt(i));
+            } else if (kind == 5) {
+                builder.caseSensitive();
+            } else if (kind == 6) {
+                builder.validator(args -> args.length == 0 || !args[0].equals("bad"));
+                builder.acceptArg("value");
+            }
+
+            if (batched) {
+                batch.add(builder.build());
+            } else {
+                parameters.register(builder.build());
+            }
+        }
+
+        parameters.registerAll(batch);
+        parameters.setDefaultParameter(ParamBuilder.with()
+                .identifier("default")
+                .description("Leftovers")
+                .handler(args -> {})
+                .acceptsInfiniteArgs("rest")
+                .build());
+
+        return parameters;
+    }
+
+    private String[] randomArgs(Random random, int parameterCount, int tokens) {
+        String[] args = new String[tokens];
+
+        for (int i = 0; i < tokens; i++) {
+            int pick = random.nextInt(10);
+            if (pick < 4) {
+                String id = (random.nextBoolean() ? "--p" : "-p") + random.nextInt(parameterCount);
+                args[i] = random.nextInt(4) == 0 ? id.toUpperCase(Locale.ROOT) : id;
+            } else if (pick == 4) {
+                args[i] = "bad";
+            } else {
+                args[i] = "v" + random.nextInt(1000);
+            }
+        }
+
+        return args;
+    }
+
+    /**
+     * Outcome of a parse: the exception message, or every parameter's args.
+     */
+    private String outcome(Parameters parameters, ParseResult result) {
+        StringBuilder sb = new StringBuilder();
+
+        List<Parameter> all = new ArrayList<>(parameters.getRegisteredParameters());
+        all.add(parameters.getDefaultParameter());
+
+        for (Parameter parameter : all) {
+            if (result.isPresent(parameter)) {
+                sb.append(parameter.getIdentifiers()[0]).append('=').append(String.join(",", result.getArgs(parameter))).append(';');
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Straightforward parser following the documented rules: every token is tried against every parameter.
+     */
+    private String referenceParse(Parameters parameters, String[] args) {
+        List<Parameter> registered = parameters.getRegisteredParameters();
+        Parameter defaultParam = parameters.getDefaultParameter();
+        Map<Parameter, String[]> paramArgs = new HashMap<>();
+        boolean[] consumed = new boolean[args.length];
+
+        for (int i = 0; i < args.length; i++) {
+            for (Parameter parameter : registered) {
+                if (!parameter.matches(args[i]))
+                    continue;
+
+                int argCount = parameter.getArgCount();
+                if (parameter.isInfinite()) {
+                    argCount = 0;
+                    outer:
+                    for (int j = i + 1; j < args.length; j++) {
+                        for (Parameter other : registered) {
+                            if (other.matches(args[j]))
+                                break outer;
+                        }
+                        argCount++;
+                    }
+                }
+
+                if (i + argCount + 1 > args.length)
+                    return "Parameter '" + parameter + "' consumes more args than are available.";
+
+                String[] values = new String[argCount];
+                for (int j = 0; j < argCount; j++) {
+                    values[j] = args[i + j + 1];
+                    consumed[i + j + 1] = true;
+                }
+
+                paramArgs.put(parameter, values);
+                consumed[i] = true;
+            }
+        }
+
+        List<String> leftovers = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!consumed[i]) leftovers.add(args[i]);
+        }
+        if (!leftovers.isEmpty())
+            paramArgs.put(defaultParam, leftovers.toArray(new String[0]));
+
+        List<Parameter> all = new ArrayList<>(registered);
+        all.add(defaultParam);
+        all.sort((o1, o2) -> Short.compare(o2.getPriority(), o1.getPriority()));
+
+        boolean help = false;
+        for (Parameter present : paramArgs.keySet()) {
+            help |= present.matches("--help");
+        }
+
+        for (Parameter parameter : all) {
+            if (!parameter.isRequired() || paramArgs.containsKey(parameter) || help)
+                continue;
+
+            boolean satisfied = false;
+            for (String clause : parameter.getRequiredClauses()) {
+                for (Parameter present : paramArgs.keySet()) {
+                    satisfied |= present.matches(clause);
+                }
+            }
+
+            if (!satisfied)
+                return "Parameter '" + parameter + "' is required, but not present.";
+        }
+
+        for (Parameter parameter : all) {
+            if (paramArgs.containsKey(parameter) && !parameter.isValid(paramArgs.get(parameter)))
+                return "Parameter '" + parameter + "' returned FALSE during validation.";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        List<Parameter> ordered = new ArrayList<>(registered);
+        ordered.add(defaultParam);
+        for (Parameter parameter : ordered) {
+            if (paramArgs.containsKey(parameter)) {
+                sb.append(parameter.getIdentifiers()[0]).append('=').append(String.join(",", paramArgs.get(parameter))).append(';');
+            }
+        }
+
+        return sb.toString();
+    }
+
+    @Test
+    public void testMatchesReferenceParser() {
+        Random random = new Random(34);
+
+        for (int round = 0; round < 300; round++) {
+            int parameterCount = 1 + random.nextInt(40);
+            Parameters parameters = this.randomParameters(random, parameterCount);
+            String[] args = this.randomArgs(random, parameterCount, random.nextInt(60));
+
+            String expected = this.referenceParse(parameters, args);
+            String actual;
+
+            try {
+                actual = this.outcome(parameters, parameters.parse(args));
+            } catch (ParameterException e) {
+                actual = e.getMessage();
+            }
+
+            assertEquals("Round " + round + ": " + String.join(" ", args), expected, actual);
+        }
+    }
+
+    @Test
+    public void testDuplicateIdentifiersAreSymmetric() {
+        // A case-insensitive identifier clashes with a case-sensitive one that differs only in case, whichever comes first.
+        Parameters parameters = new Parameters(args -> {});
+        parameters.register(ParamBuilder.with().identifier("--Mode").description("Mode").handler(args -> {}).caseSensitive().build());
+
+        try {
+            parameters.register(ParamBuilder.with().identifier("--mode").description("Mode").handler(args -> {}).build());
+            fail("Registered an identifier that matches an existing one.");
+        } catch (RuntimeException expected) {
+            // Expected
+        }
+
+        // Differing case is fine when both are case-sensitive.
+        parameters.register(ParamBuilder.with().identifier("--MODE").description("Mode").handler(args -> {}).caseSensitive().build());
+
+        // A failed registerAll() registers nothing.
+        List<Parameter> batch = new ArrayList<>();
+        batch.add(ParamBuilder.with().identifier("--fresh").description("Fresh").handler(args -> {}).build());
+        batch.add(ParamBuilder.with().identifier("--HELP").description("Clash").handler(args -> {}).build());
+
+        try {
+            parameters.registerAll(batch);
+            fail("Registered a batch containing a clashing identifier.");
+        } catch (RuntimeException expected) {
+            // Expected
+        }
+
+        parameters.register(ParamBuilder.with().identifier("--fresh").description("Fresh").handler(args -> {}).build());
+        assertEquals(4, parameters.getRegisteredParameters().size());
+    }
+
+    @Test
+    public void testRegisterAndParseScaleLinearly() {
+        // Registering parameters one at a time and parsing should both take time linear in their number, with a registry
+        // that has requiredUnless clauses, validators, infinite parameters and an infinite default parameter. A quadratic
+        // path (copying the registry per register(), rescanning infinite spans, looping over clauses) fits a slope near 2.
+        // Smaller sizes take too little time to measure reliably, so they only warm up.
+        this.timeRegisterAndParse(10_000, new long[2]);
+        this.timeRegisterAndParse(100_000, new long[2]);
+
+        double[] logSize = new double[SIZES.length];
+        double[] logRegister = new double[SIZES.length];
+        double[] logParse = new double[SIZES.length];
+
+        for (int s = 0; s < SIZES.length; s++) {
+            long[] best = { Long.MAX_VALUE, Long.MAX_VALUE };
+            for (int run = 0; run < 3; run++) {
+                this.timeRegisterAndParse(SIZES[s], best);
+            }
+
+            logSize[s] = Math.log(SIZES[s]);
+            logRegister[s] = Math.log(best[0]);
+            logParse[s] = Math.log(best[1]);
+        }
+
+        double registerSlope = slope(logSize, logRegister);
+        double parseSlope = slope(logSize, logParse);
+        assertTrue("register() time grows as n^" + registerSlope + ", expected linear.", registerSlope < 1.5);
+        assertTrue("Parse time grows as n^" + parseSlope + ", expected linear.", parseSlope < 1.5);
+    }
+
+    /**
+     * Register tokens / 10 random parameters one at a time, then parse that many random tokens; keep the best times.
+     */
+    private void timeRegisterAndParse(int tokens, long[] best) {
+        int parameterCount = tokens / 10;
+
+        long start = System.nanoTime();
+        Parameters parameters = this.randomParameters(new Random(tokens), parameterCount, false);
+        best[0] = Math.min(best[0], System.nanoTime() - start);
+
+        String[] args = this.randomArgs(new Random(tokens + 1), parameterCount, tokens);
+
+        start = System.nanoTime();
+        parameters.tryParse(args);
+        best[1] = Math.min(best[1], System.nanoTime() - start);
+    }
+
+    /**
+     * Least-squares slope of y against x.
+     */
+    private static double slope(double[] x, double[] y) {
+        double meanX = 0, meanY = 0;
+        for (int i = 0; i < x.length; i++) {
+            meanX += x[i] / x.length;
+            meanY += y[i] / y.length;
+        }
+
+        double covariance = 0, variance = 0;
+        for (int i = 0; i < x.length; i++) {
+            covariance += (x[i] - meanX) * (y[i] - meanY);
+            variance += (x[i] - meanX) * (x[i] - meanX);
+        }
+
+        return covariance / variance;
+    }
+}
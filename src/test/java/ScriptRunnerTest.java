@@ -0,0 +1,138 @@
+import com.github.xnen.Parameters;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.script.ErrorPolicy;
+import com.github.xnen.script.ScriptReport;
+import com.github.xnen.script.ScriptRunner;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ScriptRunnerTest {
+
+    private final List<String> copied = new ArrayList<>();
+
+    private Parameters create() {
+        Parameters parameters = new Parameters(args -> {});
+        parameters.register(ParamBuilder.with()
+                .identifier("--copy")
+                .description("Copy")
+                .handler(args -> copied.add(args[0] + ">" + args[1]))
+                .acceptArg("from")
+                .acceptArg("to")
+                .build());
+        return parameters;
+    }
+
+    @Test
+    public void testScript() throws IOException {
+        Path script = Files.createTempFile("parameters", ".script");
+        Files.write(script, Arrays.asList(
+                "# maintenance",
+                "--copy a b",
+                "",
+                "--copy 'with space' \\",
+                "   c",
+                "--copy missing",
+                "   # indented comment",
+                "--copy \"unterminated",
+                "--copy d e"));
+
+        try {
+            ScriptReport report = new ScriptRunner(create()).errorPolicy(ErrorPolicy.CONTINUE_ON_ERROR).queueCapacity(2).run(script);
+
+            assertEquals(Arrays.asList("a>b", "with space>c", "d>e"), copied);
+            assertEquals(5, report.getLines().size());
+            assertEquals(2, report.getFailureCount());
+            assertEquals(4, report.getLines().get(1).getLineNumber());
+            assertEquals(6, report.getLines().get(2).getLineNumber());
+            assertFalse(report.isStopped());
+
+            copied.clear();
+            report = new ScriptRunner(create()).run(script);
+
+            assertEquals(Arrays.asList("a>b", "with space>c"), copied);
+            assertEquals(3, report.getLines().size());
+            assertTrue(report.isStopped());
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+
+    @Test
+    public void testBackslashInQuotes() throws IOException {
+        Path script = Files.createTempFile("parameters", ".script");
+        Files.write(script, Arrays.asList(
+                "--copy x 'y\\",
+                "--copy d e",
+                "--copy \"f \\",
+                "g\" h"));
+
+        try {
+            ScriptReport report = new ScriptRunner(create()).errorPolicy(ErrorPolicy.CONTINUE_ON_ERROR).run(script);
+
+            // Literal inside single quotes, so the first line doesn't continue; inside double quotes it does.
+            assertEquals(Arrays.asList("d>e", "f g>h"), copied);
+            assertEquals(3, report.getLines().size());
+            assertEquals(1, report.getFailureCount());
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+
+    @Test
+    public void testStopWhileReading() throws IOException {
+        Path script = Files.createTempFile("parameters", ".script");
+        List<String> lines = new ArrayList<>();
+        lines.add("--copy missing");
+        for (int i = 0; i < 10_000; i++) {
+            lines.add("--copy src" + i + " dst" + i);
+        }
+        Files.write(script, lines);
+
+        try {
+            // The reader is still reading when the runner stops; that must not surface as a failure.
+            for (int round = 0; round < 20; round++) {
+                ScriptReport report = new ScriptRunner(create()).queueCapacity(1).run(script);
+                assertTrue(report.isStopped());
+                assertEquals(1, report.getLines().size());
+            }
+        } finally {
+            Files.deleteIfExists(script);
+        }
+
+        try {
+            new ScriptRunner(create()).errorPolicy(null);
+            fail("Accepted a null error policy.");
+        } catch (RuntimeException expected) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testLargeScript() throws IOException {
+        Path script = Files.createTempFile("parameters", ".script");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            lines.add("--copy src" + i + " dst" + i);
+        }
+        Files.write(script, lines);
+
+        try {
+            ScriptReport report = new ScriptRunner(create()).run(script);
+            assertEquals(20_000, copied.size());
+            assertEquals(0, report.getFailureCount());
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+}
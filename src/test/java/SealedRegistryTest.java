@@ -0,0 +1,127 @@
+import com.github.xnen.ParseResult;
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.param.Parameter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SealedRegistryTest {
+
+    private static final int FLAGS = 100_000;
+
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<>());
+
+    private List<Parameter> catalog() {
+        List<Parameter> catalog = new ArrayList<>(FLAGS);
+
+        for (int i = 0; i < FLAGS; i++) {
+            String name = "feature-" + i;
+            ParamBuilder builder = ParamBuilder.with()
+                    .identifier("--" + name, "-f" + i)
+                    .description("Toggles " + name)
+                    .handler(args -> ran.add(name + (args.length > 0 ? "=" + args[0] : "")))
+                    .priority((short) (i % 3));
+
+            if (i % 2 == 0) builder.acceptArg("value");
+            if (i % 1000 == 7) builder.env("FEATURE_" + i);
+            if (i == 42) builder.requiredUnless("--feature-43");
+
+            catalog.add(builder.build());
+        }
+
+        return catalog;
+    }
+
+    private Parameters create(List<Parameter> catalog, boolean sealed) {
+        Parameters parameters = new Parameters(args -> ran.add("help"));
+        Map<String, String> environment = new HashMap<>();
+        environment.put("FEATURE_1007", "true");
+        parameters.useEnvironment(environment);
+        parameters.registerAll(catalog);
+        if (sealed) parameters.seal();
+        return parameters;
+    }
+
+    @Test
+    public void testSealedParsesTheSame() throws ParameterException {
+        List<Parameter> catalog = this.catalog();
+        Parameters open = this.create(catalog, false);
+        Parameters sealed = this.create(catalog, true);
+
+        String[][] inputs = {
+                { "--feature-43", "-F10", "on", "--FEATURE-99999" },
+                { "--feature-42", "x", "-f2", "y", "--feature-5" },
+                { "--help" },
+        };
+
+        for (String[] args : inputs) {
+            ran.clear();
+            open.process(args);
+            List<String> expected = new ArrayList<>(ran);
+
+            ran.clear();
+            sealed.process(args);
+            assertEquals(expected, ran);
+        }
+
+        // Required constraints work on the table.
+        try {
+            sealed.process("--feature-1");
+            fail("Sealed registry did not check a required parameter.");
+        } catch (ParameterException e) {
+            assertEquals(1, e.getId());
+        }
+    }
+
+    @Test
+    public void testParametersAreRecreatedOnce() throws ParameterException {
+        List<Parameter> catalog = this.catalog();
+        Parameters parameters = this.create(catalog, true);
+
+        ParseResult result = parameters.parse("--feature-43", "-f10", "on");
+        Parameter original = catalog.get(10);
+
+        // The registered object isn't kept, but is still accepted by ParseResult.
+        assertTrue(result.isPresent(original));
+        assertArrayEquals(new String[] { "on" }, result.getArgs(original));
+
+        List<Parameter> registered = parameters.getRegisteredParameters();
+        assertEquals(FLAGS + 1, registered.size());
+        assertSame(registered.get(500), registered.get(500));
+        assertNotSame(catalog.get(10), findByIdentifier(registered, "-f10"));
+        assertEquals("Toggles feature-10", findByIdentifier(registered, "-f10").getDescription());
+        assertEquals(1, findByIdentifier(registered, "-f10").getArgCount());
+    }
+
+    @Test
+    public void testNoRegisteringAfterSeal() {
+        Parameters parameters = this.create(this.catalog().subList(0, 10), true);
+
+        try {
+            parameters.register(ParamBuilder.with().identifier("--late").description("Late").handler(args -> {}).build());
+            fail("Registered a parameter after seal().");
+        } catch (RuntimeException expected) {
+            // Expected
+        }
+    }
+
+    private static Parameter findByIdentifier(List<Parameter> parameters, String identifier) {
+        for (Parameter parameter : parameters) {
+            if (parameter.matches(identifier)) return parameter;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,163 @@
+import com.github.xnen.ParseResult;
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.impl.IHandler;
+import com.github.xnen.impl.IHandlerBinder;
+import com.github.xnen.impl.IValidator;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.param.Parameter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SnapshotTest {
+
+    private static final int FLAGS = 10_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> bound = Collections.synchronizedList(new ArrayList<>());
+
+    private IHandler handler(String identifier) {
+        return args -> ran.add(identifier + Arrays.toString(args));
+    }
+
+    private Parameters registered() {
+        Parameters parameters = new Parameters(args -> ran.add("help"));
+        List<Parameter> catalog = new ArrayList<>();
+
+        for (int i = 0; i < FLAGS; i++) {
+            String identifier = "--flag-" + i;
+            ParamBuilder builder = ParamBuilder.with().identifier(identifier, "-F" + i).description("Flag " + i)
+                    .handler(this.handler(identifier))
+                    .priority((short) (i % 5));
+
+            if (i % 3 == 0) builder.acceptArg("value");
+            if (i == 7) builder.acceptsInfiniteArgs("file");
+            if (i == 11) builder.requiredUnless("--flag-12");
+            if (i == 13) builder.caseSensitive().repeatable();
+            if (i == 17) builder.timeout(Duration.ofSeconds(5));
+            catalog.add(builder.build());
+        }
+
+        parameters.registerAll(catalog);
+        parameters.seal();
+        return parameters;
+    }
+
+    private final IHandlerBinder binder = new IHandlerBinder() {
+        @Override
+        public IHandler handler(int ordinal, String identifier) {
+            bound.add(identifier);
+            return SnapshotTest.this.handler(identifier);
+        }
+
+        @Override
+        public IValidator validator(int ordinal, String identifier) {
+            return identifier.equals("--flag-3") ? args -> !args[0].equals("bad") : null;
+        }
+    };
+
+    @Test
+    public void loadedSnapshotParsesLikeTheRegistry() throws IOException, ParameterException {
+        Path path = this.folder.getRoot().toPath().resolve("cli.snapshot");
+        Parameters original = this.registered();
+        original.writeSnapshot(path, "build-1");
+
+        Parameters loaded = new Parameters(args -> ran.add("help"));
+        assertTrue(loaded.loadSnapshot(path, "build-1", this.binder));
+        assertTrue(this.bound.isEmpty());
+
+        String[][] lines = {
+                { "--flag-11", "--flag-3", "x", "--flag-7", "a", "b" },
+                { "--flag-12", "-F13", "-F13", "--flag-6", "y" },
+                { "--FLAG-11", "-f13" },
+                { "--help" },
+        };
+
+        for (String[] line : lines) {
+            ParseResult expected = original.tryParse(line);
+            ParseResult actual = loaded.tryParse(line);
+            assertEquals(expected.getErrors().toString(), actual.getErrors().toString());
+            assertEquals(expected.getUnhandled() == null, actual.getUnhandled() == null);
+
+            // Same shape, so results can be handed across
+            if (!expected.hasErrors()) {
+                ByteBuffer encoded = expected.encode();
+                ParseResult decoded = loaded.decode(encoded);
+                this.ran.clear();
+                loaded.dispatch(decoded);
+                List<String> fromSnapshot = new ArrayList<>(this.ran);
+                this.ran.clear();
+                original.dispatch(expected);
+                assertEquals(this.ran, fromSnapshot);
+            }
+        }
+
+        assertTrue(this.bound.size() < 10);
+        assertFalse(this.bound.contains("--help"));
+
+        List<Parameter> parameters = loaded.getRegisteredParameters();
+        assertEquals(FLAGS + 1, parameters.size());
+        for (int i = 0; i < parameters.size(); i += 997) {
+            Parameter expected = original.getRegisteredParameters().get(i);
+            Parameter actual = parameters.get(i);
+            assertArrayEquals(expected.getIdentifiers(), actual.getIdentifiers());
+            assertEquals(expected.getArgs(), actual.getArgs());
+            assertEquals(expected.getPriority(), actual.getPriority());
+            assertEquals(expected.getTimeout(), actual.getTimeout());
+        }
+
+        try {
+            loaded.process("--flag-11", "--flag-3", "bad");
+            fail("The bound validator should reject 'bad'");
+        } catch (ParameterException e) {
+            assertEquals(2, e.getId());
+        }
+    }
+
+    @Test
+    public void staleOrDamagedSnapshotsAreNotLoaded() throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve("cli.snapshot");
+        assertFalse(new Parameters(args -> {}).loadSnapshot(path, "build-1", this.binder));
+
+        this.registered().writeSnapshot(path, "build-1");
+        assertFalse(new Parameters(args -> {}).loadSnapshot(path, "build-2", this.binder));
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(path, bytes);
+        assertFalse(new Parameters(args -> {}).loadSnapshot(path, "build-1", this.binder));
+
+        Files.write(path, Arrays.copyOf(bytes, 40));
+        Parameters parameters = new Parameters(args -> {});
+        assertFalse(parameters.loadSnapshot(path, "build-1", this.binder));
+
+        // Nothing changed, so registration continues as usual
+        parameters.register(ParamBuilder.with().identifier("--fresh").description("Fresh").handler(args -> {}).build());
+        assertEquals(2, parameters.getRegisteredParameters().size());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void onlySealedRegistriesAreWritten() throws IOException {
+        new Parameters(args -> {}).writeSnapshot(this.folder.getRoot().toPath().resolve("x"), "build-1");
+    }
+}
@@ -0,0 +1,142 @@
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.impl.IStreamHandler;
+import com.github.xnen.param.ParamBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StreamArgumentsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<Channel> channels = new ArrayList<>();
+
+    private Parameters create(IStreamHandler handler) {
+        Parameters parameters = new Parameters(args -> {});
+        parameters.register(ParamBuilder.with().identifier("--copy").description("Upper-cases a file")
+                .handler(handler)
+                .acceptInput("in")
+                .acceptOutput("out")
+                .build());
+        return parameters;
+    }
+
+    private final IStreamHandler upperCase = args -> {
+        BufferedReader reader = args.reader(0);
+        BufferedWriter writer = args.writer(1);
+        for (String line; (line = reader.readLine()) != null; ) {
+            writer.write(line.toUpperCase());
+            writer.newLine();
+        }
+    };
+
+    @Test
+    public void filesAreOpenedAndClosedAroundTheHandler() throws Exception {
+        Path in = this.folder.newFile("in.txt").toPath();
+        Path out = this.folder.getRoot().toPath().resolve("out.txt");
+        Files.write(in, "one\ntwo\n".getBytes(StandardCharsets.UTF_8));
+
+        Parameters parameters = this.create(args -> {
+            channels.add(args.input(0));
+            upperCase.handle(args);
+        });
+        parameters.process("--copy", in.toString(), out.toString());
+
+        assertEquals("ONE\nTWO\n", new String(Files.readAllBytes(out), StandardCharsets.UTF_8).replace(System.lineSeparator(), "\n"));
+        assertFalse(this.channels.get(0).isOpen());
+    }
+
+    @Test
+    public void dashMeansStdinAndStdout() throws ParameterException {
+        InputStream stdin = System.in;
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+        try {
+            System.setIn(new ByteArrayInputStream("piped\n".getBytes(StandardCharsets.UTF_8)));
+            System.setOut(new PrintStream(captured, true));
+
+            this.create(this.upperCase).process("--copy", "-", "-");
+            System.out.print("still open");
+        } finally {
+            System.setIn(stdin);
+            System.setOut(stdout);
+        }
+
+        assertEquals("PIPED\nstill open", new String(captured.toByteArray(), StandardCharsets.UTF_8).replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    public void regularFilesCanBeMapped() throws Exception {
+        Path in = this.folder.newFile("big.bin").toPath();
+        byte[] content = new byte[1 << 20];
+        for (int i = 0; i < content.length; i++) content[i] = (byte) i;
+        Files.write(in, content);
+
+        long[] sum = new long[1];
+        this.create(args -> {
+            ByteBuffer mapped = args.map(0);
+            assertTrue(mapped.isDirect());
+            while (mapped.hasRemaining()) sum[0] += mapped.get();
+        }).process("--copy", in.toString(), "unused");
+
+        long expected = 0;
+        for (byte b : content) expected += b;
+        assertEquals(expected, sum[0]);
+    }
+
+    @Test
+    public void nothingIsOpenedUntilAsked() throws ParameterException {
+        Path missing = this.folder.getRoot().toPath().resolve("missing");
+        List<String> seen = new ArrayList<>();
+
+        this.create(args -> seen.add(args.get(0))).process("--copy", missing.toString(), missing.toString());
+
+        assertEquals(missing.toString(), seen.get(0));
+        assertFalse(Files.exists(missing));
+    }
+
+    @Test
+    public void argsKeepTheirKindWhenSealed() throws ParameterException {
+        Parameters parameters = this.create(args -> {
+            try {
+                args.input(1);
+                fail("Arg 1 is an output");
+            } catch (RuntimeException expected) {
+                // Expected
+            }
+        });
+        parameters.seal();
+
+        parameters.process("--copy", "a", "b");
+        assertTrue(parameters.getRegisteredParameters().get(1).isInput(0));
+        assertTrue(parameters.getRegisteredParameters().get(1).isOutput(1));
+    }
+
+    @Test(expected = java.io.UncheckedIOException.class)
+    public void ioFailuresReachTheCaller() throws ParameterException {
+        Path missing = this.folder.getRoot().toPath().resolve("missing");
+        this.create(this.upperCase).process("--copy", missing.toString(), "-");
+    }
+}
@@ -0,0 +1,143 @@
+import com.github.xnen.ParseResult;
+import com.github.xnen.Parameters;
+import com.github.xnen.RegistryTemplate;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.param.Parameter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TemplateTest {
+
+    private final List<String> ran = new ArrayList<>();
+
+    private RegistryTemplate template() {
+        Parameters common = new Parameters(args -> ran.add("common help"));
+        List<Parameter> batch = new ArrayList<>();
+
+        for (int i = 0; i < 300; i++) {
+            String name = "--common-" + i;
+            ParamBuilder builder = ParamBuilder.with().identifier(name).description("Common " + i)
+                    .handler(args -> ran.add(name + " " + String.join(",", args)))
+                    .priority((short) (i % 7));
+            if (i % 3 == 0)
+                builder.acceptArg("value");
+            batch.add(builder.build());
+        }
+
+        common.registerAll(batch);
+        common.seal();
+        return common.toTemplate();
+    }
+
+    @Test
+    public void tenantsShareTheTemplate() throws ParameterException {
+        RegistryTemplate template = this.template();
+        Parameters first = new Parameters(template, args -> ran.add("first help"));
+        Parameters second = new Parameters(template, args -> ran.add("second help"));
+
+        first.register(ParamBuilder.with().identifier("--first-only").description("Tenant")
+                .handler(args -> ran.add("first only")).priority((short) 3).build());
+
+        first.process("--common-3", "x", "--first-only");
+        second.process("--common-3", "y");
+        assertEquals("[--common-3 x, first only, --common-3 y]", ran.toString());
+
+        // The tenant's parameter is unknown to the other tenant.
+        assertEquals(4, second.tryParse("--first-only").getErrors().get(0).getId());
+
+        // Template parameters are the same objects in every tenant.
+        assertEquals(302, first.getRegisteredParameters().size());
+        assertEquals(301, second.getRegisteredParameters().size());
+        assertSame(find(first, "--common-10"), find(second, "--common-10"));
+    }
+
+    @Test
+    public void registeredParametersAreSortedByPriority() {
+        Parameters tenant = new Parameters(this.template(), args -> {});
+        tenant.register(ParamBuilder.with().identifier("--tenant").description("Tenant")
+                .handler(args -> {}).priority((short) 4).build());
+
+        List<Parameter> registered = tenant.getRegisteredParameters();
+        for (int i = 1; i < registered.size(); i++) {
+            assertTrue(registered.get(i - 1).getPriority() >= registered.get(i).getPriority());
+        }
+
+        // After the template's parameters of the same priority, like register() on its own.
+        int index = registered.indexOf(find(tenant, "--tenant"));
+        assertEquals(4, registered.get(index - 1).getPriority());
+        assertEquals(3, registered.get(index + 1).getPriority());
+    }
+
+    @Test
+    public void overridesStayWithTheTenant() throws ParameterException {
+        RegistryTemplate template = this.template();
+        Parameters first = new Parameters(template, args -> ran.add("first help"));
+        Parameters second = new Parameters(template, args -> ran.add("second help"));
+
+        first.overrideHandler("--common-4", args -> ran.add("first's own"));
+        first.process("--common-4");
+        second.process("--common-4");
+        first.process("--help");
+        second.process("--help");
+
+        assertEquals("[first's own, --common-4 , first help, second help]", ran.toString());
+
+        ParseResult result = first.parse("--common-4");
+        assertTrue(result.isPresent(find(second, "--common-4")));
+    }
+
+    @Test
+    public void overridesKeepTheShape() {
+        Parameters tenant = new Parameters(this.template(), args -> {});
+
+        try {
+            tenant.override(ParamBuilder.with().identifier("--common-1").description("Takes an arg now")
+                    .handler(args -> {}).priority((short) 1).acceptArg("value").build());
+            fail("Overrode a parameter with another arg count.");
+        } catch (RuntimeException expected) {
+            // Expected
+        }
+
+        tenant.override(ParamBuilder.with().identifier("--common-1").description("Same shape")
+                .handler(args -> ran.add("overridden")).priority((short) 1).build());
+        assertEquals("Same shape", find(tenant, "--common-1").getDescription());
+    }
+
+    @Test
+    public void tenantIdentifiersCannotClashWithTheTemplate() {
+        Parameters tenant = new Parameters(this.template(), args -> {});
+
+        try {
+            tenant.register(ParamBuilder.with().identifier("--COMMON-7").description("Clash").handler(args -> {}).build());
+            fail("Registered an identifier that matches a template parameter.");
+        } catch (RuntimeException expected) {
+            // Expected
+        }
+
+        tenant.register(ParamBuilder.with().identifier("--tenant").description("Tenant").handler(args -> {}).build());
+        assertFalse(tenant.tryParse("--tenant", "--common-2").hasErrors());
+
+        try {
+            tenant.seal();
+            fail("Sealed a tenant.");
+        } catch (RuntimeException expected) {
+            // Expected
+        }
+    }
+
+    private static Parameter find(Parameters parameters, String identifier) {
+        for (Parameter parameter : parameters.getRegisteredParameters()) {
+            if (parameter.matches(identifier)) return parameter;
+        }
+        throw new AssertionError(identifier);
+    }
+}
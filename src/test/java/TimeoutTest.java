@@ -0,0 +1,197 @@
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.HandlerTimeoutException;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.timeout.TimeoutPolicy;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TimeoutTest {
+
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    /**
+     * --stuck ignores interrupts until released, like a handler blocked on a dead mount.
+     */
+    private Parameters create() {
+        Parameters parameters = new Parameters(args -> {});
+
+        parameters.register(ParamBuilder.with().identifier("--stuck").description("Hangs")
+                .handler(args -> {
+                    ran.add("stuck");
+                    while (true) {
+                        try {
+                            release.await();
+                            return;
+                        } catch (InterruptedException ignored) {
+                            // Keep hanging
+                        }
+                    }
+                })
+                .priority((short) 10)
+                .timeout(Duration.ofMillis(50))
+                .build());
+
+        parameters.register(ParamBuilder.with().identifier("--slow").description("Sleeps")
+                .handler(args -> {
+                    ran.add("slow");
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        ran.add("slow interrupted");
+                    }
+                })
+                .priority((short) 5)
+                .timeout(Duration.ofMillis(50))
+                .build());
+
+        parameters.register(ParamBuilder.with().identifier("--quick").description("Returns")
+                .handler(args -> ran.add("quick on " + Thread.currentThread().getName()))
+                .build());
+
+        return parameters;
+    }
+
+    @Test
+    public void overrunningHandlerIsAbandonedAndTheRestSkipped() throws ParameterException {
+        Parameters parameters = this.create();
+
+        try {
+            parameters.process("--stuck", "--quick");
+            fail("Expected a timeout");
+        } catch (HandlerTimeoutException e) {
+            assertEquals(HandlerTimeoutException.ID, e.getId());
+            assertEquals("--stuck", e.getIdentifier());
+            assertTrue(e.getElapsed().toMillis() >= 50);
+        } finally {
+            release.countDown();
+        }
+
+        assertEquals(Collections.singletonList("stuck"), ran);
+    }
+
+    @Test
+    public void continuePolicyRunsTheRemainingHandlers() throws ParameterException {
+        Parameters parameters = this.create();
+        parameters.setTimeoutPolicy(TimeoutPolicy.CONTINUE);
+
+        try {
+            parameters.process("--stuck", "--slow", "--quick");
+            fail("Expected a timeout");
+        } catch (HandlerTimeoutException e) {
+            assertEquals("--stuck", e.getIdentifier());
+            assertEquals(1, e.getSuppressed().length);
+            assertEquals("--slow", ((HandlerTimeoutException) e.getSuppressed()[0]).getIdentifier());
+        } finally {
+            release.countDown();
+        }
+
+        assertTrue(ran.contains("quick on " + Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void invocationTimeoutStopsDispatch() throws ParameterException {
+        Parameters parameters = new Parameters(args -> {});
+        parameters.setInvocationTimeout(Duration.ofMillis(200));
+        parameters.setTimeoutPolicy(TimeoutPolicy.CONTINUE);
+
+        // --step1 hangs until released, so it overruns whatever the scheduler does, and --step2 is never reached.
+        for (int i = 0; i < 3; i++) {
+            String name = "--step" + i;
+            boolean hangs = i == 1;
+            parameters.register(ParamBuilder.with().identifier(name).description("Step")
+                    .handler(args -> {
+                        ran.add(name);
+                        while (hangs) {
+                            try {
+                                release.await();
+                                return;
+                            } catch (InterruptedException ignored) {
+                                // Keep hanging
+                            }
+                        }
+                    })
+                    .priority((short) (10 - i))
+                    .build());
+        }
+
+        try {
+            parameters.process("--step0", "--step1", "--step2");
+            fail("Expected a timeout");
+        } catch (HandlerTimeoutException e) {
+            assertEquals("--step1", e.getIdentifier());
+            assertTrue(Parameters.getAbandonedHandlerCount() >= 1);
+        } finally {
+            release.countDown();
+        }
+
+        assertEquals(java.util.Arrays.asList("--step0", "--step1"), ran);
+    }
+
+    @Test
+    public void exhaustedBudgetStartsNoHandler() throws ParameterException {
+        Parameters parameters = new Parameters(args -> {});
+        parameters.setInvocationTimeout(Duration.ofNanos(1));
+        parameters.register(ParamBuilder.with().identifier("--step").description("Step")
+                .handler(args -> ran.add("step")).build());
+
+        try {
+            parameters.process("--step");
+            fail("Expected a timeout");
+        } catch (HandlerTimeoutException e) {
+            assertEquals("--step", e.getIdentifier());
+        }
+
+        // Not started at all, rather than started and interrupted partway.
+        assertTrue(ran.isEmpty());
+    }
+
+    @Test
+    public void handlerExceptionsReachTheCaller() throws ParameterException {
+        Parameters parameters = new Parameters(args -> {});
+        IllegalStateException thrown = new IllegalStateException("boom");
+
+        parameters.register(ParamBuilder.with().identifier("--fail").description("Throws")
+                .handler(args -> { throw thrown; })
+                .timeout(Duration.ofSeconds(5))
+                .build());
+
+        try {
+            parameters.process("--fail");
+            fail("Expected the handler's exception");
+        } catch (IllegalStateException e) {
+            assertSame(thrown, e);
+        }
+    }
+
+    @Test
+    public void sealedRegistryKeepsTimeouts() throws ParameterException {
+        Parameters parameters = this.create();
+        parameters.seal();
+
+        try {
+            parameters.process("--stuck");
+            fail("Expected a timeout");
+        } catch (HandlerTimeoutException e) {
+            assertEquals("--stuck", e.getIdentifier());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void timeoutMustBePositive() {
+        ParamBuilder.with().identifier("--x").description("x").handler(args -> {}).timeout(Duration.ZERO);
+    }
+}
@@ -0,0 +1,72 @@
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.token.CommandLine;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TokenizerTest {
+
+    private static String[] tokens(String line) throws ParameterException {
+        return CommandLine.tokenize(line).toArray();
+    }
+
+    @Test
+    public void testQuoting() throws ParameterException {
+        assertArrayEquals(new String[] { "a", "b", "c" }, tokens("  a\tb \n c  "));
+        assertArrayEquals(new String[] { "hello world", "it's" }, tokens("'hello world' \"it's\""));
+        assertArrayEquals(new String[] { "a b", "c\"d", "e\\f", "$x" }, tokens("a\\ b \"c\\\"d\" 'e\\f' \\$x"));
+        assertArrayEquals(new String[] { "pre-quoted-post", "" }, tokens("pre-'quoted'-\"post\" ''"));
+        assertArrayEquals(new String[] { "\\n", "ab" }, tokens("\"\\n\" a\\\nb"));
+        assertArrayEquals(new String[] { "one", "two" }, tokens("one \\\n two"));
+        assertArrayEquals(new String[0], tokens("   "));
+    }
+
+    @Test
+    public void testErrors() {
+        for (String line : new String[] { "'open", "\"open", "trailing\\", "\"escaped\\\"" }) {
+            try {
+                tokens(line);
+                fail("Expected a tokenizer error for " + line);
+            } catch (ParameterException e) {
+                assertEquals(3, e.getId());
+            }
+        }
+    }
+
+    @Test
+    public void testLargeLine() throws ParameterException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            sb.append(i % 3 == 0 ? "'quoted arg' " : "plain ");
+        }
+
+        CommandLine line = CommandLine.tokenize(sb);
+        assertEquals(200_000, line.size());
+        assertEquals("quoted arg", line.get(0));
+        assertEquals("plain", line.view(1).toString());
+    }
+
+    private String[] received;
+
+    @Test
+    public void testProcessLine() throws ParameterException {
+        Parameters parameters = new Parameters(args -> {});
+        parameters.register(ParamBuilder.with()
+                .identifier("--copy", "-c")
+                .description("Copy")
+                .handler(args -> received = args)
+                .acceptArg("from")
+                .acceptArg("to")
+                .build());
+
+        parameters.processLine("-C 'My Documents/a.txt' \"backup dir/\"");
+        assertArrayEquals(new String[] { "My Documents/a.txt", "backup dir/" }, received);
+
+        parameters.processLine("\"--copy\" a b");
+        assertArrayEquals(new String[] { "a", "b" }, received);
+    }
+}
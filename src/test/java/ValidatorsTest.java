@@ -0,0 +1,96 @@
+import com.github.xnen.Parameters;
+import com.github.xnen.exception.ParameterException;
+import com.github.xnen.impl.IArgValidator;
+import com.github.xnen.param.ParamBuilder;
+import com.github.xnen.validator.Validators;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ValidatorsTest {
+
+    @Test
+    public void testBasicValidators() {
+        assertTrue(Validators.regex("[a-z]+").validate("abc", "def"));
+        assertFalse(Validators.regex("[a-z]+").validate("abc", "DEF"));
+
+        IArgValidator port = Validators.intRange(1, 65535);
+        assertTrue(port.validate("1", "+80", "65535"));
+        assertFalse(port.validate("0"));
+        assertFalse(port.validate("65536"));
+        assertFalse(port.validate("-"));
+        assertFalse(port.validate("12a"));
+        assertFalse(port.validate("99999999999"));
+        assertTrue(Validators.intRange(-10, -5).validate("-7"));
+
+        assertTrue(Validators.oneOf("fast", "slow").validate("fast"));
+        assertFalse(Validators.oneOf("fast", "slow").validate("Fast"));
+    }
+
+    @Test
+    public void testCombined() {
+        IArgValidator validator = Validators.and(
+                Validators.regex("[0-9]+"),
+                Validators.and(Validators.intRange(0, 100), Validators.or(Validators.oneOf("7"), Validators.intRange(50, 60))));
+
+        assertTrue(validator.validate("7", "55"));
+        assertFalse(validator.validate("7", "8"));
+        assertFalse(validator.validate("101"));
+    }
+
+    @Test
+    public void testFileValidators() throws IOException {
+        Path dir = Files.createTempDirectory("parameters");
+        Path file = Files.createFile(dir.resolve("file.txt"));
+
+        try {
+            assertTrue(Validators.existingFile().validate(file.toString()));
+            assertFalse(Validators.existingFile().validate(dir.toString()));
+            assertTrue(Validators.writableDir().validate(dir.toString()));
+            assertFalse(Validators.writableDir().validate(file.toString()));
+
+            IArgValidator memoized = Validators.existingFile(Duration.ofHours(1), 16);
+            assertTrue(memoized.validate(file.toString()));
+            Files.delete(file);
+            assertTrue("Result should be remembered within its TTL", memoized.validate(file.toString()));
+
+            IArgValidator expiring = Validators.existingFile(Duration.ZERO, 16);
+            assertFalse(expiring.validate(file.toString()));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    public void testWithParameters() {
+        Parameters parameters = new Parameters(args -> {});
+        parameters.register(ParamBuilder.with()
+                .identifier("--mode")
+                .description("Mode")
+                .handler(args -> {})
+                .validator(Validators.oneOf("fast", "slow"))
+                .acceptArg("mode")
+                .build());
+
+        try {
+            parameters.process("--mode", "fast");
+        } catch (ParameterException e) {
+            fail("Valid mode was rejected.");
+        }
+
+        try {
+            parameters.process("--mode", "medium");
+            fail("Invalid mode was accepted.");
+        } catch (ParameterException e) {
+            if (e.getId() != 2) fail("Expected a validation exception.");
+        }
+    }
+}